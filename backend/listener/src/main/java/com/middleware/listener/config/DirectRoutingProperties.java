@@ -0,0 +1,35 @@
+package com.middleware.listener.config;
+
+import com.middleware.shared.service.util.QueueRouting;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for publishing inbound documents straight to their work queue
+ */
+@Configuration
+@ConfigurationProperties(prefix = "routing.direct")
+@Getter
+@Setter
+public class DirectRoutingProperties {
+
+    /**
+     * Publish documents to inbound.processor.&lt;type&gt;.&lt;lane&gt; instead of the processor's router queue
+     */
+    private boolean enabled = true;
+
+    /**
+     * Interval in milliseconds at which the cached interface table is reloaded
+     */
+    private long refreshIntervalMs = 60000;
+
+    /**
+     * Priority lanes the processor has work queues for; documents of another lane go to the first one
+     */
+    private List<String> lanes = new ArrayList<>(List.of(QueueRouting.HIGH, QueueRouting.NORMAL, QueueRouting.LOW));
+}
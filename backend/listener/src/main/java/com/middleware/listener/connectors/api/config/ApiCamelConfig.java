@@ -1,5 +1,8 @@
 package com.middleware.listener.connectors.api.config;
 
+import com.middleware.listener.service.ClaimCheckProcessor;
+import com.middleware.listener.service.DirectRoutingProcessor;
+import com.middleware.listener.service.PayloadCompressionProcessor;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.model.rest.RestBindingMode;
 import org.springframework.context.annotation.Bean;
@@ -9,9 +12,18 @@ import org.springframework.context.annotation.Configuration;
 public class ApiCamelConfig {
 
     private final ApiProperties apiProperties;
+    private final ClaimCheckProcessor claimCheckProcessor;
+    private final PayloadCompressionProcessor payloadCompressionProcessor;
+    private final DirectRoutingProcessor directRoutingProcessor;
 
-    public ApiCamelConfig(ApiProperties apiProperties) {
+    public ApiCamelConfig(ApiProperties apiProperties,
+                          ClaimCheckProcessor claimCheckProcessor,
+                          PayloadCompressionProcessor payloadCompressionProcessor,
+                          DirectRoutingProcessor directRoutingProcessor) {
         this.apiProperties = apiProperties;
+        this.claimCheckProcessor = claimCheckProcessor;
+        this.payloadCompressionProcessor = payloadCompressionProcessor;
+        this.directRoutingProcessor = directRoutingProcessor;
     }
 
     @Bean
@@ -75,7 +87,10 @@ public class ApiCamelConfig {
                     .choice()
                         .when(simple("${exception} == null"))
                             .to("file:" + apiProperties.getProcessedDirectory())
-                            .to("rabbitmq:middleware.direct?routingKey=inbound.processor")
+                            .process(directRoutingProcessor)
+                            .process(claimCheckProcessor)
+                            .process(payloadCompressionProcessor)
+                            .toD("rabbitmq:middleware.direct?routingKey=${header.RoutingKey}")
                         .otherwise()
                             .to("file:" + apiProperties.getErrorDirectory())
                     .end();
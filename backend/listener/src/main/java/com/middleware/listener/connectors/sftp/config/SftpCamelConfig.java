@@ -2,6 +2,9 @@ package com.middleware.listener.connectors.sftp.config;
 
 import com.middleware.shared.model.connectors.SftpConfig;
 import com.middleware.listener.connectors.sftp.service.SftpConfigService;
+import com.middleware.listener.service.ClaimCheckProcessor;
+import com.middleware.listener.service.DirectRoutingProcessor;
+import com.middleware.listener.service.PayloadCompressionProcessor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.CamelContext;
@@ -26,6 +29,9 @@ import org.apache.camel.component.file.remote.RemoteFileOperations;
 public class SftpCamelConfig {
     private final SftpConfigService sftpConfigService;
     private final CamelContext camelContext;
+    private final ClaimCheckProcessor claimCheckProcessor;
+    private final PayloadCompressionProcessor payloadCompressionProcessor;
+    private final DirectRoutingProcessor directRoutingProcessor;
 
     @PostConstruct
     public void initializeRoutes() {
@@ -460,27 +466,12 @@ public class SftpCamelConfig {
                         .setHeader("ProcessingAttempt", constant(1))
                         .setHeader("SourceSystem", constant("SFTP"))
                         
-                        // Determine interface type and priority
-                        .process(exchange -> {
-                            Long interfaceId = exchange.getIn().getHeader("InterfaceId", Long.class);
-                            String priority = exchange.getIn().getHeader("Priority", String.class);
-                            if (priority == null) {
-                                priority = "NORMAL";
-                            }
-                            
-                            // TODO: Replace with actual interface type lookup
-                            String interfaceType = interfaceId == 1 ? "ASN" : "ORDER";
-                            
-                            // Set routing key based on interface type and priority
-                            String routingKey = String.format("inbound.processor.%s.%s", 
-                                interfaceType.toLowerCase(), 
-                                priority.toLowerCase());
-                            
-                            exchange.getIn().setHeader("InterfaceType", interfaceType);
-                            exchange.getIn().setHeader("RoutingKey", routingKey);
-                            
-                            log.info("Routing message to queue: {}", routingKey);
-                        })
+                        // Route by interface type and priority from the cached interface table
+                        .process(directRoutingProcessor)
+                        
+                        // Large payloads go through the content store, only their reference through the broker; others are compressed
+                        .process(claimCheckProcessor)
+                        .process(payloadCompressionProcessor)
                         
                         // Send to appropriate queue based on interface type and priority
                         .toD("rabbitmq:middleware.direct?routingKey=${header.RoutingKey}" +
@@ -0,0 +1,64 @@
+package com.middleware.listener.service;
+
+import com.middleware.shared.service.ClaimCheckStore;
+import com.middleware.shared.service.ClaimCheckStore.ClaimCheck;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Replaces large message bodies with a claim check before they are sent to RabbitMQ.
+ * Bodies above the configured threshold are written to the shared content store and the
+ * message carries only the reference, hash and size headers with an empty body.
+ */
+@Service
+public class ClaimCheckProcessor implements Processor {
+    private static final Logger log = LoggerFactory.getLogger(ClaimCheckProcessor.class);
+
+    private final ClaimCheckStore claimCheckStore;
+    private final Counter storedCounter;
+
+    public ClaimCheckProcessor(ClaimCheckStore claimCheckStore, MeterRegistry meterRegistry) {
+        this.claimCheckStore = claimCheckStore;
+        this.storedCounter = Counter.builder("claim-check.stored")
+            .description("Number of payloads sent to the processor by reference")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Message in = exchange.getIn();
+        Long fileLength = in.getHeader(Exchange.FILE_LENGTH, Long.class);
+        byte[] bytes = null;
+        long size;
+        if (fileLength != null) {
+            size = fileLength;
+        } else {
+            // Bodies without a known length (e.g. API requests) are already in memory
+            bytes = in.getBody(byte[].class);
+            size = bytes != null ? bytes.length : 0;
+        }
+        if (!claimCheckStore.shouldStore(size)) {
+            return;
+        }
+
+        ClaimCheck claimCheck;
+        try (InputStream body = bytes != null ? new ByteArrayInputStream(bytes) : in.getMandatoryBody(InputStream.class)) {
+            claimCheck = claimCheckStore.store(body);
+        }
+        in.setHeader(ClaimCheckStore.REFERENCE_HEADER, claimCheck.reference());
+        in.setHeader(ClaimCheckStore.HASH_HEADER, claimCheck.sha256());
+        in.setHeader(ClaimCheckStore.SIZE_HEADER, claimCheck.size());
+        in.setBody(new byte[0]);
+        storedCounter.increment();
+        log.info("Claim-checked {} ({} bytes) as {}", in.getHeader(Exchange.FILE_NAME), claimCheck.size(), claimCheck.reference());
+    }
+}
@@ -0,0 +1,81 @@
+package com.middleware.listener.service;
+
+import com.middleware.listener.config.DirectRoutingProperties;
+import com.middleware.listener.service.InterfaceRoutingCache.Route;
+import com.middleware.shared.service.util.QueueRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chooses the work queue of an inbound document from its interface's type and priority.
+ * The queue is set as the RoutingKey header, along with the InterfaceType, MessageType and Priority
+ * headers.
+ * Documents whose interface is unknown or whose type has no declared work queue, or all documents
+ * when direct routing is disabled, are routed to the processor's router queue, which looks the
+ * interface up itself.
+ */
+@Service
+public class DirectRoutingProcessor implements Processor {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectRoutingProcessor.class);
+
+    private final DirectRoutingProperties properties;
+    private final InterfaceRoutingCache interfaceRoutingCache;
+    private final Counter directCounter;
+    private final Counter routerCounter;
+
+    public DirectRoutingProcessor(DirectRoutingProperties properties,
+                                  InterfaceRoutingCache interfaceRoutingCache,
+                                  MeterRegistry registry) {
+        this.properties = properties;
+        this.interfaceRoutingCache = interfaceRoutingCache;
+        this.directCounter = Counter.builder("routing.messages")
+            .description("Number of inbound documents routed by the listener")
+            .tag("path", "direct")
+            .register(registry);
+        this.routerCounter = Counter.builder("routing.messages")
+            .description("Number of inbound documents routed by the listener")
+            .tag("path", "router")
+            .register(registry);
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Message in = exchange.getIn();
+        Long interfaceId = in.getHeader("InterfaceId", Long.class);
+        Optional<Route> route = properties.isEnabled() && interfaceId != null
+            ? interfaceRoutingCache.find(interfaceId).filter(r -> r.type() != null)
+            : Optional.empty();
+        String lane = route.map(r -> lane(r.priority())).orElse(null);
+        String routingKey = route.map(r -> QueueRouting.workQueue(r.type(), lane)).orElse(null);
+        // A key without a declared queue would be unroutable on the direct exchange and dropped
+        if (routingKey == null || !QueueRouting.WORK_QUEUES.contains(routingKey)) {
+            in.setHeader("RoutingKey", QueueRouting.ROUTER_QUEUE);
+            routerCounter.increment();
+            log.debug("Routing message of interface {} through {}", interfaceId, QueueRouting.ROUTER_QUEUE);
+            return;
+        }
+
+        in.setHeader("InterfaceType", route.get().type());
+        in.setHeader("MessageType", route.get().type());
+        in.setHeader("Priority", lane.toUpperCase());
+        in.setHeader("RoutingKey", routingKey);
+        directCounter.increment();
+        log.info("Routing message to queue: {}", routingKey);
+    }
+
+    private String lane(int priority) {
+        String lane = QueueRouting.priorityLane(priority);
+        List<String> lanes = properties.getLanes();
+        return lanes.isEmpty() || lanes.contains(lane) ? lane : lanes.get(0);
+    }
+}
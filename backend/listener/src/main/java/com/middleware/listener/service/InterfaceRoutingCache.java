@@ -0,0 +1,89 @@
+package com.middleware.listener.service;
+
+import com.middleware.shared.model.Interface;
+import com.middleware.shared.repository.InterfaceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type and priority of the active interfaces, kept in memory so routing a document does not
+ * query the database. The table is reloaded at a fixed interval; an interface missing from it,
+ * e.g. one created since the last reload, is looked up once and added.
+ */
+@Service
+public class InterfaceRoutingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(InterfaceRoutingCache.class);
+
+    private final InterfaceRepository interfaceRepository;
+    private volatile Map<Long, Route> routes = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public InterfaceRoutingCache(InterfaceRepository interfaceRepository, MeterRegistry registry) {
+        this.interfaceRepository = interfaceRepository;
+        Gauge.builder("routing.interfaces.cached", this, cache -> cache.routes.size())
+            .description("Number of interfaces in the routing cache")
+            .register(registry);
+    }
+
+    /**
+     * The routing attributes of an interface.
+     *
+     * @param interfaceId The interface ID
+     * @return The route, or empty if the interface does not exist or is inactive
+     */
+    public Optional<Route> find(Long interfaceId) {
+        if (!loaded) {
+            refresh();
+        }
+        Route route = routes.get(interfaceId);
+        if (route != null) {
+            return Optional.of(route);
+        }
+        Optional<Route> loadedRoute = interfaceRepository.findById(interfaceId)
+            .filter(Interface::isActive)
+            .map(Route::of);
+        loadedRoute.ifPresent(found -> routes.put(interfaceId, found));
+        return loadedRoute;
+    }
+
+    /**
+     * Reload the interface table.
+     */
+    @Scheduled(fixedDelayString = "${routing.direct.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            Map<Long, Route> refreshed = new ConcurrentHashMap<>();
+            for (Interface interfaceEntity : interfaceRepository.findByIsActiveTrue()) {
+                refreshed.put(interfaceEntity.getId(), Route.of(interfaceEntity));
+            }
+            routes = refreshed;
+            loaded = true;
+            log.debug("Loaded routing of {} active interface(s)", refreshed.size());
+        } catch (RuntimeException e) {
+            // Keep routing with the previous table
+            log.warn("Could not reload the interface routing table: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Routing attributes of an interface.
+     *
+     * @param type The interface type, e.g. ASN
+     * @param priority The interface priority
+     */
+    public record Route(String type, int priority) {
+
+        static Route of(Interface interfaceEntity) {
+            return new Route(interfaceEntity.getType(), interfaceEntity.getPriority());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.middleware.listener.service;
+
+import com.middleware.shared.service.PayloadCompressor;
+import com.middleware.shared.service.PayloadCompressor.Encoded;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.rabbitmq.RabbitMQConstants;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compresses message bodies before they are sent to RabbitMQ.
+ * The encoding is set as the AMQP content-encoding of the published message; bodies below the
+ * configured threshold, or that would not get smaller, are sent as they are.
+ */
+@Service
+public class PayloadCompressionProcessor implements Processor {
+
+    private static final String DEFAULT_QUEUE = "inbound.processor";
+
+    private final PayloadCompressor payloadCompressor;
+
+    public PayloadCompressionProcessor(PayloadCompressor payloadCompressor) {
+        this.payloadCompressor = payloadCompressor;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        Message in = exchange.getIn();
+        byte[] body = in.getBody(byte[].class);
+        String queue = in.getHeader("RoutingKey", DEFAULT_QUEUE, String.class);
+        Encoded encoded = payloadCompressor.compress(body, queue);
+        if (encoded == null) {
+            return;
+        }
+        in.setBody(encoded.bytes());
+        in.setHeader(RabbitMQConstants.CONTENT_ENCODING, encoded.encoding());
+        in.setHeader(PayloadCompressor.ORIGINAL_SIZE_HEADER, (long) body.length);
+    }
+}
@@ -0,0 +1,106 @@
+package com.middleware.processor.service.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-value cost of the date and numeric conversion paths of {@link TransformationService}.
+ * Each benchmark runs one chain and target type over a fixed set of values.
+ *
+ * <p>Run with {@code mvn -P benchmarks -pl processor -am verify}; JMH options can be passed
+ * through {@code -Djmh.args="..."}, e.g. {@code -Djmh.args="Transformation.*toBigDecimal -prof gc"}.
+ * The benchmark only uses the public {@code transformAndConvert} API, so a baseline is measured
+ * by copying {@code src/jmh} and the {@code benchmarks} profile onto a checkout of the tag or
+ * commit to compare against and running the same command there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(TransformationBenchmark.VALUES)
+public class TransformationBenchmark {
+
+    static final int VALUES = 8;
+
+    private static final String[] DATES = {
+        "2024-01-15", " 2024-02-29 ", "2023-12-31", "2024-07-04",
+        "2025-03-01 ", "2022-11-30", " 2024-10-09", "2021-06-18"
+    };
+    private static final String[] INTEGERS = {
+        "0000123", "42", "000000", "0098765", "7", "0001500.49", "0000000099", "100200300"
+    };
+    private static final String[] DECIMALS = {
+        "12.5", "1,25", "0.0004", "-17.125", "3", "99999.9995", "EUR 12.30", "1234.5678"
+    };
+    private static final String[] LONGS = {
+        "1", "12345678901", "-42", "7.5", "000123", "9999999999", "0", "31415926535"
+    };
+
+    private TransformationService service;
+
+    @Setup
+    public void setUp() {
+        service = new TransformationService(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void toFormattedDate(Blackhole blackhole) {
+        for (String value : DATES) {
+            blackhole.consume(service.transformAndConvert(value, "trim|date_format", String.class));
+        }
+    }
+
+    @Benchmark
+    public void toDate(Blackhole blackhole) {
+        for (String value : DATES) {
+            blackhole.consume(service.transformAndConvert(value, null, Date.class));
+        }
+    }
+
+    @Benchmark
+    public void toLocalDate(Blackhole blackhole) {
+        for (String value : DATES) {
+            blackhole.consume(service.transformAndConvert(value, "trim", LocalDate.class));
+        }
+    }
+
+    @Benchmark
+    public void toInteger(Blackhole blackhole) {
+        for (String value : INTEGERS) {
+            blackhole.consume(service.transformAndConvert(value, "remove_leading_zeros|integer_format", Integer.class));
+        }
+    }
+
+    @Benchmark
+    public void toBigDecimal(Blackhole blackhole) {
+        for (String value : DECIMALS) {
+            blackhole.consume(service.transformAndConvert(value, "decimal_format", BigDecimal.class));
+        }
+    }
+
+    @Benchmark
+    public void toLong(Blackhole blackhole) {
+        for (String value : LONGS) {
+            blackhole.consume(service.transformAndConvert(value, null, Long.class));
+        }
+    }
+
+}
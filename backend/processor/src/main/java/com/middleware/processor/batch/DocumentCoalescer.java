@@ -0,0 +1,310 @@
+package com.middleware.processor.batch;
+
+import com.middleware.processor.config.CoalescingConfig;
+import com.middleware.processor.exception.ValidationException;
+import com.middleware.processor.model.MessageContent;
+import com.middleware.processor.service.ProcessedFileErrorWriter;
+import com.middleware.processor.service.interfaces.XmlProcessorService;
+import com.middleware.shared.model.Interface;
+import com.middleware.shared.model.ProcessedFile;
+import com.middleware.shared.repository.InterfaceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits small documents of the same interface together.
+ * Documents are collected per interface until a group holds the configured number of documents
+ * or its first document has waited the configured delay, and the group is then processed in one
+ * transaction. Each document runs behind its own savepoint: a document that fails is rolled back
+ * to its savepoint and recorded as an error, while the rest of the group commits.
+ * <p>
+ * Some failures cannot be contained by a savepoint: an exception passing through a transactional
+ * service or raised by the persistence provider marks the whole JPA transaction rollback-only.
+ * When that happens the group is rolled back and its documents are handed back to the caller to
+ * be processed one transaction each, as without coalescing, except those whose error record was
+ * written behind: that record is committed on its own and survives the rollback.
+ */
+@Component
+public class DocumentCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentCoalescer.class);
+
+    private static final String ERROR_STATUS = "ERROR";
+
+    private final CoalescingConfig config;
+    private final XmlProcessorService xmlProcessorService;
+    private final InterfaceRepository interfaceRepository;
+    private final ProcessedFileErrorWriter processedFileErrorWriter;
+    private final Executor batchTaskExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<Long, Group> pendingGroups = new HashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DocumentCoalescer-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter transactionCounter;
+    private final Counter rollbackCounter;
+    private final Counter fallbackCounter;
+    private final DistributionSummary groupSize;
+
+    public DocumentCoalescer(CoalescingConfig config,
+                             XmlProcessorService xmlProcessorService,
+                             InterfaceRepository interfaceRepository,
+                             ProcessedFileErrorWriter processedFileErrorWriter,
+                             @Qualifier("batchTaskExecutor") Executor batchTaskExecutor,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry registry) {
+        this.config = config;
+        this.xmlProcessorService = xmlProcessorService;
+        this.interfaceRepository = interfaceRepository;
+        this.processedFileErrorWriter = processedFileErrorWriter;
+        this.batchTaskExecutor = batchTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.transactionCounter = Counter.builder("xml.coalescing.transactions")
+            .description("Number of transactions that committed a group of documents")
+            .register(registry);
+        this.rollbackCounter = Counter.builder("xml.coalescing.savepoint.rollbacks")
+            .description("Number of documents rolled back to their savepoint within a group")
+            .register(registry);
+        this.fallbackCounter = Counter.builder("xml.coalescing.fallbacks")
+            .description("Number of groups reprocessed one document per transaction")
+            .register(registry);
+        this.groupSize = DistributionSummary.builder("xml.coalescing.group.size")
+            .description("Number of documents per coalesced transaction")
+            .register(registry);
+    }
+
+    /**
+     * Whether a message may be grouped with others.
+     *
+     * @param message The message
+     * @return True if coalescing is enabled and the message is small and names its interface
+     */
+    public boolean accepts(MessageContent message) {
+        return config.isEnabled()
+            && interfaceId(message) != null
+            && message.getFileContent() != null
+            && message.getPayloadSize() <= config.getMaxPayloadBytes();
+    }
+
+    /**
+     * Add a document to the pending group of its interface.
+     *
+     * @param message A message this coalescer {@link #accepts}
+     * @return Completes with the document's processing result once its group has committed, or
+     *         empty if the group was rolled back and the document must be processed on its own
+     */
+    public CompletableFuture<Optional<ProcessedFile>> submit(MessageContent message) {
+        Long interfaceId = interfaceId(message);
+        Entry entry = new Entry(message);
+        Group ready = null;
+        synchronized (pendingGroups) {
+            Group group = pendingGroups.get(interfaceId);
+            if (group == null) {
+                Group created = new Group(interfaceId);
+                created.timeout = timer.schedule(() -> dispatchIfPending(created), config.getMaxDelayMs(), TimeUnit.MILLISECONDS);
+                pendingGroups.put(interfaceId, created);
+                group = created;
+            }
+            group.entries.add(entry);
+            if (group.entries.size() >= config.getMaxDocuments()) {
+                pendingGroups.remove(interfaceId);
+                group.timeout.cancel(false);
+                ready = group;
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return entry.result;
+    }
+
+    private void dispatchIfPending(Group group) {
+        synchronized (pendingGroups) {
+            if (!pendingGroups.remove(group.interfaceId, group)) {
+                return;
+            }
+        }
+        dispatch(group);
+    }
+
+    private void dispatch(Group group) {
+        try {
+            batchTaskExecutor.execute(() -> process(group));
+        } catch (RuntimeException e) {
+            log.error("Could not schedule group of {} document(s) for interface {}", group.entries.size(), group.interfaceId, e);
+            group.entries.forEach(entry -> entry.result.completeExceptionally(e));
+        }
+    }
+
+    private void process(Group group) {
+        List<ProcessedFile> results;
+        try {
+            results = transactionTemplate.execute(status -> processInSavepoints(group));
+        } catch (RuntimeException e) {
+            log.warn("Coalesced transaction of {} document(s) for interface {} failed, processing them individually: {}",
+                group.entries.size(), group.interfaceId, e.getMessage());
+            fallbackCounter.increment();
+            // Documents whose error record is already committed are not processed again
+            group.entries.forEach(entry -> entry.result.complete(Optional.ofNullable(entry.committedError)));
+            return;
+        }
+        transactionCounter.increment();
+        groupSize.record(group.entries.size());
+        for (int i = 0; i < group.entries.size(); i++) {
+            group.entries.get(i).result.complete(Optional.of(results.get(i)));
+        }
+    }
+
+    private List<ProcessedFile> processInSavepoints(Group group) {
+        Interface interfaceEntity = loadInterface(group.interfaceId);
+        List<ProcessedFile> results = new ArrayList<>(group.entries.size());
+        for (Entry entry : group.entries) {
+            // Everything before the savepoint must reach the database so a rollback only drops this document
+            entityManager.flush();
+            Savepoint savepoint = session().doReturningWork(Connection::setSavepoint);
+            ProcessedFile result;
+            String failure;
+            try {
+                result = xmlProcessorService.processXmlFile(entry.message.getMultipartFile(), interfaceEntity);
+                if (result.isWrittenBehind()) {
+                    entry.committedError = result;
+                }
+                entityManager.flush();
+                failure = ERROR_STATUS.equals(result.getStatus()) ? result.getErrorMessage() : null;
+            } catch (RuntimeException e) {
+                result = null;
+                failure = e.getMessage();
+            }
+
+            if (session().getTransaction().getRollbackOnly()) {
+                throw new IllegalStateException("Document " + entry.message.getFilename() +
+                    " marked the shared transaction rollback-only" + (failure != null ? ": " + failure : ""));
+            }
+            if (failure == null) {
+                session().doWork(connection -> connection.releaseSavepoint(savepoint));
+                results.add(result);
+                continue;
+            }
+
+            session().doWork(connection -> connection.rollback(savepoint));
+            rollbackCounter.increment();
+            // Entities of the rolled back document may still be managed; drop them and start clean
+            entityManager.clear();
+            interfaceEntity = loadInterface(group.interfaceId);
+            // An error record written behind lives in its own transaction and was not rolled back;
+            // any other result, saved or not, went with the savepoint and is recorded again
+            if (entry.committedError == null) {
+                ProcessedFile errorFile = saveError(entry.message, interfaceEntity, failure);
+                if (errorFile.isWrittenBehind()) {
+                    entry.committedError = errorFile;
+                }
+                results.add(errorFile);
+            } else {
+                results.add(entry.committedError);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The session of the current transaction. Savepoints are set on its JDBC connection directly,
+     * as JpaTransactionManager does not offer savepoints with Hibernate.
+     */
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    private Interface loadInterface(Long interfaceId) {
+        return interfaceRepository.findById(interfaceId)
+            .orElseThrow(() -> new ValidationException("Interface not found: " + interfaceId));
+    }
+
+    private ProcessedFile saveError(MessageContent message, Interface interfaceEntity, String errorMessage) {
+        ProcessedFile errorFile = new ProcessedFile();
+        errorFile.setFileName(message.getFilename());
+        errorFile.setStatus(ERROR_STATUS);
+        errorFile.setErrorMessage(errorMessage);
+        errorFile.setInterfaceEntity(interfaceEntity);
+        errorFile.setClient(interfaceEntity.getClient());
+        errorFile.setProcessedAt(LocalDateTime.now());
+        return processedFileErrorWriter.write(errorFile);
+    }
+
+    private static Long interfaceId(MessageContent message) {
+        if (message.getInterfaceId() != null) {
+            return message.getInterfaceId();
+        }
+        return message.getInterfaceEntity() != null ? message.getInterfaceEntity().getId() : null;
+    }
+
+    /**
+     * Process the groups still waiting for their delay before shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Group> remaining;
+        synchronized (pendingGroups) {
+            remaining = new ArrayList<>(pendingGroups.values());
+            pendingGroups.clear();
+        }
+        timer.shutdownNow();
+        remaining.forEach(this::process);
+    }
+
+    private static final class Group {
+        private final Long interfaceId;
+        private final List<Entry> entries = new ArrayList<>();
+        private ScheduledFuture<?> timeout;
+
+        Group(Long interfaceId) {
+            this.interfaceId = interfaceId;
+        }
+    }
+
+    private static final class Entry {
+        private final MessageContent message;
+        private final CompletableFuture<Optional<ProcessedFile>> result = new CompletableFuture<>();
+        // Error record committed outside the group's transaction, kept if the group is rolled back
+        private ProcessedFile committedError;
+
+        Entry(MessageContent message) {
+            this.message = message;
+        }
+    }
+}
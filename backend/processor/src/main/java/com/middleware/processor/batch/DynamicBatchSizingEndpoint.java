@@ -0,0 +1,25 @@
+package com.middleware.processor.batch;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint showing the batch size and consumers chosen by {@link DynamicBatchSizingService}
+ * and the decisions that led to them.
+ */
+@Component
+@Endpoint(id = "batchsizing")
+public class DynamicBatchSizingEndpoint {
+
+    private final DynamicBatchSizingService dynamicBatchSizingService;
+
+    public DynamicBatchSizingEndpoint(DynamicBatchSizingService dynamicBatchSizingService) {
+        this.dynamicBatchSizingService = dynamicBatchSizingService;
+    }
+
+    @ReadOperation
+    public DynamicBatchSizingService.Status status() {
+        return dynamicBatchSizingService.getStatus();
+    }
+}
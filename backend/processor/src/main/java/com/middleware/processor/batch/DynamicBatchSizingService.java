@@ -1,76 +1,289 @@
 package com.middleware.processor.batch;
 
+import com.middleware.processor.config.RabbitMQConfig;
 import com.middleware.processor.metrics.ProcessingMetrics;
+import com.middleware.shared.service.util.QueueRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.MeterNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.QueueInformation;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Adapts the consumer batch size and the number of consumers per listener container to the load.
+ * At a fixed interval, on a timer thread of its own so the application does not need scheduling
+ * enabled, the ready messages of all queues the processor consumes are summed up:
+ * above the depth threshold, and with CPU to spare, both are raised one step; below half the
+ * threshold, or when the CPU is busy, both are lowered one step, each within its bounds. A change
+ * is only applied once the same direction has been observed for the configured number of
+ * consecutive intervals, so a single spike or lull does not make the consumers flap.
+ * <p>
+ * Every decision, including the ones to hold, is counted with its reason and kept in a short
+ * history exposed through the {@code batchsizing} actuator endpoint.
+ */
+@Slf4j
 @Service
 public class DynamicBatchSizingService {
 
+    private static final int HISTORY_SIZE = 50;
+
     private final RabbitAdmin rabbitAdmin;
     private final ProcessingMetrics processingMetrics;
+    private final RabbitListenerEndpointRegistry listenerEndpointRegistry;
     private final AtomicInteger currentBatchSize;
+    private final AtomicInteger currentConsumers;
+    private final AtomicInteger lastQueueDepth = new AtomicInteger();
     private final int minBatchSize;
     private final int maxBatchSize;
     private final int queueDepthThreshold;
     private final int adjustmentStep;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int stableIntervals;
+    private final double cpuScaleUpBelow;
+    private final double cpuScaleDownAbove;
+    private final long adjustIntervalMs;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DynamicBatchSizingService-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Action pendingAction = Action.HOLD;
+    private int pendingIntervals;
+    private final Deque<Decision> history = new ArrayDeque<>();
 
     public DynamicBatchSizingService(RabbitAdmin rabbitAdmin,
                                    ProcessingMetrics processingMetrics,
+                                   RabbitListenerEndpointRegistry listenerEndpointRegistry,
                                    @Value("${batch.min-size:10}") int minBatchSize,
                                    @Value("${batch.max-size:100}") int maxBatchSize,
                                    @Value("${batch.queue-depth-threshold:1000}") int queueDepthThreshold,
-                                   @Value("${batch.adjustment-step:10}") int adjustmentStep) {
+                                   @Value("${batch.adjustment-step:10}") int adjustmentStep,
+                                   @Value("${rabbitmq.concurrent.consumers:3}") int minConsumers,
+                                   @Value("${rabbitmq.max.concurrent.consumers:10}") int maxConsumers,
+                                   @Value("${batch.stable-intervals:2}") int stableIntervals,
+                                   @Value("${batch.cpu.scale-up-below:0.7}") double cpuScaleUpBelow,
+                                   @Value("${batch.cpu.scale-down-above:0.8}") double cpuScaleDownAbove,
+                                   @Value("${batch.adjust-interval-ms:30000}") long adjustIntervalMs) {
         this.rabbitAdmin = rabbitAdmin;
         this.processingMetrics = processingMetrics;
+        this.listenerEndpointRegistry = listenerEndpointRegistry;
         this.minBatchSize = minBatchSize;
         this.maxBatchSize = maxBatchSize;
         this.queueDepthThreshold = queueDepthThreshold;
         this.adjustmentStep = adjustmentStep;
+        this.minConsumers = minConsumers;
+        this.maxConsumers = Math.max(minConsumers, maxConsumers);
+        this.stableIntervals = Math.max(1, stableIntervals);
+        this.cpuScaleUpBelow = cpuScaleUpBelow;
+        this.cpuScaleDownAbove = cpuScaleDownAbove;
+        this.adjustIntervalMs = Math.max(1, adjustIntervalMs);
         this.currentBatchSize = new AtomicInteger(minBatchSize);
+        this.currentConsumers = new AtomicInteger(minConsumers);
+
+        MeterRegistry registry = processingMetrics.getRegistry();
+        Gauge.builder("xml.adaptive.batch-size", currentBatchSize, AtomicInteger::get)
+            .description("Consumer batch size set on the batch listener containers")
+            .register(registry);
+        Gauge.builder("xml.adaptive.consumers", currentConsumers, AtomicInteger::get)
+            .description("Concurrent consumers set on each listener container")
+            .register(registry);
+        Gauge.builder("xml.adaptive.queue-depth", lastQueueDepth, AtomicInteger::get)
+            .description("Ready messages across the processor queues at the last decision")
+            .register(registry);
     }
 
-    @Scheduled(fixedRate = 30000)
-    public void adjustBatchSize() {
+    @PostConstruct
+    public void start() {
+        timer.scheduleAtFixedRate(this::adjustSafely, adjustIntervalMs, adjustIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * A failed evaluation, e.g. while the broker is unreachable, must not cancel the ones after it.
+     */
+    private void adjustSafely() {
+        try {
+            adjustBatchSize();
+        } catch (RuntimeException e) {
+            log.warn("Could not adjust batch size and consumers: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void adjustBatchSize() {
         int queueDepth = getQueueDepth();
         double systemLoad = getSystemLoad();
-        
-        int newBatchSize = calculateNewBatchSize(queueDepth, systemLoad);
-        currentBatchSize.set(newBatchSize);
-        
-        processingMetrics.getQueueMetrics().monitorQueueDepth();
+        lastQueueDepth.set(queueDepth);
+
+        Decision decision = decide(queueDepth, systemLoad);
+        record(decision);
+        if (decision.action() != Action.HOLD) {
+            applyToContainers(decision.batchSize(), decision.consumers());
+            log.info("Scaled {}: batch size {}, consumers {} ({}, queue depth {}, cpu {})", decision.action(),
+                decision.batchSize(), decision.consumers(), decision.reason(), queueDepth, String.format("%.2f", systemLoad));
+        }
+    }
+
+    private Decision decide(int queueDepth, double systemLoad) {
+        Action wanted;
+        String reason;
+        if (systemLoad > cpuScaleDownAbove) {
+            wanted = Action.SCALE_DOWN;
+            reason = "cpu-busy";
+        } else if (queueDepth > queueDepthThreshold && systemLoad < cpuScaleUpBelow) {
+            wanted = Action.SCALE_UP;
+            reason = "queue-deep";
+        } else if (queueDepth < queueDepthThreshold / 2) {
+            wanted = Action.SCALE_DOWN;
+            reason = "queue-shallow";
+        } else {
+            wanted = Action.HOLD;
+            reason = queueDepth > queueDepthThreshold ? "cpu-no-headroom" : "within-band";
+        }
+
+        if (wanted == Action.HOLD) {
+            pendingAction = Action.HOLD;
+            pendingIntervals = 0;
+            return decision(Action.HOLD, reason, queueDepth, systemLoad);
+        }
+        pendingIntervals = wanted == pendingAction ? pendingIntervals + 1 : 1;
+        pendingAction = wanted;
+        if (pendingIntervals < stableIntervals) {
+            return decision(Action.HOLD, reason + "-unconfirmed", queueDepth, systemLoad);
+        }
+
+        int step = wanted == Action.SCALE_UP ? 1 : -1;
+        int batchSize = clamp(currentBatchSize.get() + step * adjustmentStep, minBatchSize, maxBatchSize);
+        int consumers = clamp(currentConsumers.get() + step, minConsumers, maxConsumers);
+        if (batchSize == currentBatchSize.get() && consumers == currentConsumers.get()) {
+            return decision(Action.HOLD, reason + "-at-bound", queueDepth, systemLoad);
+        }
+        pendingIntervals = 0;
+        currentBatchSize.set(batchSize);
+        currentConsumers.set(consumers);
+        return decision(wanted, reason, queueDepth, systemLoad);
+    }
+
+    private Decision decision(Action action, String reason, int queueDepth, double systemLoad) {
+        return new Decision(Instant.now(), action, reason, queueDepth, systemLoad,
+            currentBatchSize.get(), currentConsumers.get());
+    }
+
+    private void record(Decision decision) {
+        Counter.builder("xml.adaptive.decisions")
+            .description("Number of batch size and concurrency decisions")
+            .tag("action", decision.action().name().toLowerCase())
+            .tag("reason", decision.reason())
+            .register(processingMetrics.getRegistry())
+            .increment();
+        history.addFirst(decision);
+        while (history.size() > HISTORY_SIZE) {
+            history.removeLast();
+        }
+    }
+
+    /**
+     * Set the consumers of every listener container, and the batch size of the batch listener containers.
+     */
+    private void applyToContainers(int batchSize, int consumers) {
+        for (MessageListenerContainer container : listenerEndpointRegistry.getListenerContainers()) {
+            if (container instanceof SimpleMessageListenerContainer simpleContainer) {
+                if (simpleContainer.isConsumerBatchEnabled()) {
+                    simpleContainer.setBatchSize(batchSize);
+                }
+                simpleContainer.setConcurrentConsumers(consumers);
+            }
+        }
     }
 
     private int getQueueDepth() {
-        var queueInfo = rabbitAdmin.getQueueInfo("inbound.processor");
-        return queueInfo != null ? queueInfo.getMessageCount() : 0;
+        List<String> queues = new ArrayList<>(RabbitMQConfig.PRIORITY_QUEUES);
+        queues.add(QueueRouting.ROUTER_QUEUE);
+        int depth = 0;
+        for (String queue : queues) {
+            QueueInformation queueInfo = rabbitAdmin.getQueueInfo(queue);
+            int messageCount = queueInfo != null ? queueInfo.getMessageCount() : 0;
+            // Also refreshes the per-queue depth gauges
+            processingMetrics.getQueueMetrics().recordQueueDepth(queue, messageCount);
+            depth += messageCount;
+        }
+        return depth;
     }
 
     private double getSystemLoad() {
-        return processingMetrics.getRegistry().get("system.cpu.usage")
-            .gauge()
-            .value();
-    }
-
-    private int calculateNewBatchSize(int queueDepth, double systemLoad) {
-        int currentSize = currentBatchSize.get();
-        
-        if (queueDepth > queueDepthThreshold && systemLoad < 0.7) {
-            // Increase batch size if queue is deep and system has capacity
-            return Math.min(currentSize + adjustmentStep, maxBatchSize);
-        } else if (queueDepth < queueDepthThreshold / 2 || systemLoad > 0.8) {
-            // Decrease batch size if queue is shallow or system is under load
-            return Math.max(currentSize - adjustmentStep, minBatchSize);
+        try {
+            double load = processingMetrics.getRegistry().get("system.cpu.usage")
+                .gauge()
+                .value();
+            return Double.isNaN(load) ? 0 : load;
+        } catch (MeterNotFoundException e) {
+            return 0;
         }
-        
-        return currentSize;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
     }
 
     public int getCurrentBatchSize() {
         return currentBatchSize.get();
     }
-} 
+
+    public int getCurrentConsumers() {
+        return currentConsumers.get();
+    }
+
+    /**
+     * Current settings, bounds and the most recent decisions, newest first.
+     */
+    public synchronized Status getStatus() {
+        return new Status(currentBatchSize.get(), minBatchSize, maxBatchSize,
+            currentConsumers.get(), minConsumers, maxConsumers,
+            queueDepthThreshold, stableIntervals, pendingAction, pendingIntervals,
+            List.copyOf(history));
+    }
+
+    public enum Action {
+        SCALE_UP,
+        SCALE_DOWN,
+        HOLD
+    }
+
+    /**
+     * One evaluation of the load, with the settings in effect after it.
+     */
+    public record Decision(Instant timestamp, Action action, String reason, int queueDepth, double cpuUsage,
+                           int batchSize, int consumers) {
+    }
+
+    public record Status(int batchSize, int minBatchSize, int maxBatchSize,
+                         int consumers, int minConsumers, int maxConsumers,
+                         int queueDepthThreshold, int stableIntervals,
+                         Action pendingAction, int pendingIntervals,
+                         List<Decision> decisions) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.middleware.processor.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Schema validation outcome stored in the validation result cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedValidationResult {
+
+    private boolean valid;
+
+    /**
+     * The validation errors as one message; null when valid
+     */
+    private String errorMessage;
+}
@@ -0,0 +1,27 @@
+package com.middleware.processor.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A document currently being processed, as kept by the processing status tracker.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InFlightDocument {
+
+    private String trackingId;
+
+    private String fileName;
+
+    private Long interfaceId;
+
+    private Long clientId;
+
+    /**
+     * Epoch milliseconds at which processing started
+     */
+    private long startedAt;
+}
@@ -0,0 +1,127 @@
+package com.middleware.processor.cache;
+
+import com.middleware.processor.config.ProcessingStatusConfig;
+import com.middleware.shared.model.Interface;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal of the documents currently being processed.
+ * In-flight state is kept here instead of in processed_files, which only receives the final
+ * outcome of each document. Entries live in a local map and are mirrored to Redis with an expiry,
+ * so the API can list the documents of all instances and entries of a stopped instance age out.
+ * Redis failures are logged and the local view is used instead.
+ */
+@Component
+public class ProcessingStatusTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessingStatusTracker.class);
+
+    private static final String KEY_PREFIX = "processing:in-flight:";
+    private static final int SCAN_COUNT = 500;
+
+    private final ProcessingStatusConfig config;
+    private final RedisTemplate<String, InFlightDocument> redisTemplate;
+    private final Map<String, InFlightDocument> localEntries = new ConcurrentHashMap<>();
+
+    public ProcessingStatusTracker(ProcessingStatusConfig config,
+                                   RedisTemplate<String, InFlightDocument> inFlightDocumentRedisTemplate,
+                                   MeterRegistry registry) {
+        this.config = config;
+        this.redisTemplate = inFlightDocumentRedisTemplate;
+        Gauge.builder("xml.processing.in-flight", localEntries, Map::size)
+            .description("Number of documents being processed by this instance")
+            .register(registry);
+    }
+
+    /**
+     * Record that processing of a document has started.
+     *
+     * @param fileName The document's file name
+     * @param interfaceEntity The interface the document is processed for
+     * @return The entry to pass to {@link #complete} once the outcome is known
+     */
+    public InFlightDocument begin(String fileName, Interface interfaceEntity) {
+        InFlightDocument entry = new InFlightDocument(
+            UUID.randomUUID().toString(),
+            fileName,
+            interfaceEntity.getId(),
+            interfaceEntity.getClient() != null ? interfaceEntity.getClient().getId() : null,
+            System.currentTimeMillis());
+        localEntries.put(entry.getTrackingId(), entry);
+        if (config.isRedisEnabled()) {
+            try {
+                redisTemplate.opsForValue().set(KEY_PREFIX + entry.getTrackingId(), entry, config.getTtlSeconds(), TimeUnit.SECONDS);
+            } catch (RuntimeException e) {
+                log.debug("Could not publish in-flight document {} to Redis: {}", fileName, e.getMessage());
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Record that processing of a document has finished, whatever its outcome.
+     *
+     * @param entry The entry returned by {@link #begin}
+     */
+    public void complete(InFlightDocument entry) {
+        localEntries.remove(entry.getTrackingId());
+        if (config.isRedisEnabled()) {
+            try {
+                redisTemplate.unlink(KEY_PREFIX + entry.getTrackingId());
+            } catch (RuntimeException e) {
+                log.debug("Could not remove in-flight document {} from Redis: {}", entry.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * List the documents being processed, oldest first.
+     *
+     * @return The documents of all instances when Redis is available, otherwise those of this instance
+     */
+    public List<InFlightDocument> getInFlightDocuments() {
+        List<InFlightDocument> entries = config.isRedisEnabled() ? readFromRedis() : null;
+        if (entries == null) {
+            entries = new ArrayList<>(localEntries.values());
+        }
+        entries.sort(Comparator.comparingLong(InFlightDocument::getStartedAt));
+        return entries;
+    }
+
+    private List<InFlightDocument> readFromRedis() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(SCAN_COUNT).build();
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+            if (keys.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<InFlightDocument> values = redisTemplate.opsForValue().multiGet(keys);
+            List<InFlightDocument> entries = new ArrayList<>(keys.size());
+            if (values != null) {
+                // Entries completed between SCAN and MGET come back as null
+                values.stream().filter(Objects::nonNull).forEach(entries::add);
+            }
+            return entries;
+        } catch (RuntimeException e) {
+            log.warn("Could not read in-flight documents from Redis, listing this instance only: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,43 +1,232 @@
 package com.middleware.processor.cache;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.middleware.processor.config.ValidationCacheConfig;
+import com.middleware.processor.validation.SchemaRegistry;
+import com.middleware.processor.validation.ValidationResult;
+import com.middleware.shared.model.Interface;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Two-tier cache of schema validation results.
+ * A bounded local cache sits in front of Redis so identical resends skip validation without a
+ * network round trip. Keys combine the interface id, a version of the interface's schema and a
+ * SHA-256 hash of the payload, so a changed XSD never serves results computed against the old one.
+ * Redis failures are treated as misses.
+ */
 @Component
 public class ValidationResultCache {
 
+    private static final Logger log = LoggerFactory.getLogger(ValidationResultCache.class);
+
     private static final String CACHE_PREFIX = "validation:";
-    private static final long CACHE_TTL = 3600; // 1 hour
+    private static final String RESULT_TAG = "result";
+
+    private final ValidationCacheConfig config;
+    private final SchemaRegistry schemaRegistry;
+    private final RedisTemplate<String, CachedValidationResult> redisTemplate;
+    private final Cache<String, CachedValidationResult> localCache;
+
+    private final Counter localHitCounter;
+    private final Counter remoteHitCounter;
+    private final Counter missCounter;
+
+    public ValidationResultCache(ValidationCacheConfig config,
+                                 SchemaRegistry schemaRegistry,
+                                 RedisTemplate<String, CachedValidationResult> validationResultRedisTemplate,
+                                 MeterRegistry registry) {
+        this.config = config;
+        this.schemaRegistry = schemaRegistry;
+        this.redisTemplate = validationResultRedisTemplate;
+        this.localCache = CacheBuilder.newBuilder()
+            .maximumSize(config.getMaxSize())
+            .expireAfterWrite(config.getLocalTtl(), TimeUnit.SECONDS)
+            .build();
+
+        this.localHitCounter = requestCounter(registry, "l1_hit");
+        this.remoteHitCounter = requestCounter(registry, "l2_hit");
+        this.missCounter = requestCounter(registry, "miss");
+        Gauge.builder("xml.validation.cache.hit.ratio", this, ValidationResultCache::hitRatio)
+            .description("Share of validation cache lookups answered by either tier")
+            .register(registry);
+        Gauge.builder("xml.validation.cache.l1.size", localCache, Cache::size)
+            .description("Number of validation results in the local cache")
+            .register(registry);
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("xml.validation.cache.requests")
+            .description("Number of validation cache lookups, by outcome")
+            .tag(RESULT_TAG, result)
+            .register(registry);
+    }
+
+    private double hitRatio() {
+        double hits = localHitCounter.count() + remoteHitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * Build the cache key for validating a payload against an interface's schema.
+     *
+     * @param file The payload
+     * @param interfaceEntity The interface whose schema the payload is validated against
+     * @return The key, or null if results for this payload cannot be cached
+     * @throws IOException If the payload or schema cannot be read
+     */
+    public String keyFor(MultipartFile file, Interface interfaceEntity) throws IOException {
+        if (!config.isEnabled() || interfaceEntity.getId() == null) {
+            return null;
+        }
+        String schemaVersion = schemaRegistry.getSchemaVersion(interfaceEntity.getSchemaPath());
+        if (schemaVersion == null) {
+            return null;
+        }
+        // The root element decides between strict and flexible validation, so it is part of the version
+        String version = Hashing.sha256()
+            .hashString(interfaceEntity.getSchemaPath() + "|" + schemaVersion + "|" + interfaceEntity.getRootElement(), StandardCharsets.UTF_8)
+            .toString()
+            .substring(0, 16);
+        return interfacePrefix(interfaceEntity.getId()) + version + ":" + payloadHash(file);
+    }
+
+    private static String payloadHash(MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream();
+             HashingInputStream hashingStream = new HashingInputStream(Hashing.sha256(), inputStream)) {
+            ByteStreams.exhaust(hashingStream);
+            return hashingStream.hash().toString();
+        }
+    }
 
-    private final RedisTemplate<String, Boolean> redisTemplate;
+    private static String interfacePrefix(Long interfaceId) {
+        return CACHE_PREFIX + interfaceId + ":";
+    }
 
-    public ValidationResultCache(RedisTemplate<String, Boolean> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    /**
+     * Look up a validation result, local cache first.
+     *
+     * @param key A key from {@link #keyFor}
+     * @return The cached result, or null on a miss
+     */
+    public CachedValidationResult getValidationResult(String key) {
+        CachedValidationResult result = localCache.getIfPresent(key);
+        if (result != null) {
+            localHitCounter.increment();
+            return result;
+        }
+        try {
+            result = redisTemplate.opsForValue().get(key);
+        } catch (RuntimeException e) {
+            log.debug("Validation cache lookup in Redis failed: {}", e.getMessage());
+        }
+        if (result != null) {
+            localCache.put(key, result);
+            remoteHitCounter.increment();
+            return result;
+        }
+        missCounter.increment();
+        return null;
     }
 
-    public Boolean getValidationResult(String documentHash) {
-        return redisTemplate.opsForValue().get(CACHE_PREFIX + documentHash);
+    /**
+     * Store a validation result in both tiers. Only complete results are stored; a failure such as
+     * a missing schema or a read error is not cached, so the next attempt validates again.
+     *
+     * @param key A key from {@link #keyFor}
+     * @param result The validation result
+     */
+    public void cacheValidationResult(String key, ValidationResult result) {
+        if (!result.isComplete()) {
+            log.debug("Not caching incomplete validation result: {}", result.getErrorMessage());
+            return;
+        }
+        CachedValidationResult cached = new CachedValidationResult(result.isValid(), result.getErrorMessage());
+        localCache.put(key, cached);
+        try {
+            redisTemplate.opsForValue().set(key, cached, config.getTtl(), TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            log.debug("Validation cache write to Redis failed: {}", e.getMessage());
+        }
     }
 
-    public void cacheValidationResult(String documentHash, boolean isValid) {
-        redisTemplate.opsForValue().set(
-            CACHE_PREFIX + documentHash,
-            isValid,
-            CACHE_TTL,
-            TimeUnit.SECONDS
-        );
+    public void invalidateCache(String key) {
+        localCache.invalidate(key);
+        try {
+            redisTemplate.delete(key);
+        } catch (RuntimeException e) {
+            log.debug("Validation cache delete from Redis failed: {}", e.getMessage());
+        }
     }
 
-    public void invalidateCache(String documentHash) {
-        redisTemplate.delete(CACHE_PREFIX + documentHash);
+    /**
+     * Drop all results for an interface, e.g. after its schema was replaced.
+     *
+     * @param interfaceId The interface id
+     */
+    public void invalidateInterface(Long interfaceId) {
+        if (interfaceId == null) {
+            return;
+        }
+        String prefix = interfacePrefix(interfaceId);
+        localCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        long removed = deleteMatching(prefix + "*");
+        log.info("Invalidated {} cached validation result(s) for interface {}", removed, interfaceId);
     }
 
     public void clearCache() {
-        var keys = redisTemplate.keys(CACHE_PREFIX + "*");
-        if (keys != null) {
-            redisTemplate.delete(keys);
+        localCache.invalidateAll();
+        deleteMatching(CACHE_PREFIX + "*");
+    }
+
+    /**
+     * Delete keys matching a pattern with incremental SCAN and non-blocking UNLINK, so Redis is
+     * never blocked by a full keyspace walk.
+     */
+    private long deleteMatching(String pattern) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(config.getScanCount()).build();
+        List<String> batch = new ArrayList<>(config.getScanCount());
+        long removed = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= config.getScanCount()) {
+                    removed += unlink(batch);
+                }
+            }
+            removed += unlink(batch);
+        } catch (RuntimeException e) {
+            log.warn("Could not invalidate cached validation results matching {}: {}", pattern, e.getMessage());
+        }
+        return removed;
+    }
+
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
         }
+        Long removed = redisTemplate.unlink(keys);
+        keys.clear();
+        return removed == null ? 0 : removed;
     }
-} 
+}
@@ -0,0 +1,31 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for writing large numbers of document lines with PostgreSQL COPY
+ */
+@Configuration
+@ConfigurationProperties(prefix = "xml.bulk-load")
+@Getter
+@Setter
+public class BulkLoadConfig {
+
+    /**
+     * Allow lines above the row threshold to be copied into their table instead of persisted through JPA
+     */
+    private boolean enabled = true;
+
+    /**
+     * Line count from which COPY is used, for interfaces without their own threshold; 0 or less disables it
+     */
+    private int defaultThresholdRows = 5000;
+
+    /**
+     * Size in bytes of the buffer rows are encoded into before being sent to the server
+     */
+    private int bufferSizeBytes = 64 * 1024;
+}
@@ -0,0 +1,36 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for processing small documents of the same interface in shared transactions
+ */
+@Configuration
+@ConfigurationProperties(prefix = "batch.coalescing")
+@Getter
+@Setter
+public class CoalescingConfig {
+
+    /**
+     * Group small documents into shared transactions instead of one transaction per document
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of documents committed together
+     */
+    private int maxDocuments = 50;
+
+    /**
+     * Maximum time in milliseconds the first document of a group waits for others to join it
+     */
+    private long maxDelayMs = 100;
+
+    /**
+     * Payload size in bytes up to which a document may be grouped; larger ones get their own transaction
+     */
+    private long maxPayloadBytes = 256 * 1024;
+}
@@ -0,0 +1,46 @@
+package com.middleware.processor.config;
+
+import com.middleware.shared.service.util.QueueRouting;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for sharing processing capacity between the priority lanes
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rabbitmq.lanes")
+@Getter
+@Setter
+public class LaneSchedulingConfig {
+
+    /**
+     * Admit messages of the work queues to processing in weighted fair order; when disabled every consumer processes at once
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of listener deliveries, single messages or batches, processed at the same time across all lanes
+     */
+    private int maxInFlight = 10;
+
+    /**
+     * Messages admitted per round for each queue of a priority lane (high, normal, low)
+     */
+    private Map<String, Integer> weights = new HashMap<>(Map.of(
+        QueueRouting.HIGH, 6,
+        QueueRouting.NORMAL, 3,
+        QueueRouting.LOW, 1));
+
+    /**
+     * Weight of a work queue, from the priority lane its name ends with.
+     */
+    public int weightOf(String workQueue) {
+        String lane = workQueue.substring(workQueue.lastIndexOf('.') + 1);
+        return Math.max(1, weights.getOrDefault(lane, 1));
+    }
+}
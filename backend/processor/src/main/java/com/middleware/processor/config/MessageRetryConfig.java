@@ -0,0 +1,76 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for retrying failed messages through delayed retry queues
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rabbitmq.retry")
+@Getter
+@Setter
+public class MessageRetryConfig {
+
+    /**
+     * Exchange the retry queues are bound to
+     */
+    public static final String RETRY_EXCHANGE = "middleware.retry";
+
+    /**
+     * Header carrying the number of retries a message has been through
+     */
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+
+    /**
+     * Send failed messages through the retry queues before dead-lettering them
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of deliveries of a message, including the first; one retry queue is declared per further attempt
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Delay in milliseconds before the first retry
+     */
+    private long initialDelayMs = 1000;
+
+    /**
+     * Factor applied to the delay for each further retry
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * Upper bound in milliseconds for the delay of any retry
+     */
+    private long maxDelayMs = 10000;
+
+    /**
+     * Number of retries after the first delivery.
+     */
+    public int getMaxRetries() {
+        return Math.max(0, maxAttempts - 1);
+    }
+
+    /**
+     * Delay before the given retry.
+     *
+     * @param retry The retry number, starting at 1
+     * @return The delay in milliseconds
+     */
+    public long delayForRetry(int retry) {
+        double delay = initialDelayMs * Math.pow(multiplier, retry - 1);
+        return (long) Math.min(delay, maxDelayMs);
+    }
+
+    /**
+     * Name of the queue holding messages of a work queue waiting for the given retry.
+     */
+    public static String retryQueueName(String workQueue, int retry) {
+        return workQueue + ".retry." + retry;
+    }
+}
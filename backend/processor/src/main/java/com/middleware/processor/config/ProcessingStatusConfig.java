@@ -0,0 +1,36 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for tracking documents in flight and recording their outcome
+ */
+@Configuration
+@ConfigurationProperties(prefix = "processed-file.tracking")
+@Getter
+@Setter
+public class ProcessingStatusConfig {
+
+    /**
+     * Publish in-flight documents to Redis so every instance's documents are visible through the API
+     */
+    private boolean redisEnabled = true;
+
+    /**
+     * Time in seconds after which an in-flight entry left behind by a stopped instance expires from Redis
+     */
+    private long ttlSeconds = 3600;
+
+    /**
+     * Write error records asynchronously in their own transaction instead of in the document's transaction
+     */
+    private boolean errorWriteBehind = false;
+
+    /**
+     * Maximum number of error records waiting to be written; when full, records are written synchronously
+     */
+    private int writeBehindQueueCapacity = 1000;
+}
@@ -1,5 +1,6 @@
 package com.middleware.processor.config;
 
+import com.middleware.shared.service.util.QueueRouting;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
@@ -13,9 +14,23 @@ import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
     
+    /**
+     * Work queues consumed by the processor: every interface type in every priority lane,
+     * as shared with the listener through {@link QueueRouting#WORK_QUEUES}
+     */
+    public static final List<String> PRIORITY_QUEUES = QueueRouting.WORK_QUEUES;
+    
+    /**
+     * Exchange the work queues dead-letter to
+     */
+    public static final String DEAD_LETTER_EXCHANGE = "middleware.dlx";
+    
     @Value("${rabbitmq.prefetch.count:30}")
     private int prefetchCount;
     
@@ -28,39 +43,18 @@ public class RabbitMQConfig {
     @Value("${rabbitmq.thread.pool.size:20}")
     private int threadPoolSize;
     
-    @Bean
-    public RabbitAdmin rabbitAdmin(ConnectionFactory connectionFactory) {
-        return new RabbitAdmin(connectionFactory);
-    }
+    @Value("${batch.min-size:10}")
+    private int minBatchSize;
     
-    // ASN Queues
-    @Bean
-    public Queue asnHighPriorityQueue() {
-        return QueueBuilder.durable("inbound.processor.asn.high")
-            .withArgument("x-message-ttl", 86400000)
-            .withArgument("x-max-priority", 10)
-            .withArgument("x-dead-letter-exchange", "middleware.dlx")
-            .withArgument("x-dead-letter-routing-key", "inbound.processor.asn.high.dlq")
-            .withArgument("x-max-length", 10000)
-            .withArgument("x-max-length-bytes", 104857600)
-            .withArgument("x-overflow", "reject-publish")
-            .withArgument("x-queue-mode", "lazy")
-            .build();
-    }
+    @Value("${batch.max-size:100}")
+    private int maxBatchSize;
+    
+    @Value("${rabbitmq.batch.receive-timeout-ms:500}")
+    private long batchReceiveTimeoutMs;
     
-    // ORDER Queues
     @Bean
-    public Queue orderHighPriorityQueue() {
-        return QueueBuilder.durable("inbound.processor.order.high")
-            .withArgument("x-message-ttl", 86400000)
-            .withArgument("x-max-priority", 10)
-            .withArgument("x-dead-letter-exchange", "middleware.dlx")
-            .withArgument("x-dead-letter-routing-key", "inbound.processor.order.high.dlq")
-            .withArgument("x-max-length", 10000)
-            .withArgument("x-max-length-bytes", 104857600)
-            .withArgument("x-overflow", "reject-publish")
-            .withArgument("x-queue-mode", "lazy")
-            .build();
+    public RabbitAdmin rabbitAdmin(ConnectionFactory connectionFactory) {
+        return new RabbitAdmin(connectionFactory);
     }
     
     @Bean
@@ -68,20 +62,68 @@ public class RabbitMQConfig {
         return new DirectExchange("middleware.direct", true, false);
     }
     
-    // ASN Bindings
+    /**
+     * Work queues, one per interface type and priority lane, each bound to the direct exchange
+     * under its own name. Rejected and expired messages are dead-lettered to the work queue's
+     * own DLQ, {@code <workQueue>.dlq}, on the dead-letter exchange.
+     */
     @Bean
-    public Binding asnHighPriorityBinding() {
-        return BindingBuilder.bind(asnHighPriorityQueue())
-            .to(middlewareDirectExchange())
-            .with("inbound.processor.asn.high");
+    public Declarables workQueueDeclarables() {
+        List<Declarable> declarables = new ArrayList<>();
+        // Same exchange and attributes as the listener declares for the router queue's DLQ
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE, true, false);
+        declarables.add(deadLetterExchange);
+        for (String workQueue : PRIORITY_QUEUES) {
+            Queue queue = QueueBuilder.durable(workQueue)
+                .withArgument("x-message-ttl", 86400000)
+                .withArgument("x-max-priority", 10)
+                .withArgument("x-dead-letter-exchange", DEAD_LETTER_EXCHANGE)
+                .withArgument("x-dead-letter-routing-key", deadLetterQueue(workQueue))
+                .withArgument("x-max-length", 10000)
+                .withArgument("x-max-length-bytes", 104857600)
+                .withArgument("x-overflow", "reject-publish")
+                .withArgument("x-queue-mode", "lazy")
+                .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(middlewareDirectExchange()).with(workQueue));
+
+            Queue deadLetterQueue = QueueBuilder.durable(deadLetterQueue(workQueue)).build();
+            declarables.add(deadLetterQueue);
+            declarables.add(BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with(deadLetterQueue(workQueue)));
+        }
+        return new Declarables(declarables);
+    }
+    
+    /**
+     * The DLQ of a work queue, which is also its routing key on the dead-letter exchange
+     */
+    public static String deadLetterQueue(String workQueue) {
+        return workQueue + ".dlq";
     }
     
-    // ORDER Bindings
+    /**
+     * Delayed retry topology: for every work queue, one queue per retry whose TTL is that retry's
+     * delay. Expired messages are dead-lettered back to the work queue through the direct exchange,
+     * so a failed message waits on the broker instead of holding a consumer thread.
+     */
     @Bean
-    public Binding orderHighPriorityBinding() {
-        return BindingBuilder.bind(orderHighPriorityQueue())
-            .to(middlewareDirectExchange())
-            .with("inbound.processor.order.high");
+    public Declarables retryDeclarables(MessageRetryConfig retryConfig) {
+        List<Declarable> declarables = new ArrayList<>();
+        DirectExchange retryExchange = new DirectExchange(MessageRetryConfig.RETRY_EXCHANGE, true, false);
+        declarables.add(retryExchange);
+        for (String workQueue : PRIORITY_QUEUES) {
+            for (int retry = 1; retry <= retryConfig.getMaxRetries(); retry++) {
+                String retryQueueName = MessageRetryConfig.retryQueueName(workQueue, retry);
+                Queue retryQueue = QueueBuilder.durable(retryQueueName)
+                    .withArgument("x-message-ttl", retryConfig.delayForRetry(retry))
+                    .withArgument("x-dead-letter-exchange", "middleware.direct")
+                    .withArgument("x-dead-letter-routing-key", workQueue)
+                    .build();
+                declarables.add(retryQueue);
+                declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(retryQueueName));
+            }
+        }
+        return new Declarables(declarables);
     }
     
     @Bean
@@ -116,4 +158,29 @@ public class RabbitMQConfig {
         factory.setTaskExecutor(taskExecutor());
         return factory;
     }
-} 
+    
+    /**
+     * Container factory for batch listeners: each consumer delivers up to a batch of messages
+     * to one listener call. The batch size starts at the minimum and is raised or lowered on the
+     * containers by DynamicBatchSizingService; the prefetch covers the largest batch.
+     */
+    @Bean
+    public RabbitListenerContainerFactory<?> batchRabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setConcurrentConsumers(concurrentConsumers);
+        factory.setMaxConcurrentConsumers(maxConcurrentConsumers);
+        factory.setPrefetchCount(Math.max(prefetchCount, maxBatchSize));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(minBatchSize);
+        factory.setBatchReceiveTimeout(batchReceiveTimeoutMs);
+        factory.setDefaultRequeueRejected(false);
+        factory.setMissingQueuesFatal(false);
+        factory.setFailedDeclarationRetryInterval(5000L);
+        factory.setTaskExecutor(taskExecutor());
+        return factory;
+    }
+}
@@ -1,5 +1,7 @@
 package com.middleware.processor.config;
 
+import com.middleware.processor.cache.CachedValidationResult;
+import com.middleware.processor.cache.InFlightDocument;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -36,4 +38,44 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-} 
\ No newline at end of file
+
+    @Bean
+    public RedisTemplate<String, CachedValidationResult> validationResultRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, CachedValidationResult> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        
+        // Use StringRedisSerializer for keys
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        
+        // Configure Jackson serializer for cached validation results
+        Jackson2JsonRedisSerializer<CachedValidationResult> serializer =
+            new Jackson2JsonRedisSerializer<>(new ObjectMapper(), CachedValidationResult.class);
+        
+        template.setValueSerializer(serializer);
+        template.setHashValueSerializer(serializer);
+        
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @Bean
+    public RedisTemplate<String, InFlightDocument> inFlightDocumentRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, InFlightDocument> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        
+        // Use StringRedisSerializer for keys
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        
+        // Configure Jackson serializer for in-flight documents
+        Jackson2JsonRedisSerializer<InFlightDocument> serializer =
+            new Jackson2JsonRedisSerializer<>(new ObjectMapper(), InFlightDocument.class);
+        
+        template.setValueSerializer(serializer);
+        template.setHashValueSerializer(serializer);
+        
+        template.afterPropertiesSet();
+        return template;
+    }
+}
@@ -0,0 +1,31 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the compiled XSD schema registry
+ */
+@Configuration
+@ConfigurationProperties(prefix = "xml.schema-cache")
+@Getter
+@Setter
+public class SchemaCacheConfig {
+
+    /**
+     * Reuse compiled schemas instead of compiling the XSD for every document
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of compiled schemas kept in memory
+     */
+    private long maxSize = 256;
+
+    /**
+     * Compile the schemas of all active interfaces once the application has started
+     */
+    private boolean warmUpOnStartup = true;
+}
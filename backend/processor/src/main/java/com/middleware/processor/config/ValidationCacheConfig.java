@@ -0,0 +1,42 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the two-tier schema validation result cache
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cache.validation")
+@Getter
+@Setter
+public class ValidationCacheConfig {
+
+    /**
+     * Skip schema validation of payloads already validated against the same schema version
+     */
+    private boolean enabled = true;
+
+    /**
+     * Time to live of results in Redis, in seconds
+     */
+    private long ttl = 3600;
+
+    /**
+     * Maximum number of results kept in the local cache
+     */
+    private long maxSize = 10000;
+
+    /**
+     * Time to live of results in the local cache, in seconds; bounds how long an explicit
+     * invalidation on another instance can go unnoticed
+     */
+    private long localTtl = 300;
+
+    /**
+     * Number of keys requested per SCAN call when invalidating
+     */
+    private int scanCount = 500;
+}
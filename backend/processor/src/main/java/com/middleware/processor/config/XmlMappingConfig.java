@@ -0,0 +1,33 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the mapping engines
+ */
+@Configuration
+@ConfigurationProperties(prefix = "xml.mapping")
+@Getter
+@Setter
+public class XmlMappingConfig {
+
+    /**
+     * Resolve mapping rules with a single StAX pass instead of per-rule XPath evaluation.
+     * Rules using XPath features outside the streaming subset still go through the DOM.
+     */
+    private boolean streamingEnabled = true;
+
+    /**
+     * Maximum number of compiled mapping plans kept in memory
+     */
+    private long planCacheMaxSize = 1024;
+
+    /**
+     * Seconds a compiled mapping plan is kept. Rule changes made through this instance invalidate
+     * plans immediately; the expiry bounds how long other instances keep using an outdated plan.
+     */
+    private long planCacheTtlSeconds = 600;
+}
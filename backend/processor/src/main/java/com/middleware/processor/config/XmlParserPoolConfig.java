@@ -0,0 +1,31 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for the pooled XML parser
+ */
+@Configuration
+@ConfigurationProperties(prefix = "xml.parser.pool")
+@Getter
+@Setter
+public class XmlParserPoolConfig {
+
+    /**
+     * Reuse DocumentBuilder instances instead of building a new factory per parse
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of idle DocumentBuilder instances kept in the pool
+     */
+    private int maxIdle = 32;
+
+    /**
+     * Route SchemaVersionManager and XsdServiceImpl parsing through the pool (schema builders accept a DOCTYPE)
+     */
+    private boolean sharedWithSchemaServices = true;
+}
@@ -0,0 +1,32 @@
+package com.middleware.processor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for bounded-memory streaming processing of large documents
+ */
+@Configuration
+@ConfigurationProperties(prefix = "xml.streaming")
+@Getter
+@Setter
+public class XmlStreamingConfig {
+
+    /**
+     * Allow documents above the size threshold to be processed without building a DOM
+     */
+    private boolean enabled = true;
+
+    /**
+     * Payload size in bytes from which streaming mode is used, for interfaces without their own threshold
+     */
+    private long defaultThresholdBytes = 50L * 1024 * 1024;
+
+    /**
+     * Number of line entities written and detached from the persistence context at a time,
+     * for streamed documents as well as for the lines of documents processed through the DOM
+     */
+    private int chunkSize = 500;
+}
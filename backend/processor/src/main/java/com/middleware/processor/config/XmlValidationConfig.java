@@ -25,6 +25,19 @@ public class XmlValidationConfig {
     private Map<String, Boolean> additionalFeatures;
     private String schemaBasePath = "src/main/resources/xsd";
     private String defaultSchemaPath = "order_default_namespace.xsd";
+    private ValidationMode mode = ValidationMode.DOM;
+
+    /**
+     * How documents are validated against their interface schema.
+     */
+    public enum ValidationMode {
+        /** Parse into a DOM, then validate the DOM */
+        DOM,
+        /** Validate the raw stream, failing at the first error, then parse into a DOM */
+        STREAM,
+        /** Validate the raw stream and build the DOM in the same SAX pass */
+        FUSED
+    }
 
     @Bean
     @Primary
@@ -146,4 +159,12 @@ public class XmlValidationConfig {
     public void setDefaultSchemaPath(String defaultSchemaPath) {
         this.defaultSchemaPath = defaultSchemaPath;
     }
+
+    public ValidationMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ValidationMode mode) {
+        this.mode = mode;
+    }
 } 
@@ -1,5 +1,7 @@
 package com.middleware.processor.controller;
 
+import com.middleware.processor.cache.InFlightDocument;
+import com.middleware.processor.cache.ProcessingStatusTracker;
 import com.middleware.shared.model.ProcessedFile;
 import com.middleware.processor.service.interfaces.ProcessedFileService;
 import org.springframework.data.domain.Page;
@@ -10,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -17,9 +20,12 @@ import java.util.Optional;
 public class ProcessedFileController {
 
     private final ProcessedFileService processedFileService;
+    private final ProcessingStatusTracker processingStatusTracker;
 
-    public ProcessedFileController(ProcessedFileService processedFileService) {
+    public ProcessedFileController(ProcessedFileService processedFileService,
+                                   ProcessingStatusTracker processingStatusTracker) {
         this.processedFileService = processedFileService;
+        this.processingStatusTracker = processingStatusTracker;
     }
 
     @GetMapping
@@ -40,6 +46,11 @@ public class ProcessedFileController {
         return ResponseEntity.ok(processedFiles);
     }
 
+    @GetMapping("/in-flight")
+    public ResponseEntity<List<InFlightDocument>> getInFlightFiles() {
+        return ResponseEntity.ok(processingStatusTracker.getInFlightDocuments());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProcessedFile> getProcessedFile(@PathVariable Long id) {
         Optional<ProcessedFile> fileOpt = processedFileService.getProcessedFileById(id);
@@ -0,0 +1,106 @@
+package com.middleware.processor.listener;
+
+import com.middleware.processor.config.MessageRetryConfig;
+import com.middleware.processor.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends failed messages to the delayed retry queue of their next attempt.
+ * The attempt number travels in the {@link MessageRetryConfig#ATTEMPT_HEADER} header; once a
+ * message has used all its retries the caller dead-letters it. The consumer acknowledges the
+ * original delivery right after publishing, so no thread waits out the delay.
+ */
+@Slf4j
+@Component
+public class DelayedRetryPublisher {
+
+    private final MessageRetryConfig config;
+    private final RabbitTemplate rabbitTemplate;
+    private final RabbitAdmin rabbitAdmin;
+    private final MeterRegistry registry;
+    private final Counter exhaustedCounter;
+
+    public DelayedRetryPublisher(MessageRetryConfig config,
+                                 RabbitTemplate rabbitTemplate,
+                                 RabbitAdmin rabbitAdmin,
+                                 MeterRegistry registry) {
+        this.config = config;
+        this.rabbitTemplate = rabbitTemplate;
+        this.rabbitAdmin = rabbitAdmin;
+        this.registry = registry;
+        this.exhaustedCounter = Counter.builder("xml.retry.exhausted")
+            .description("Number of messages dead-lettered after using all their retries")
+            .register(registry);
+
+        for (String workQueue : RabbitMQConfig.PRIORITY_QUEUES) {
+            for (int retry = 1; retry <= config.getMaxRetries(); retry++) {
+                String retryQueue = MessageRetryConfig.retryQueueName(workQueue, retry);
+                Gauge.builder("xml.retry.in-flight", this, publisher -> publisher.queueDepth(retryQueue))
+                    .description("Number of messages waiting in a retry queue")
+                    .tag("queue", workQueue)
+                    .tag("attempt", String.valueOf(retry))
+                    .register(registry);
+            }
+        }
+    }
+
+    /**
+     * Schedule the next attempt of a failed message.
+     *
+     * @param message The delivery that failed
+     * @param workQueue The queue the message was consumed from
+     * @return True if the message was published to a retry queue and the delivery can be acknowledged,
+     *         false if it has no retries left or could not be published and must be dead-lettered
+     */
+    public boolean scheduleRetry(Message message, String workQueue) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        int retry = attemptOf(message) + 1;
+        if (retry > config.getMaxRetries()) {
+            exhaustedCounter.increment();
+            return false;
+        }
+        String retryQueue = MessageRetryConfig.retryQueueName(workQueue, retry);
+        Message retryMessage = MessageBuilder.fromMessage(message)
+            .setHeader(MessageRetryConfig.ATTEMPT_HEADER, retry)
+            .build();
+        try {
+            rabbitTemplate.send(MessageRetryConfig.RETRY_EXCHANGE, retryQueue, retryMessage);
+        } catch (RuntimeException e) {
+            log.error("Could not schedule retry {} of message from {}: {}", retry, workQueue, e.getMessage());
+            return false;
+        }
+        Counter.builder("xml.retry.scheduled")
+            .description("Number of failed messages sent to a retry queue")
+            .tag("queue", workQueue)
+            .tag("attempt", String.valueOf(retry))
+            .register(registry)
+            .increment();
+        log.debug("Scheduled retry {} of message from {} in {} ms", retry, workQueue, config.delayForRetry(retry));
+        return true;
+    }
+
+    private static int attemptOf(Message message) {
+        Object attempt = message.getMessageProperties().getHeader(MessageRetryConfig.ATTEMPT_HEADER);
+        return attempt instanceof Number number ? number.intValue() : 0;
+    }
+
+    private double queueDepth(String queueName) {
+        try {
+            QueueInformation info = rabbitAdmin.getQueueInfo(queueName);
+            return info != null ? info.getMessageCount() : 0;
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.middleware.shared.repository.InterfaceRepository;
 import com.middleware.processor.exception.ValidationException;
 import com.middleware.shared.model.ProcessedFile;
 import com.middleware.shared.model.Interface;
+import com.middleware.shared.service.ClaimCheckStore;
+import com.middleware.shared.service.util.QueueRouting;
 import com.middleware.processor.model.MessageContent;
 import com.middleware.processor.metrics.ProcessingMetrics;
 import lombok.RequiredArgsConstructor;
@@ -51,18 +53,20 @@ public class InboundMessageListener {
         try {
             // 1. Extract and validate message content
             MessageContent content = extractMessageContent(message);
-            validateContent(content);
+            validateContent(content, message.getMessageProperties().getHeader(ClaimCheckStore.REFERENCE_HEADER) != null);
             
             // 2. Determine priority based on client/interface
             String priority = determinePriority(content);
             
-            // 3. Create new message with priority
+            // 3. Create new message with priority, keeping the headers and encoding (claim check, compression)
             MessageProperties properties = new MessageProperties();
+            properties.getHeaders().putAll(message.getMessageProperties().getHeaders());
+            properties.setContentEncoding(message.getMessageProperties().getContentEncoding());
             properties.setPriority(getPriorityValue(priority));
             Message prioritizedMessage = new Message(message.getBody(), properties);
             
-            // 4. Route to appropriate priority queue
-            rabbitTemplate.send("middleware.priority", priority, prioritizedMessage);
+            // 4. Route to the work queue of the interface type and priority
+            rabbitTemplate.send(QueueRouting.DIRECT_EXCHANGE, workQueue(content.getInterfaceEntity(), priority), prioritizedMessage);
             
             // 5. Acknowledge original message
             channel.basicAck(deliveryTag, false);
@@ -88,6 +92,27 @@ public class InboundMessageListener {
         }
     }
     
+    /**
+     * The work queue of a document; priorities without a declared queue go to the high priority one.
+     * The listener normally publishes to these queues itself, so only documents it could not route
+     * pass through here. A document whose interface type has no work queue would be unroutable on
+     * the direct exchange and silently dropped, so it is rejected, and dead-lettered, instead.
+     */
+    private String workQueue(Interface interfaceEntity, String priority) {
+        String type = interfaceEntity.getType();
+        if (type != null) {
+            String queue = QueueRouting.workQueue(type, priority);
+            if (QueueRouting.WORK_QUEUES.contains(queue)) {
+                return queue;
+            }
+            String highPriorityQueue = QueueRouting.workQueue(type, QueueRouting.HIGH);
+            if (QueueRouting.WORK_QUEUES.contains(highPriorityQueue)) {
+                return highPriorityQueue;
+            }
+        }
+        throw new ValidationException("No work queue for interface type " + type + " of interface " + interfaceEntity.getName());
+    }
+    
     private int getPriorityValue(String priority) {
         switch (priority) {
             case "high":
@@ -136,8 +161,8 @@ public class InboundMessageListener {
         );
     }
     
-    private void validateContent(MessageContent content) {
-        if (content.getFileContent() == null || content.getFileContent().length == 0) {
+    private void validateContent(MessageContent content, boolean claimChecked) {
+        if (!claimChecked && (content.getFileContent() == null || content.getFileContent().length == 0)) {
             throw new ValidationException("Missing file content");
         }
         if (content.getInterfaceId() == null) {
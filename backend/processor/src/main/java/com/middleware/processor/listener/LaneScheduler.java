@@ -0,0 +1,188 @@
+package com.middleware.processor.listener;
+
+import com.middleware.processor.config.LaneSchedulingConfig;
+import com.middleware.processor.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares processing capacity between the work queues with deficit round robin.
+ * Each work queue is a lane whose listener threads wait here before processing a delivery. At most
+ * {@link LaneSchedulingConfig#getMaxInFlight()} deliveries run at once; when a slot frees, the
+ * lanes are visited in turn and each visit adds the lane's weight to its deficit, which pays for
+ * the messages it admits. A lane with nothing waiting loses its deficit. Over time each busy lane
+ * gets processing in proportion to its weight, so low priority lanes keep moving while high
+ * priority ones are busy, and a lane alone gets all the capacity.
+ */
+@Slf4j
+@Component
+public class LaneScheduler {
+
+    private final LaneSchedulingConfig config;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final List<Lane> rotation;
+    private int current;
+    private boolean quantumAdded;
+    private int inFlight;
+
+    public LaneScheduler(LaneSchedulingConfig config, MeterRegistry registry) {
+        this.config = config;
+        for (String workQueue : RabbitMQConfig.PRIORITY_QUEUES) {
+            lanes.put(workQueue, new Lane(workQueue, config.weightOf(workQueue), registry));
+        }
+        this.rotation = new ArrayList<>(lanes.values());
+        Gauge.builder("xml.lane.in-flight", this, LaneScheduler::inFlight)
+            .description("Number of deliveries admitted to processing")
+            .register(registry);
+    }
+
+    /**
+     * Run a delivery's processing once its lane is admitted.
+     *
+     * @param workQueue The queue the delivery was consumed from
+     * @param messages The number of messages in the delivery, charged to the lane's deficit
+     * @param work The processing
+     * @return The result of the processing
+     * @throws Exception Any exception of the processing, or InterruptedException while waiting
+     */
+    public <T> T run(String workQueue, int messages, Callable<T> work) throws Exception {
+        Lane lane = lanes.get(workQueue);
+        if (!config.isEnabled() || lane == null) {
+            return work.call();
+        }
+        Ticket ticket = new Ticket(Math.max(1, messages), System.nanoTime());
+        acquire(lane, ticket);
+        try {
+            return work.call();
+        } finally {
+            release();
+        }
+    }
+
+    private synchronized void acquire(Lane lane, Ticket ticket) throws InterruptedException {
+        lane.waiting.add(ticket);
+        dispatch();
+        try {
+            while (!ticket.admitted) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (ticket.admitted) {
+                release();
+            } else {
+                lane.waiting.remove(ticket);
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void release() {
+        inFlight--;
+        dispatch();
+    }
+
+    /**
+     * Admit waiting deliveries in deficit round robin order while slots are free.
+     */
+    private void dispatch() {
+        boolean admitted = false;
+        while (inFlight < config.getMaxInFlight() && hasWaiting()) {
+            Lane lane = rotation.get(current);
+            if (lane.waiting.isEmpty()) {
+                lane.deficit = 0;
+                next();
+                continue;
+            }
+            if (!quantumAdded) {
+                lane.deficit += lane.weight;
+                quantumAdded = true;
+            }
+            Ticket head = lane.waiting.peek();
+            if (head.cost > lane.deficit) {
+                next();
+                continue;
+            }
+            lane.waiting.poll();
+            lane.deficit -= head.cost;
+            head.admitted = true;
+            inFlight++;
+            admitted = true;
+            lane.waitTimer.record(System.nanoTime() - head.enqueuedAt, TimeUnit.NANOSECONDS);
+            lane.messageCounter.increment(head.cost);
+        }
+        if (admitted) {
+            notifyAll();
+        }
+    }
+
+    private void next() {
+        current = (current + 1) % rotation.size();
+        quantumAdded = false;
+    }
+
+    private boolean hasWaiting() {
+        for (Lane lane : rotation) {
+            if (!lane.waiting.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized int waiting(Lane lane) {
+        return lane.waiting.size();
+    }
+
+    private final class Lane {
+        private final int weight;
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        private long deficit;
+        private final Timer waitTimer;
+        private final Counter messageCounter;
+
+        Lane(String workQueue, int weight, MeterRegistry registry) {
+            this.weight = weight;
+            this.waitTimer = Timer.builder("xml.lane.wait")
+                .description("Time deliveries wait for their lane to be admitted to processing")
+                .tag("lane", workQueue)
+                .register(registry);
+            this.messageCounter = Counter.builder("xml.lane.messages")
+                .description("Number of messages admitted to processing")
+                .tag("lane", workQueue)
+                .register(registry);
+            Gauge.builder("xml.lane.waiting", this, lane -> waiting(lane))
+                .description("Number of deliveries waiting for their lane to be admitted")
+                .tag("lane", workQueue)
+                .register(registry);
+            log.debug("Lane {} has weight {}", workQueue, weight);
+        }
+    }
+
+    private static final class Ticket {
+        private final int cost;
+        private final long enqueuedAt;
+        private boolean admitted;
+
+        Ticket(int cost, long enqueuedAt) {
+            this.cost = cost;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -4,46 +4,287 @@ import com.middleware.processor.service.BatchProcessorService;
 import com.middleware.processor.model.MessageContent;
 import com.middleware.processor.exception.ValidationException;
 import com.middleware.processor.metrics.ProcessingMetrics;
+import com.middleware.shared.service.ClaimCheckStore;
+import com.middleware.shared.service.PayloadCompressor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import com.rabbitmq.client.Channel;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PriorityMessageListener {
     
+    private static final String ASN_HIGH_BATCH_LISTENER = "asnHighPriorityBatch";
+    private static final String ASN_NORMAL_BATCH_LISTENER = "asnNormalPriorityBatch";
+    private static final String ASN_LOW_BATCH_LISTENER = "asnLowPriorityBatch";
+    private static final String ORDER_HIGH_BATCH_LISTENER = "orderHighPriorityBatch";
+    private static final String ORDER_NORMAL_BATCH_LISTENER = "orderNormalPriorityBatch";
+    private static final String ORDER_LOW_BATCH_LISTENER = "orderLowPriorityBatch";
+    
     private final BatchProcessorService batchProcessorService;
     private final ProcessingMetrics processingMetrics;
     private final RabbitTemplate rabbitTemplate;
+    private final DelayedRetryPublisher retryPublisher;
+    private final ClaimCheckStore claimCheckStore;
+    private final PayloadCompressor payloadCompressor;
+    private final LaneScheduler laneScheduler;
+    
+    @Value("${batch.timeout-seconds:300}")
+    private int batchTimeoutSeconds;
     
     @Transactional
     @RabbitListener(
         queues = "inbound.processor.asn.high",
-        containerFactory = "rabbitListenerContainerFactory"
+        containerFactory = "rabbitListenerContainerFactory",
+        autoStartup = "#{!${rabbitmq.batch.enabled:false}}"
     )
     public void processAsnHighPriorityMessage(Message message, Channel channel) {
         processMessage(message, channel, "asn", "high");
     }
     
+    @Transactional
+    @RabbitListener(
+        queues = "inbound.processor.asn.normal",
+        containerFactory = "rabbitListenerContainerFactory",
+        autoStartup = "#{!${rabbitmq.batch.enabled:false}}"
+    )
+    public void processAsnNormalPriorityMessage(Message message, Channel channel) {
+        processMessage(message, channel, "asn", "normal");
+    }
+    
+    @Transactional
+    @RabbitListener(
+        queues = "inbound.processor.asn.low",
+        containerFactory = "rabbitListenerContainerFactory",
+        autoStartup = "#{!${rabbitmq.batch.enabled:false}}"
+    )
+    public void processAsnLowPriorityMessage(Message message, Channel channel) {
+        processMessage(message, channel, "asn", "low");
+    }
+    
     @Transactional
     @RabbitListener(
         queues = "inbound.processor.order.high",
-        containerFactory = "rabbitListenerContainerFactory"
+        containerFactory = "rabbitListenerContainerFactory",
+        autoStartup = "#{!${rabbitmq.batch.enabled:false}}"
     )
     public void processOrderHighPriorityMessage(Message message, Channel channel) {
         processMessage(message, channel, "order", "high");
     }
     
+    @Transactional
+    @RabbitListener(
+        queues = "inbound.processor.order.normal",
+        containerFactory = "rabbitListenerContainerFactory",
+        autoStartup = "#{!${rabbitmq.batch.enabled:false}}"
+    )
+    public void processOrderNormalPriorityMessage(Message message, Channel channel) {
+        processMessage(message, channel, "order", "normal");
+    }
+    
+    @Transactional
+    @RabbitListener(
+        queues = "inbound.processor.order.low",
+        containerFactory = "rabbitListenerContainerFactory",
+        autoStartup = "#{!${rabbitmq.batch.enabled:false}}"
+    )
+    public void processOrderLowPriorityMessage(Message message, Channel channel) {
+        processMessage(message, channel, "order", "low");
+    }
+    
+    @RabbitListener(
+        id = ASN_HIGH_BATCH_LISTENER,
+        queues = "inbound.processor.asn.high",
+        containerFactory = "batchRabbitListenerContainerFactory",
+        autoStartup = "${rabbitmq.batch.enabled:false}"
+    )
+    public void processAsnHighPriorityBatch(List<Message> messages, Channel channel) {
+        processMessages(messages, channel, "asn", "high");
+    }
+    
+    @RabbitListener(
+        id = ASN_NORMAL_BATCH_LISTENER,
+        queues = "inbound.processor.asn.normal",
+        containerFactory = "batchRabbitListenerContainerFactory",
+        autoStartup = "${rabbitmq.batch.enabled:false}"
+    )
+    public void processAsnNormalPriorityBatch(List<Message> messages, Channel channel) {
+        processMessages(messages, channel, "asn", "normal");
+    }
+    
+    @RabbitListener(
+        id = ASN_LOW_BATCH_LISTENER,
+        queues = "inbound.processor.asn.low",
+        containerFactory = "batchRabbitListenerContainerFactory",
+        autoStartup = "${rabbitmq.batch.enabled:false}"
+    )
+    public void processAsnLowPriorityBatch(List<Message> messages, Channel channel) {
+        processMessages(messages, channel, "asn", "low");
+    }
+    
+    @RabbitListener(
+        id = ORDER_HIGH_BATCH_LISTENER,
+        queues = "inbound.processor.order.high",
+        containerFactory = "batchRabbitListenerContainerFactory",
+        autoStartup = "${rabbitmq.batch.enabled:false}"
+    )
+    public void processOrderHighPriorityBatch(List<Message> messages, Channel channel) {
+        processMessages(messages, channel, "order", "high");
+    }
+    
+    @RabbitListener(
+        id = ORDER_NORMAL_BATCH_LISTENER,
+        queues = "inbound.processor.order.normal",
+        containerFactory = "batchRabbitListenerContainerFactory",
+        autoStartup = "${rabbitmq.batch.enabled:false}"
+    )
+    public void processOrderNormalPriorityBatch(List<Message> messages, Channel channel) {
+        processMessages(messages, channel, "order", "normal");
+    }
+    
+    @RabbitListener(
+        id = ORDER_LOW_BATCH_LISTENER,
+        queues = "inbound.processor.order.low",
+        containerFactory = "batchRabbitListenerContainerFactory",
+        autoStartup = "${rabbitmq.batch.enabled:false}"
+    )
+    public void processOrderLowPriorityBatch(List<Message> messages, Channel channel) {
+        processMessages(messages, channel, "order", "low");
+    }
+    
+    /**
+     * Process the messages of one consumer batch together.
+     * Messages that fail processing are published to their next retry queue. Invalid messages,
+     * messages without retries left and messages still being processed when the batch timed out
+     * are nacked one by one without requeue, so the queue dead-letters them to the DLQ; the latter
+     * are not retried, as their processing may yet complete. The remaining messages, processed or
+     * sent for retry, are then acknowledged with a single multiple ack up to the highest of their
+     * delivery tags.
+     */
+    private void processMessages(List<Message> messages, Channel channel, String interfaceType, String priority) {
+        List<MessageContent> contents = new ArrayList<>(messages.size());
+        List<Message> accepted = new ArrayList<>(messages.size());
+        List<Long> deliveryTags = new ArrayList<>(messages.size());
+        List<Long> failedTags = new ArrayList<>();
+        
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            try {
+                MessageContent content = extractMessageContent(message);
+                validateContent(content);
+                contents.add(content);
+                accepted.add(message);
+                deliveryTags.add(deliveryTag);
+            } catch (ValidationException e) {
+                log.error("Validation error processing {} {} priority message: {}", interfaceType, priority, e.getMessage());
+                processingMetrics.getCounters().processingErrors("validation").increment();
+                failedTags.add(deliveryTag);
+            }
+        }
+        
+        long highestAckTag = -1;
+        int retried = 0;
+        int timedOut = 0;
+        if (!contents.isEmpty()) {
+            List<CompletableFuture<Void>> results = processBatchInLane(contents, accepted.get(0), interfaceType, priority);
+            for (int i = 0; i < contents.size(); i++) {
+                CompletableFuture<Void> result = results != null ? results.get(i) : null;
+                if (result != null && result.isDone() && !result.isCompletedExceptionally()) {
+                    highestAckTag = Math.max(highestAckTag, deliveryTags.get(i));
+                    releaseClaimCheck(accepted.get(i));
+                    processingMetrics.getCounters().processedMessages(interfaceType).increment();
+                    processingMetrics.getCounters().processingSuccess(priority).increment();
+                } else if (result != null && !result.isDone()) {
+                    failedTags.add(deliveryTags.get(i));
+                    timedOut++;
+                    processingMetrics.getCounters().processingErrors("timeout").increment();
+                } else if (retryPublisher.scheduleRetry(accepted.get(i), workQueue(accepted.get(i), interfaceType, priority))) {
+                    highestAckTag = Math.max(highestAckTag, deliveryTags.get(i));
+                    retried++;
+                    processingMetrics.getCounters().processingErrors("processing").increment();
+                } else {
+                    failedTags.add(deliveryTags.get(i));
+                    processingMetrics.getCounters().processingErrors("processing").increment();
+                }
+            }
+        }
+        
+        try {
+            // Failed tags are settled first so the multiple ack below does not cover them
+            for (Long failedTag : failedTags) {
+                channel.basicNack(failedTag, false, false);
+            }
+            if (highestAckTag >= 0) {
+                channel.basicAck(highestAckTag, true);
+            }
+        } catch (IOException e) {
+            log.error("Error acknowledging batch of {} {} priority message(s)", interfaceType, priority, e);
+        }
+        log.debug("Processed batch of {} {} {} priority message(s), {} sent for retry, {} failed, {} of them timed out",
+            messages.size(), interfaceType, priority, retried, failedTags.size(), timedOut);
+
+    }
+    
+    /**
+     * Process the batch once its lane is admitted by the lane scheduler.
+     *
+     * @return One future per message, or null if the batch was not processed
+     */
+    private List<CompletableFuture<Void>> processBatchInLane(List<MessageContent> contents, Message first,
+                                                             String interfaceType, String priority) {
+        try {
+            return laneScheduler.run(workQueue(first, interfaceType, priority), contents.size(),
+                () -> processBatch(contents, interfaceType, priority));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error processing batch of {} {} priority message(s)", interfaceType, priority, e);
+        }
+        return null;
+    }
+    
+    /**
+     * Hand the batch to the batch processor and wait for every message's outcome.
+     *
+     * @return One future per message, or null if the batch could not be submitted
+     */
+    private List<CompletableFuture<Void>> processBatch(List<MessageContent> contents, String interfaceType, String priority) {
+        List<CompletableFuture<Void>> results;
+        try {
+            results = batchProcessorService.processBatch(contents);
+        } catch (Exception e) {
+            log.error("Error submitting batch of {} {} priority message(s)", interfaceType, priority, e);
+            return null;
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(batchTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // Failed messages are picked out individually by the caller
+        } catch (TimeoutException e) {
+            log.warn("Batch of {} {} priority message(s) did not complete within {}s; unfinished messages are dead-lettered",
+                contents.size(), interfaceType, priority, batchTimeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+    
     private void processMessage(Message message, Channel channel, String interfaceType, String priority) {
         long deliveryTag = message.getMessageProperties().getDeliveryTag();
         
@@ -52,13 +293,15 @@ public class PriorityMessageListener {
             MessageContent content = extractMessageContent(message);
             validateContent(content);
             
-            // 2. Process message using batch processor
+            // 2. Process message using batch processor once its lane is admitted
             List<MessageContent> singleMessageBatch = new ArrayList<>();
             singleMessageBatch.add(content);
-            batchProcessorService.processBatch(singleMessageBatch);
+            laneScheduler.run(workQueue(message, interfaceType, priority), 1,
+                () -> batchProcessorService.processBatch(singleMessageBatch).get(0).get(batchTimeoutSeconds, TimeUnit.SECONDS));
             
             // 3. Acknowledge message after successful processing
             channel.basicAck(deliveryTag, false);
+            releaseClaimCheck(message);
             
             // 4. Record metrics
             processingMetrics.getCounters().processedMessages(interfaceType).increment();
@@ -66,8 +309,27 @@ public class PriorityMessageListener {
             
         } catch (ValidationException e) {
             handleValidationError(e, deliveryTag, channel, interfaceType, priority);
+        } catch (ExecutionException e) {
+            handleProcessingError(e.getCause() instanceof Exception cause ? cause : e, message, channel, interfaceType, priority);
+        } catch (TimeoutException e) {
+            handleTimeout(deliveryTag, channel, interfaceType, priority);
         } catch (Exception e) {
-            handleProcessingError(e, deliveryTag, channel, interfaceType, priority);
+            handleProcessingError(e, message, channel, interfaceType, priority);
+        }
+    }
+    
+    /**
+     * A message still being processed when its timeout expired is not retried, as its processing
+     * may yet complete; it is nacked without requeue so the queue dead-letters it to the DLQ.
+     */
+    private void handleTimeout(long deliveryTag, Channel channel, String interfaceType, String priority) {
+        log.error("{} {} priority message did not complete within {}s, dead-lettering it",
+            interfaceType, priority, batchTimeoutSeconds);
+        try {
+            channel.basicNack(deliveryTag, false, false);
+            processingMetrics.getCounters().processingErrors("timeout").increment();
+        } catch (Exception ex) {
+            log.error("Error handling processing timeout", ex);
         }
     }
     
@@ -92,9 +354,17 @@ public class PriorityMessageListener {
         }
     }
     
-    private void handleProcessingError(Exception e, long deliveryTag, Channel channel, String interfaceType, String priority) {
+    private void handleProcessingError(Exception e, Message message, Channel channel, String interfaceType, String priority) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
         log.error("Error processing {} {} priority message", interfaceType, priority, e);
         try {
+            // Retry later from the broker rather than holding this consumer
+            if (retryPublisher.scheduleRetry(message, workQueue(message, interfaceType, priority))) {
+                channel.basicAck(deliveryTag, false);
+                processingMetrics.getCounters().processingErrors("processing").increment();
+                return;
+            }
+            
             // Send to DLQ
             MessageProperties properties = new MessageProperties();
             properties.setHeader("x-death", Collections.singletonList(
@@ -113,22 +383,63 @@ public class PriorityMessageListener {
         }
     }
     
+    private static String workQueue(Message message, String interfaceType, String priority) {
+        String consumerQueue = message.getMessageProperties().getConsumerQueue();
+        return consumerQueue != null ? consumerQueue : String.format("inbound.processor.%s.%s", interfaceType, priority);
+    }
+    
     private MessageContent extractMessageContent(Message message) {
         String filename = message.getMessageProperties().getHeader("CamelFileName");
         Long interfaceId = message.getMessageProperties().getHeader("InterfaceId");
         Long clientId = message.getMessageProperties().getHeader("ClientId");
         
-        return new MessageContent(
+        MessageContent content = new MessageContent(
             message.getBody(),
             filename,
             interfaceId,
             clientId,
             null // Interface entity will be loaded in the batch processor
         );
+        
+        // Claim-checked payloads are read from the content store instead of the message body
+        String reference = message.getMessageProperties().getHeader(ClaimCheckStore.REFERENCE_HEADER);
+        if (reference != null) {
+            try {
+                content.setPayloadPath(claimCheckStore.open(reference, message.getMessageProperties().getHeader(ClaimCheckStore.HASH_HEADER)));
+                content.setFileContent(null);
+            } catch (IOException e) {
+                throw new ValidationException(e.getMessage());
+            }
+        }
+        
+        // Compressed bodies are decompressed as they are read
+        try {
+            String queue = message.getMessageProperties().getConsumerQueue();
+            content.setDecoder(payloadCompressor.decoderFor(message.getMessageProperties().getContentEncoding(),
+                queue != null ? queue : "unknown"));
+        } catch (IOException e) {
+            throw new ValidationException(e.getMessage());
+        }
+        Object decodedSize = message.getMessageProperties().getHeader(PayloadCompressor.ORIGINAL_SIZE_HEADER);
+        if (decodedSize instanceof Number size) {
+            content.setDecodedSize(size.longValue());
+        }
+        return content;
+    }
+    
+    /**
+     * Remove a processed message's payload from the content store. Payloads of failed messages
+     * are kept for their retries and for replay from the DLQ.
+     */
+    private void releaseClaimCheck(Message message) {
+        String reference = message.getMessageProperties().getHeader(ClaimCheckStore.REFERENCE_HEADER);
+        if (reference != null) {
+            claimCheckStore.delete(reference);
+        }
     }
     
     private void validateContent(MessageContent content) {
-        if (content.getFileContent() == null || content.getFileContent().length == 0) {
+        if (content.getPayloadPath() == null && (content.getFileContent() == null || content.getFileContent().length == 0)) {
             throw new ValidationException("Missing file content");
         }
         if (content.getInterfaceId() == null) {
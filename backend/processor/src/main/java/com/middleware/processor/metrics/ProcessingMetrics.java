@@ -1,15 +1,13 @@
 package com.middleware.processor.metrics;
 
+import com.middleware.processor.config.RabbitMQConfig;
 import io.micrometer.core.instrument.*;
-import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.rabbit.core.RabbitAdmin;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class ProcessingMetrics {
@@ -19,13 +17,12 @@ public class ProcessingMetrics {
     private final BatchMetrics batchMetrics;
     private final QueueMetrics queueMetrics;
     
-    public ProcessingMetrics(MeterRegistry registry, RabbitAdmin rabbitAdmin, 
-            @Qualifier("asnHighPriorityQueue") Queue inboundQueue) {
+    public ProcessingMetrics(MeterRegistry registry) {
         this.registry = registry;
         this.timers = new ProcessingTimers(registry);
         this.counters = new ProcessingCounters(registry);
         this.batchMetrics = new BatchMetrics(registry);
-        this.queueMetrics = new QueueMetrics(registry, rabbitAdmin, inboundQueue);
+        this.queueMetrics = new QueueMetrics(registry);
     }
     
     public MeterRegistry getRegistry() {
@@ -185,24 +182,33 @@ public class ProcessingMetrics {
         }
     }
     
-    @Component
+    /**
+     * Ready messages per work queue. The depths are read from the broker by
+     * DynamicBatchSizingService at every evaluation and recorded here, so the broker is queried
+     * once per interval for both. Only the instance held by ProcessingMetrics registers the gauges.
+     */
     public static class QueueMetrics {
-        private final RabbitAdmin rabbitAdmin;
-        private final MeterRegistry meterRegistry;
-        private final Queue inboundQueue;
-        
-        public QueueMetrics(MeterRegistry meterRegistry, RabbitAdmin rabbitAdmin, @Qualifier("asnHighPriorityQueue") Queue inboundQueue) {
-            this.rabbitAdmin = rabbitAdmin;
-            this.meterRegistry = meterRegistry;
-            this.inboundQueue = inboundQueue;
-        }
-        
-        @Scheduled(fixedRate = 5000)
-        public void monitorQueueDepth() {
-            int messageCount = rabbitAdmin.getQueueInfo(inboundQueue.getName()).getMessageCount();
-            meterRegistry.gauge("rabbitmq.queue.depth", 
-                Tags.of("queue", inboundQueue.getName()),
-                messageCount);
+        private final ConcurrentMap<String, AtomicInteger> queueDepths = new ConcurrentHashMap<>();
+        
+        public QueueMetrics(MeterRegistry meterRegistry) {
+            for (String queue : RabbitMQConfig.PRIORITY_QUEUES) {
+                AtomicInteger depth = new AtomicInteger();
+                queueDepths.put(queue, depth);
+                Gauge.builder("rabbitmq.queue.depth", depth, AtomicInteger::get)
+                    .description("Number of messages ready in a work queue")
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+            }
+        }
+        
+        /**
+         * Record the ready messages of a queue; queues without a gauge are ignored.
+         */
+        public void recordQueueDepth(String queue, int messageCount) {
+            AtomicInteger depth = queueDepths.get(queue);
+            if (depth != null) {
+                depth.set(messageCount);
+            }
         }
     }
 } 
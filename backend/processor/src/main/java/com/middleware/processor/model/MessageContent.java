@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 import com.middleware.shared.model.Interface;
+import com.middleware.shared.service.PayloadCompressor;
+
+import java.nio.file.Path;
 
 @Data
 @AllArgsConstructor
@@ -14,7 +17,57 @@ public class MessageContent {
     private Long clientId;
     private Interface interfaceEntity;
     
+    /**
+     * Location of a claim-checked payload in the content store; set instead of the file content
+     */
+    private Path payloadPath;
+    
+    /**
+     * Decoder for a compressed file content; null when the content is not compressed
+     */
+    private PayloadCompressor.Decoder decoder;
+    
+    /**
+     * Uncompressed size of a compressed file content, if the sender provided it
+     */
+    private Long decodedSize;
+    
+    public MessageContent(byte[] fileContent, String filename, Long interfaceId, Long clientId, Interface interfaceEntity) {
+        this(fileContent, filename, interfaceId, clientId, interfaceEntity, null, null, null);
+    }
+    
+    /**
+     * Size of the payload as processed: the stored payload, or the file content after decompression.
+     */
+    public long getPayloadSize() {
+        if (payloadPath != null) {
+            try {
+                return java.nio.file.Files.size(payloadPath);
+            } catch (java.io.IOException e) {
+                return 0;
+            }
+        }
+        if (decoder != null) {
+            if (decodedSize == null) {
+                // Count once by decompressing; the sender normally provides the size
+                try (java.io.InputStream in = decoder.decode(new java.io.ByteArrayInputStream(fileContent))) {
+                    decodedSize = in.transferTo(java.io.OutputStream.nullOutputStream());
+                } catch (java.io.IOException e) {
+                    return 0;
+                }
+            }
+            return decodedSize;
+        }
+        return fileContent != null ? fileContent.length : 0;
+    }
+    
     public MultipartFile getMultipartFile() {
+        if (payloadPath != null) {
+            return streamedFile(() -> java.nio.file.Files.newInputStream(payloadPath));
+        }
+        if (decoder != null) {
+            return streamedFile(() -> decoder.decode(new java.io.ByteArrayInputStream(fileContent)));
+        }
         return new MultipartFile() {
             @Override
             public String getName() { return filename; }
@@ -38,4 +91,45 @@ public class MessageContent {
             }
         };
     }
-} 
+    
+    @FunctionalInterface
+    private interface PayloadOpener {
+        java.io.InputStream open() throws java.io.IOException;
+    }
+    
+    /**
+     * A file opening a fresh stream over the payload on every access, so a claim-checked payload is
+     * read from the content store and a compressed one decompressed as it is read, rather than
+     * held in memory.
+     */
+    private MultipartFile streamedFile(PayloadOpener opener) {
+        return new MultipartFile() {
+            @Override
+            public String getName() { return filename; }
+            @Override
+            public String getOriginalFilename() { return filename; }
+            @Override
+            public String getContentType() { return "application/xml"; }
+            @Override
+            public boolean isEmpty() { return getSize() == 0; }
+            @Override
+            public long getSize() { return getPayloadSize(); }
+            @Override
+            public byte[] getBytes() throws java.io.IOException {
+                try (java.io.InputStream in = opener.open()) {
+                    return in.readAllBytes();
+                }
+            }
+            @Override
+            public java.io.InputStream getInputStream() throws java.io.IOException {
+                return opener.open();
+            }
+            @Override
+            public void transferTo(java.io.File dest) throws java.io.IOException {
+                try (java.io.InputStream in = opener.open()) {
+                    java.nio.file.Files.copy(in, dest.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        };
+    }
+}
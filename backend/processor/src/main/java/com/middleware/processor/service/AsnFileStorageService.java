@@ -11,11 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Service for handling file storage operations
@@ -34,13 +30,7 @@ public class AsnFileStorageService extends FileStorageService {
         processedFile.setStatus("NEW");
         processedFile.setAsnHeader(asnHeader);
         
-        if (config.isCompressionEnabled()) {
-            byte[] compressedContent = compressFile(file.getBytes());
-            processedFile.setContentBytes(compressedContent);
-            processedFile.setStorageType("DB");
-        } else {
-            super.storeFile(processedFile, file);
-        }
+        super.storeFile(processedFile, file);
         
         // Set the bidirectional relationship
         asnHeader.setProcessedFile(processedFile);
@@ -53,33 +43,17 @@ public class AsnFileStorageService extends FileStorageService {
             throw new ValidationException("No processed file found for ASN header: " + asnHeader.getId());
         }
 
-        byte[] content = super.retrieveFile(processedFile);
-        if ("DB".equals(processedFile.getStorageType()) && config.isCompressionEnabled()) {
-            return decompressFile(content);
-        }
-        return content;
+        return super.retrieveFile(processedFile);
     }
 
-    private byte[] compressFile(byte[] content) throws IOException {
-        try (ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-             GZIPOutputStream gzipStream = new GZIPOutputStream(byteStream)) {
-            gzipStream.write(content);
-            gzipStream.finish();
-            return byteStream.toByteArray();
-        }
+    @Override
+    protected boolean isCompressionEnabled() {
+        return config.isCompressionEnabled();
     }
 
-    private byte[] decompressFile(byte[] compressedContent) throws IOException {
-        try (ByteArrayInputStream byteStream = new ByteArrayInputStream(compressedContent);
-             GZIPInputStream gzipStream = new GZIPInputStream(byteStream);
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = gzipStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, len);
-            }
-            return outputStream.toByteArray();
-        }
+    @Override
+    protected int getCompressionLevel() {
+        return config.getCompressionLevel();
     }
 
     @Override
@@ -8,7 +8,7 @@ public interface BatchProcessorService {
     /**
      * Process a batch of messages asynchronously
      * @param batch List of messages to process
-     * @return List of CompletableFuture for tracking processing status
+     * @return One CompletableFuture per message, in batch order, completing exceptionally if that message failed
      */
     List<CompletableFuture<Void>> processBatch(List<MessageContent> batch);
 } 
@@ -0,0 +1,13 @@
+package com.middleware.processor.service;
+
+import com.middleware.shared.service.FileStorageService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores the original payload of processed documents as received, so they can be reprocessed
+ * later without re-serializing a DOM. Compression, the filesystem threshold and the directory are
+ * the {@code app.file.storage} settings of {@link FileStorageService}.
+ */
+@Service
+public class PayloadStorageService extends FileStorageService {
+}
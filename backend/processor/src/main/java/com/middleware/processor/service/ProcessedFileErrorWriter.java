@@ -0,0 +1,155 @@
+package com.middleware.processor.service;
+
+import com.middleware.processor.config.ProcessingStatusConfig;
+import com.middleware.shared.model.ProcessedFile;
+import com.middleware.shared.repository.ProcessedFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the outcome of documents that failed.
+ * By default the error record is saved in the document's transaction. With write-behind enabled
+ * it is queued and saved by a background thread in a transaction of its own, so a failing document
+ * does not wait for the insert and the record survives a rollback of the caller's transaction.
+ * When the queue is full the record is saved synchronously instead.
+ */
+@Service
+public class ProcessedFileErrorWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessedFileErrorWriter.class);
+
+    private final ProcessingStatusConfig config;
+    private final ProcessedFileRepository processedFileRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter writtenBehindCounter;
+    private final Counter failureCounter;
+
+    public ProcessedFileErrorWriter(ProcessingStatusConfig config,
+                                    ProcessedFileRepository processedFileRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry registry) {
+        this.config = config;
+        this.processedFileRepository = processedFileRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, config.getWriteBehindQueueCapacity())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ProcessedFileErrorWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        this.writtenBehindCounter = Counter.builder("xml.processed-file.write-behind")
+            .description("Number of error records written asynchronously")
+            .register(registry);
+        this.failureCounter = Counter.builder("xml.processed-file.write-behind.failures")
+            .description("Number of asynchronously written error records that could not be saved")
+            .register(registry);
+        Gauge.builder("xml.processed-file.write-behind.queue", executor, e -> e.getQueue().size())
+            .description("Number of error records waiting to be written")
+            .register(registry);
+    }
+
+    /**
+     * Save the error record of a failed document.
+     *
+     * @param errorFile The record, with status and error message set
+     * @return The saved record, or with write-behind the record as queued, marked
+     *         {@link ProcessedFile#isWrittenBehind() written behind} and without an id
+     */
+    public ProcessedFile write(ProcessedFile errorFile) {
+        if (config.isErrorWriteBehind() && queue(errorFile)) {
+            return errorFile;
+        }
+        return processedFileRepository.save(errorFile);
+    }
+
+    /**
+     * Save the error record of a failed document whose transaction is rolled back, so the record
+     * must not be part of it. With write-behind the record is queued as usual, as queued records
+     * are saved in their own transaction; otherwise it is saved in a new transaction right away.
+     *
+     * @param errorFile The record, with status and error message set
+     * @return The saved record, or with write-behind the record as queued, marked
+     *         {@link ProcessedFile#isWrittenBehind() written behind} and without an id
+     */
+    public ProcessedFile writeInOwnTransaction(ProcessedFile errorFile) {
+        if (config.isErrorWriteBehind() && queue(errorFile)) {
+            return errorFile;
+        }
+        return transactionTemplate.execute(status -> processedFileRepository.save(errorFile));
+    }
+
+    /**
+     * Queue a copy of the record for the background thread, so the caller's instance never changes
+     * under it, and mark the caller's instance as written behind.
+     *
+     * @return false if the queue is full and the record must be saved synchronously
+     */
+    private boolean queue(ProcessedFile errorFile) {
+        ProcessedFile copy = copyOf(errorFile);
+        try {
+            executor.execute(() -> saveInOwnTransaction(copy));
+        } catch (RejectedExecutionException e) {
+            log.debug("Error record queue is full, saving {} synchronously", errorFile.getFileName());
+            return false;
+        }
+        errorFile.setWrittenBehind(true);
+        return true;
+    }
+
+    private void saveInOwnTransaction(ProcessedFile errorFile) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> processedFileRepository.save(errorFile));
+            writtenBehindCounter.increment();
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.error("Could not save error record for {}: {}", errorFile.getFileName(), e.getMessage(), e);
+        }
+    }
+
+    private static ProcessedFile copyOf(ProcessedFile source) {
+        ProcessedFile copy = new ProcessedFile();
+        copy.setFileName(source.getFileName());
+        copy.setStatus(source.getStatus());
+        copy.setErrorMessage(source.getErrorMessage());
+        copy.setInterfaceEntity(source.getInterfaceEntity());
+        copy.setClient(source.getClient());
+        copy.setProcessedAt(source.getProcessedAt());
+        copy.setStorageType(source.getStorageType());
+        copy.setFilePath(source.getFilePath());
+        copy.setContentBytes(source.getContentBytes());
+        return copy;
+    }
+
+    /**
+     * Write the queued error records before shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("{} error record(s) were not written before shutdown", executor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
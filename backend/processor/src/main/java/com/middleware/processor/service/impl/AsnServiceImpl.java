@@ -34,6 +34,7 @@ import java.nio.file.StandardCopyOption;
 import java.time.format.DateTimeFormatter;
 import org.springframework.scheduling.annotation.Scheduled;
 import com.middleware.processor.metrics.ProcessingMetrics;
+import com.middleware.processor.service.util.CopyBulkLoader;
 
 /**
  * Implementation of AsnService with Circuit Breaker pattern.
@@ -48,6 +49,7 @@ public class AsnServiceImpl implements AsnService {
     private final AsnLineRepository asnLineRepository;
     private final CircuitBreakerService circuitBreakerService;
     private final ProcessingMetrics processingMetrics;
+    private final CopyBulkLoader copyBulkLoader;
 
     @Value("${asn.batch.min-size:10}")
     private int minBatchSize;
@@ -417,6 +419,34 @@ public class AsnServiceImpl implements AsnService {
         }
     }
 
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<AsnLine> createAsnLines(List<AsnLine> lines, boolean bulkLoad) {
+        if (!bulkLoad || lines == null || lines.isEmpty()) {
+            return createAsnLines(lines);
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        return circuitBreakerService.executeRepositoryOperation(
+            () -> {
+                validateAsnLinesBatch(lines);
+                validateLineConsistency(lines);
+
+                copyBulkLoader.copy(AsnLine.class, lines);
+
+                processingMetrics.getBatchMetrics().recordBatchProcessing(startTime);
+                processingMetrics.getBatchMetrics().recordDocumentProcessing();
+                return lines;
+            },
+            () -> {
+                // A failed COPY aborts the transaction, so there is nothing to fall back to
+                processingMetrics.getBatchMetrics().recordBatchFailure();
+                throw new ValidationException("Bulk load of " + lines.size() + " ASN lines failed");
+            }
+        );
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<AsnHeader> findByAsnNumber(String asnNumber) {
@@ -1,10 +1,14 @@
 package com.middleware.processor.service.impl;
 
+import com.middleware.processor.batch.DocumentCoalescer;
 import com.middleware.processor.service.BatchProcessorService;
 import com.middleware.processor.service.interfaces.XmlProcessorService;
 import com.middleware.processor.model.MessageContent;
 import com.middleware.processor.metrics.ProcessingMetrics;
 import com.middleware.processor.exception.ProcessingException;
+import com.middleware.processor.exception.ValidationException;
+import com.middleware.shared.model.Interface;
+import com.middleware.shared.repository.InterfaceRepository;
 import com.middleware.shared.service.util.CircuitBreakerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,14 +16,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -30,6 +31,8 @@ public class BatchProcessorServiceImpl implements BatchProcessorService {
     private final XmlProcessorService xmlProcessorService;
     private final ProcessingMetrics processingMetrics;
     private final CircuitBreakerService circuitBreakerService;
+    private final DocumentCoalescer documentCoalescer;
+    private final InterfaceRepository interfaceRepository;
 
     @Value("${batch.size:100}")
     private int batchSize;
@@ -37,48 +40,86 @@ public class BatchProcessorServiceImpl implements BatchProcessorService {
     @Value("${batch.timeout-seconds:300}")
     private int batchTimeoutSeconds;
 
-    @Value("${batch.max-retries:3}")
-    private int maxRetries;
-
     @Override
     public List<CompletableFuture<Void>> processBatch(List<MessageContent> batch) {
         log.info("Starting batch processing for {} messages", batch.size());
         long startTime = System.currentTimeMillis();
 
-        List<List<MessageContent>> batches = partition(batch, batchSize);
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // Small documents share transactions with other documents of their interface
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+        List<MessageContent> individual = new ArrayList<>();
+        List<CompletableFuture<Void>> individualFutures = new ArrayList<>();
+        for (MessageContent message : batch) {
+            if (documentCoalescer.accepts(message)) {
+                futures.add(processCoalesced(message));
+            } else {
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                individual.add(message);
+                individualFutures.add(future);
+                futures.add(future);
+            }
+        }
 
-        for (List<MessageContent> batchSegment : batches) {
-            CompletableFuture<Void> batchFuture = CompletableFuture
+        for (int from = 0; from < individual.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, individual.size());
+            List<MessageContent> batchSegment = individual.subList(from, to);
+            List<CompletableFuture<Void>> segmentFutures = individualFutures.subList(from, to);
+            CompletableFuture
                 .runAsync(() -> {
                     try {
-                        processBatchSegment(batchSegment);
+                        processBatchSegment(batchSegment, segmentFutures);
                         processingMetrics.getBatchMetrics().recordBatchProcessing(startTime);
                         processingMetrics.getBatchMetrics().recordDocumentProcessing();
                     } catch (Exception e) {
                         processingMetrics.getBatchMetrics().recordBatchFailure();
                         processingMetrics.getBatchMetrics().recordDocumentFailure();
                         log.error("Batch processing failed: {}", e.getMessage(), e);
-                        throw new ProcessingException("Batch processing failed", e);
+                        ProcessingException failure = new ProcessingException("Batch processing failed", e);
+                        segmentFutures.forEach(future -> future.completeExceptionally(failure));
+                        throw failure;
                     }
                 }, batchTaskExecutor);
-            futures.add(batchFuture);
         }
 
         return futures;
     }
 
-    protected void processBatchSegment(List<MessageContent> batchSegment) {
+    /**
+     * Process a message in a coalesced group. If the group's transaction was rolled back, the
+     * message is processed on its own like any other.
+     */
+    private CompletableFuture<Void> processCoalesced(MessageContent message) {
+        return documentCoalescer.submit(message).handle((result, error) -> {
+            if (error != null) {
+                processingMetrics.getCounters().processingErrors("xmlProcessing").increment();
+                log.error("Error processing message: {}", message.getFilename(), error);
+                throw new ProcessingException("Failed to process message: " + error.getMessage(), error);
+            }
+            return result;
+        }).thenCompose(result -> {
+            if (result.isEmpty()) {
+                return CompletableFuture.runAsync(() -> processSingleMessage(message), batchTaskExecutor);
+            }
+            processingMetrics.getCounters().processingSuccess("xmlProcessing").increment();
+            log.debug("Processed message: {}", message.getFilename());
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    protected void processBatchSegment(List<MessageContent> batchSegment, List<CompletableFuture<Void>> results) {
         int successCount = 0;
         int failureCount = 0;
 
-        for (MessageContent message : batchSegment) {
+        for (int i = 0; i < batchSegment.size(); i++) {
+            MessageContent message = batchSegment.get(i);
             try {
                 processSingleMessage(message);
                 successCount++;
+                results.get(i).complete(null);
                 log.debug("Processed message: {}", message.getMultipartFile().getOriginalFilename());
             } catch (Exception e) {
                 failureCount++;
+                results.get(i).completeExceptionally(e);
                 log.error("Error processing message: {}", message.getMultipartFile().getOriginalFilename(), e);
                 // Continue processing other messages in batch
             }
@@ -92,22 +133,23 @@ public class BatchProcessorServiceImpl implements BatchProcessorService {
         }
     }
 
+    /**
+     * Process one message. Failures are not retried here: the listener sends the message to a
+     * delayed retry queue, so no thread sleeps between attempts.
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    @Retryable(
-        value = {ProcessingException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2)
-    )
     protected void processSingleMessage(MessageContent message) {
         try {
+            Interface interfaceEntity = loadInterface(message);
             circuitBreakerService.executeRepositoryOperation(
                 () -> {
-                    xmlProcessorService.processXmlFile(message.getMultipartFile(), message.getInterfaceEntity());
+                    xmlProcessorService.processXmlFile(message.getMultipartFile(), interfaceEntity);
                     return null;
                 },
                 () -> {
                     log.warn("Circuit breaker fallback triggered for message: {}", message.getMultipartFile().getOriginalFilename());
-                    return null;
+                    // Fail the message so it is not acknowledged as processed
+                    throw new ProcessingException("Service temporarily unavailable due to high load");
                 }
             );
             processingMetrics.getCounters().processingSuccess("xmlProcessing").increment();
@@ -117,13 +159,18 @@ public class BatchProcessorServiceImpl implements BatchProcessorService {
         }
     }
 
-    private <T> List<List<T>> partition(List<T> list, int size) {
-        if (list == null || list.isEmpty()) {
-            return new ArrayList<>();
+    /**
+     * The interface of a message. Listeners only pass its id; the entity is loaded here.
+     */
+    private Interface loadInterface(MessageContent message) {
+        if (message.getInterfaceEntity() != null) {
+            return message.getInterfaceEntity();
         }
-        
-        return new ArrayList<>(list.stream()
-            .collect(Collectors.groupingBy(item -> list.indexOf(item) / size))
-            .values());
+        Long interfaceId = message.getInterfaceId();
+        if (interfaceId == null) {
+            throw new ValidationException("Message " + message.getFilename() + " does not name its interface");
+        }
+        return interfaceRepository.findById(interfaceId)
+            .orElseThrow(() -> new ValidationException("Interface not found: " + interfaceId));
     }
 } 
@@ -224,6 +224,8 @@ public class InterfaceServiceImpl implements InterfaceService {
                     existingInterface.setNamespace(interfaceEntity.getNamespace());
                     existingInterface.setActive(interfaceEntity.isActive());
                     existingInterface.setPriority(interfaceEntity.getPriority());
+                    existingInterface.setStreamingThresholdBytes(interfaceEntity.getStreamingThresholdBytes());
+                    existingInterface.setBulkLoadThresholdRows(interfaceEntity.getBulkLoadThresholdRows());
                     existingInterface.setClient(interfaceEntity.getClient());
                     
                     return interfaceRepository.save(existingInterface);
@@ -7,6 +7,7 @@ import com.middleware.shared.model.TargetLevel;
 import com.middleware.shared.repository.InterfaceRepository;
 import com.middleware.shared.repository.MappingRuleRepository;
 import com.middleware.processor.service.interfaces.MappingRuleService;
+import com.middleware.processor.service.mapping.MappingPlanCache;
 import com.middleware.shared.service.util.CircuitBreakerService;
 import com.middleware.processor.exception.ValidationException;
 import com.middleware.shared.exception.ResourceNotFoundException;
@@ -37,6 +38,9 @@ public class MappingRuleServiceImpl implements MappingRuleService {
     @Autowired
     private CircuitBreakerService circuitBreakerService;
 
+    @Autowired
+    private MappingPlanCache mappingPlanCache;
+
     @Override
     @Transactional
     public MappingRule createMappingRule(MappingRule mappingRule) {
@@ -51,7 +55,9 @@ public class MappingRuleServiceImpl implements MappingRuleService {
         return circuitBreakerService.executeRepositoryOperation(
             () -> {
                 try {
-                    return mappingRuleRepository.save(mappingRule);
+                    MappingRule savedRule = mappingRuleRepository.save(mappingRule);
+                    mappingPlanCache.invalidate(savedRule);
+                    return savedRule;
                 } catch (Exception e) {
                     log.error("Error creating mapping rule {}: {}", mappingRule.getName(), e.getMessage(), e);
                     throw e;
@@ -111,7 +117,9 @@ public class MappingRuleServiceImpl implements MappingRuleService {
                     }
                     
                     updateMappingRuleFields(mappingRule, mappingRuleDetails);
-                    return mappingRuleRepository.save(mappingRule);
+                    MappingRule savedRule = mappingRuleRepository.save(mappingRule);
+                    mappingPlanCache.invalidate(savedRule);
+                    return savedRule;
                 } catch (Exception e) {
                     log.error("Error updating mapping rule with id {}: {}", id, e.getMessage(), e);
                     throw e;
@@ -134,16 +142,16 @@ public class MappingRuleServiceImpl implements MappingRuleService {
         circuitBreakerService.executeVoidRepositoryOperation(
             () -> {
                 try {
+                    MappingRule mappingRule;
                     if (clientId != null) {
-                        mappingRuleRepository.findByIdAndClient_Id(id, clientId)
+                        mappingRule = mappingRuleRepository.findByIdAndClient_Id(id, clientId)
                             .orElseThrow(() -> new ResourceNotFoundException("Mapping rule not found with id: " + id));
-                        mappingRuleRepository.deleteById(id);
                     } else {
-                        if (!mappingRuleRepository.existsById(id)) {
-                            throw new ResourceNotFoundException("Mapping rule not found with id: " + id);
-                        }
-                        mappingRuleRepository.deleteById(id);
+                        mappingRule = mappingRuleRepository.findById(id)
+                            .orElseThrow(() -> new ResourceNotFoundException("Mapping rule not found with id: " + id));
                     }
+                    mappingRuleRepository.deleteById(id);
+                    mappingPlanCache.invalidate(mappingRule);
                 } catch (Exception e) {
                     log.error("Error deleting mapping rule with id {}: {}", id, e.getMessage(), e);
                     throw e;
@@ -163,7 +171,9 @@ public class MappingRuleServiceImpl implements MappingRuleService {
         circuitBreakerService.executeRepositoryOperation(
             () -> {
                 try {
-                    return mappingRuleRepository.saveAll(rules);
+                    List<MappingRule> savedRules = mappingRuleRepository.saveAll(rules);
+                    savedRules.forEach(mappingPlanCache::invalidate);
+                    return savedRules;
                 } catch (Exception e) {
                     log.error("Error saving mapping configuration: {}", e.getMessage(), e);
                     throw e;
@@ -185,6 +195,7 @@ public class MappingRuleServiceImpl implements MappingRuleService {
             () -> {
                 try {
                     mappingRuleRepository.deleteByClient_IdAndTableName(clientId, tableName);
+                    mappingPlanCache.invalidateAll();
                 } catch (Exception e) {
                     log.error("Error deleting mapping rules for client {} and table {}: {}", 
                             clientId, tableName, e.getMessage(), e);
@@ -7,6 +7,7 @@ import com.middleware.shared.repository.OrderHeaderRepository;
 import com.middleware.shared.repository.OrderLineRepository;
 import com.middleware.processor.service.interfaces.OrderService;
 import com.middleware.shared.service.util.CircuitBreakerService;
+import com.middleware.processor.service.util.CopyBulkLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +37,9 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private CircuitBreakerService circuitBreakerService;
 
+    @Autowired
+    private CopyBulkLoader copyBulkLoader;
+
     @Override
     @Transactional(readOnly = true)
     public List<OrderHeader> getAllOrderHeaders() {
@@ -345,19 +349,7 @@ public class OrderServiceImpl implements OrderService {
                 lines.forEach(this::validateOrderLine);
                 
                 // Ensure all lines have the same header and client
-                OrderHeader header = lines.get(0).getOrderHeader();
-                if (header == null) {
-                    throw new ValidationException("Header must be specified for ASN Lines");
-                }
-                
-                lines.forEach(line -> {
-                    if (!header.equals(line.getOrderHeader())) {
-                        throw new ValidationException("All lines must belong to the same header");
-                    }
-                    if (!header.getClient().equals(line.getClient())) {
-                        throw new ValidationException("All lines must belong to the same client as the header");
-                    }
-                });
+                validateOrderLineConsistency(lines);
                 
                 // Save all lines in a batch					
                 return orderLineRepository.saveAll(lines);
@@ -370,6 +362,44 @@ public class OrderServiceImpl implements OrderService {
         );
     }
 
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<OrderLine> createOrderLines(List<OrderLine> lines, boolean bulkLoad) {
+        if (!bulkLoad || lines == null || lines.isEmpty()) {
+            return createOrderLines(lines);
+        }
+
+        return circuitBreakerService.executeRepositoryOperation(
+            () -> {
+                lines.forEach(this::validateOrderLine);
+                validateOrderLineConsistency(lines);
+
+                copyBulkLoader.copy(OrderLine.class, lines);
+                return lines;
+            },
+            () -> {
+                // A failed COPY aborts the transaction, so there is nothing to fall back to
+                throw new ValidationException("Bulk load of " + lines.size() + " Order lines failed");
+            }
+        );
+    }
+
+    private void validateOrderLineConsistency(List<OrderLine> lines) {
+        OrderHeader header = lines.get(0).getOrderHeader();
+        if (header == null) {
+            throw new ValidationException("Header must be specified for ASN Lines");
+        }
+
+        lines.forEach(line -> {
+            if (!header.equals(line.getOrderHeader())) {
+                throw new ValidationException("All lines must belong to the same header");
+            }
+            if (!header.getClient().equals(line.getClient())) {
+                throw new ValidationException("All lines must belong to the same client as the header");
+            }
+        });
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<OrderHeader> findByOrderNumber(String orderNumber) {
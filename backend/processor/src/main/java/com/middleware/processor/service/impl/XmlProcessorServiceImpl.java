@@ -1,6 +1,7 @@
 package com.middleware.processor.service.impl;
 
 import com.middleware.processor.exception.ValidationException;
+import com.middleware.processor.service.PayloadStorageService;
 import com.middleware.processor.service.interfaces.DocumentProcessingStrategyService;
 import com.middleware.processor.service.interfaces.XmlProcessorService;
 import com.middleware.processor.service.strategy.BaseDocumentProcessingStrategy;
@@ -20,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -48,6 +50,9 @@ public class XmlProcessorServiceImpl implements XmlProcessorService {
     @Autowired
     private ProcessedFileRepository processedFileRepository;
 
+    @Autowired
+    private PayloadStorageService payloadStorageService;
+
     @Override
     public ProcessedFile processXmlFile(MultipartFile file, Interface interfaceEntity) {
         logger.info("Processing XML file: {} for interface: {}", file.getOriginalFilename(), interfaceEntity.getName());
@@ -144,12 +149,12 @@ public class XmlProcessorServiceImpl implements XmlProcessorService {
                     throw new ValidationException("No processing strategy found for interface type: " + file.getInterfaceEntity().getType());
                 }
 
-                // Create a MultipartFile from the content
+                // Create a MultipartFile from the stored payload
                 MultipartFile multipartFile = new MockMultipartFile(
                     file.getFileName(),
                     file.getFileName(),
                     "text/xml",
-                    file.getContent().getBytes()
+                    payloadStorageService.retrieveFile(file)
                 );
 
                 ProcessedFile reprocessedFile = strategy.processDocument(multipartFile, file.getInterfaceEntity());
@@ -215,7 +220,10 @@ public class XmlProcessorServiceImpl implements XmlProcessorService {
                     throw new ValidationException("No processing strategy found for interface type: " + interfaceEntity.getType());
                 }
                 ProcessedFile result = strategy.processDocument(file, interfaceEntity);
-                return result.getContent();
+                if (!"SUCCESS".equals(result.getStatus())) {
+                    return null;
+                }
+                return new String(payloadStorageService.retrieveFile(result), StandardCharsets.UTF_8);
             } catch (Exception e) {
                 logger.error("Error transforming XML file {}: {}", file.getOriginalFilename(), e.getMessage(), e);
                 throw new RuntimeException("Failed to transform XML file: " + e.getMessage(), e);
@@ -3,6 +3,9 @@ package com.middleware.processor.service.impl;
 import com.middleware.processor.config.XmlValidationConfig;
 import com.middleware.processor.exception.XmlValidationException;
 import com.middleware.processor.service.interfaces.XmlValidationService;
+import com.middleware.processor.validation.SchemaRegistry;
+import com.middleware.processor.validation.ValidationError;
+import com.middleware.processor.validation.ValidationResult;
 import com.middleware.shared.model.Interface;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -13,26 +16,33 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
+import org.xml.sax.Attributes;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Source;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -48,12 +58,32 @@ import java.util.List;
 public class XmlValidationServiceImpl implements XmlValidationService {
     
     private final XmlValidationConfig validationConfig;
-    private String validationErrorMessage;
+    private final SchemaRegistry schemaRegistry;
+    private final SAXParserFactory saxParserFactory;
+    private final SAXTransformerFactory transformerFactory;
+    // Message of the calling thread's last boolean-returning validation, for getValidationErrorMessage()
+    private final ThreadLocal<String> lastErrorMessage = new ThreadLocal<>();
 
-    public XmlValidationServiceImpl(XmlValidationConfig validationConfig) {
+    public XmlValidationServiceImpl(XmlValidationConfig validationConfig, SchemaRegistry schemaRegistry) throws ParserConfigurationException, SAXException {
         this.validationConfig = validationConfig;
+        this.schemaRegistry = schemaRegistry;
         // Set system properties once during initialization
         configureSystemProperties();
+        this.saxParserFactory = createSecureSaxParserFactory();
+        this.transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance();
+    }
+
+    /**
+     * Creates the SAX parser factory used for stream validation.
+     */
+    private static SAXParserFactory createSecureSaxParserFactory() throws ParserConfigurationException, SAXException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); // Security: Disallow DTDs
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false); // Security: Disable external entities
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); // Security: Disable external parameter entities
+        factory.setXIncludeAware(false); // Security: Disable XInclude
+        return factory;
     }
     
     /**
@@ -72,55 +102,6 @@ public class XmlValidationServiceImpl implements XmlValidationService {
                  validationConfig.isEnableExternalSchema());
     }
     
-    /**
-     * Configure a SchemaFactory with validation settings
-     * 
-     * @param factory The SchemaFactory to configure
-     */
-    private void configureSchemaFactory(SchemaFactory factory) {
-        try {
-            // Enable external schema access
-            System.setProperty("javax.xml.accessExternalSchema", "all");
-            System.setProperty("javax.xml.accessExternalDTD", "all");
-            
-            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "all");
-            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "all");
-            
-            try {
-                factory.setProperty("http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit", 
-                                  validationConfig.getEntityExpansionLimit());
-            } catch (SAXException e) {
-                log.debug("Could not set Oracle entity expansion limit", e);
-            }
-            
-            try {
-                factory.setProperty("entityExpansionLimit", validationConfig.getEntityExpansionLimit());
-            } catch (SAXException e) {
-                log.debug("Could not set direct entity expansion limit", e);
-            }
-
-            // Set XML validation features from config
-            try {
-                factory.setFeature("http://apache.org/xml/features/honour-all-schemaLocations", 
-                                 validationConfig.isHonourAllSchemaLocations());
-                factory.setFeature("http://apache.org/xml/features/validation/schema-full-checking", 
-                                 validationConfig.isEnableSchemaFullChecking());
-                
-                if (validationConfig.getAdditionalFeatures() != null) {
-                    for (Map.Entry<String, Boolean> feature : validationConfig.getAdditionalFeatures().entrySet()) {
-                        factory.setFeature(feature.getKey(), feature.getValue());
-                    }
-                }
-            } catch (SAXException e) {
-                log.debug("Could not set XML features", e);
-            }
-            
-            log.debug("Configured SchemaFactory with external access enabled");
-        } catch (Exception e) {
-            log.error("Error configuring SchemaFactory: " + e.getMessage(), e);
-        }
-    }
-    
     /**
      * Configure a Validator with validation settings
      * 
@@ -156,18 +137,28 @@ public class XmlValidationServiceImpl implements XmlValidationService {
 
     @Override
     public boolean validateXmlAgainstXsd(Document document, String xsdContent) {
+        return remember(validateAgainstXsd(document, xsdContent));
+    }
+
+    @Override
+    public ValidationResult validateAgainstXsd(Document document, String xsdContent) {
         // First check if the XML is compatible with the XSD
-        if (!isXmlCompatibleWithXsd(document, xsdContent)) {
-            validationErrorMessage = "XML document is not compatible with the XSD schema. Root element or namespace mismatch.";
-            log.error(validationErrorMessage);
-            return false;
+        if (checkXsdCompatibility(document, xsdContent) != null) {
+            String message = "XML document is not compatible with the XSD schema. Root element or namespace mismatch.";
+            log.error(message);
+            return ValidationResult.failure(message);
         }
         
-        return validateXmlAgainstXsdWithNamespaceCheck(document, xsdContent, true);
+        return validateAgainstXsdSchema(document, xsdContent);
     }
     
     @Override
     public boolean validateXmlAgainstXsdWithNamespaceCheck(Document document, String xsdContent, boolean enforceNamespaces) {
+        return remember(validateAgainstXsdSchema(document, xsdContent));
+    }
+
+    private ValidationResult validateAgainstXsdSchema(Document document, String xsdContent) {
+        ErrorCollector errors = new ErrorCollector();
         try {
             log.trace("Starting XML validation against XSD");
             Element rootElement = document.getDocumentElement();
@@ -175,118 +166,59 @@ public class XmlValidationServiceImpl implements XmlValidationService {
             log.trace("XML document root namespace: {}", rootElement.getNamespaceURI());
             log.trace("XSD content length: {}", xsdContent.length());
             
-            // Create and configure the schema factory
-            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            log.trace("Created SchemaFactory instance");
-            
-            // Configure the factory
-            configureSchemaFactory(factory);
-            
-            Source schemaSource = new StreamSource(new StringReader(xsdContent));
-            log.trace("Created schema source from XSD content");
-            
-            Schema schema = factory.newSchema(schemaSource);
-            log.trace("Created schema from source");
+            // Compiled once per distinct XSD content
+            Schema schema = schemaRegistry.getSchema(xsdContent);
+            log.trace("Obtained compiled schema for XSD content");
             
-            Validator validator = schema.newValidator();
+            Validator validator = newValidator(schema, errors);
             log.trace("Created validator from schema");
             
-            // Configure the validator
-            configureValidator(validator);
-            
-            // Add custom error handler for detailed error messages
-            final StringBuilder errorDetails = new StringBuilder();
-            validator.setErrorHandler(new ErrorHandler() {
-                @Override
-                public void warning(SAXParseException e) {
-                    log.warn("XML validation warning: " + e.getMessage());
-                }
-
-                @Override
-                public void error(SAXParseException e) throws SAXException {
-                    errorDetails.append("Line ").append(e.getLineNumber())
-                               .append(", Column ").append(e.getColumnNumber())
-                               .append(": ").append(e.getMessage()).append("\n");
-                    throw e;
-                }
-
-                @Override
-                public void fatalError(SAXParseException e) throws SAXException {
-                    errorDetails.append("FATAL: Line ").append(e.getLineNumber())
-                               .append(", Column ").append(e.getColumnNumber())
-                               .append(": ").append(e.getMessage()).append("\n");
-                    throw e;
-                }
-            });
-            
             // Add debug logging
             log.debug("Starting validation with entity expansion limit: {}", 
                      validationConfig.getEntityExpansionLimit());
             validator.validate(new DOMSource(document));
             log.trace("Validation completed successfully");
             
-            validationErrorMessage = null;
-            return true;
-        } catch (SAXException e) {
-            validationErrorMessage = "XML validation failed against XSD: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            log.error("Validation stack trace:", e);
-            return false;
+            return errors.toResult(null);
         } catch (IOException e) {
-            validationErrorMessage = "Error reading XSD schema: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
+            return errors.failed("Error reading XSD schema: ", e);
+        } catch (Exception e) {
+            return errors.failed("XML validation failed against XSD: ", e);
         }
     }
 
     @Override
     public boolean validateXmlStructure(Document document) {
-        try {
-            Element root = document.getDocumentElement();
-            if (root == null) {
-                validationErrorMessage = "XML document has no root element";
-                return false;
-            }
-
-            // Check for well-formedness
-            if (!isWellFormed(document)) {
-                return false;
-            }
-
-            validationErrorMessage = null;
-            return true;
-        } catch (Exception e) {
-            validationErrorMessage = "XML structure validation failed: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
-        }
+        String error = checkStructure(document);
+        lastErrorMessage.set(error);
+        return error == null;
     }
     
     /**
-     * Check if a document is well-formed
+     * Check that a document has a root element and declares every namespace prefix it uses.
+     *
+     * @return The problem found, or null if the structure is valid
      */
-    private boolean isWellFormed(Document document) {
+    private String checkStructure(Document document) {
         try {
-            // Check for basic structure issues
-            if (document.getDocumentElement() == null) {
-                validationErrorMessage = "XML document has no root element";
-                return false;
+            Element root = document.getDocumentElement();
+            if (root == null) {
+                return "XML document has no root element";
             }
             
             // Check for namespace consistency
-            Map<String, String> declaredNamespaces = extractNamespaces(document.getDocumentElement());
-            List<String> undeclaredPrefixes = findUndeclaredPrefixes(document.getDocumentElement(), declaredNamespaces);
+            Map<String, String> declaredNamespaces = extractNamespaces(root);
+            List<String> undeclaredPrefixes = findUndeclaredPrefixes(root, declaredNamespaces);
             
             if (!undeclaredPrefixes.isEmpty()) {
-                validationErrorMessage = "XML document uses undeclared namespace prefixes: " + String.join(", ", undeclaredPrefixes);
-                return false;
+                return "XML document uses undeclared namespace prefixes: " + String.join(", ", undeclaredPrefixes);
             }
             
-            return true;
+            return null;
         } catch (Exception e) {
-            validationErrorMessage = "XML well-formedness check failed: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
+            String message = "XML structure validation failed: " + e.getMessage();
+            log.error(message, e);
+            return message;
         }
     }
     
@@ -367,104 +299,181 @@ public class XmlValidationServiceImpl implements XmlValidationService {
 
     @Override
     public boolean validateXmlContent(Document document, Interface interfaceEntity) {
-        try {
-            String rootElement = interfaceEntity.getRootElement();
-            boolean isFlexibleMode = rootElement != null && rootElement.toUpperCase().endsWith(":FLEXIBLE");
-            
-            // Perform validation based on mode
-            return performGenericValidation(document, interfaceEntity, isFlexibleMode);
-        } catch (Exception e) {
-            validationErrorMessage = "XML validation failed: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
-        }
+        return remember(validate(document, interfaceEntity));
     }
 
-    private boolean performGenericValidation(Document document, Interface interfaceEntity, boolean isFlexibleMode) {
+    @Override
+    public ValidationResult validate(Document document, Interface interfaceEntity) {
+        ErrorCollector errors = new ErrorCollector();
         try {
             // First validate basic XML structure for both modes
-            if (!validateXmlStructure(document)) {
-                return false;
+            String structureError = checkStructure(document);
+            if (structureError != null) {
+                return ValidationResult.failure(structureError);
             }
 
-            if (isFlexibleMode) {
+            if (isFlexibleMode(interfaceEntity)) {
                 // In flexible mode, only validate basic structure
-                Element rootElement = document.getDocumentElement();
-                String expectedRoot = interfaceEntity.getRootElement().split(":")[0]; // Remove :FLEXIBLE suffix
-                
-                // Check if root element name matches (ignoring namespace)
-                if (!rootElement.getLocalName().equals(expectedRoot)) {
-                    validationErrorMessage = String.format(
-                        "Root element mismatch. XML has '%s' but expected '%s'", 
-                        rootElement.getLocalName(), expectedRoot);
-                    return false;
-                }
-                
-                return true;
+                return checkFlexibleRoot(document.getDocumentElement().getLocalName(), interfaceEntity, null);
             }
 
             // For strict mode, do full schema validation
-            Path xsdPath = Paths.get(interfaceEntity.getSchemaPath());
-            if (!Files.exists(xsdPath)) {
-                String resourcePath = interfaceEntity.getSchemaPath().replace("backend/src/main/resources/", "");
-                URL resourceUrl = getClass().getClassLoader().getResource(resourcePath);
-                if (resourceUrl != null) {
-                    xsdPath = Paths.get(resourceUrl.toURI());
-                } else {
-                    validationErrorMessage = "XSD schema not found at path: " + xsdPath;
-                    log.error(validationErrorMessage);
-                    return false;
-                }
+            Schema schema = schemaRegistry.getInterfaceSchema(interfaceEntity.getSchemaPath());
+            if (schema == null) {
+                return schemaNotFound(interfaceEntity);
             }
+            newValidator(schema, errors).validate(new DOMSource(document));
+            return errors.toResult(null);
+        } catch (Exception e) {
+            return errors.failed("XML validation failed: ", e);
+        }
+    }
 
-            // Create and configure schema factory
-            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            configureSchemaFactory(factory);
-
-            // Enable all strict validation features
-            factory.setFeature("http://apache.org/xml/features/validation/schema-full-checking", true);
-            factory.setFeature("http://apache.org/xml/features/honour-all-schemaLocations", true);
-
-            // Create schema and validator
-            Source schemaSource = new StreamSource(Files.newInputStream(xsdPath));
-            Schema schema = factory.newSchema(schemaSource);
-            Validator validator = schema.newValidator();
-            configureValidator(validator);
-
-            // Set up error handler
-            final StringBuilder errorDetails = new StringBuilder();
-            validator.setErrorHandler(new ErrorHandler() {
-                @Override
-                public void warning(SAXParseException e) {
-                    log.warn("Validation warning: " + e.getMessage());
-                }
+    @Override
+    public ValidationResult validate(InputStream inputStream, Interface interfaceEntity) {
+        ErrorCollector errors = new ErrorCollector();
+        try {
+            if (isFlexibleMode(interfaceEntity)) {
+                // In flexible mode, only check well-formedness and the root element name
+                String[] actualRoot = new String[1];
+                XMLReader reader = createSecureXmlReader(new DefaultHandler() {
+                    @Override
+                    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                        if (actualRoot[0] == null) {
+                            actualRoot[0] = localName;
+                        }
+                    }
+                });
+                reader.setErrorHandler(errors);
+                reader.parse(new InputSource(inputStream));
+                return checkFlexibleRoot(actualRoot[0], interfaceEntity, null);
+            }
 
-                @Override
-                public void error(SAXParseException e) throws SAXException {
-                    errorDetails.append("Line ").append(e.getLineNumber())
-                            .append(", Column ").append(e.getColumnNumber())
-                            .append(": ").append(e.getMessage()).append("\n");
-                    throw e;
-                }
+            Schema schema = schemaRegistry.getInterfaceSchema(interfaceEntity.getSchemaPath());
+            if (schema == null) {
+                return schemaNotFound(interfaceEntity);
+            }
+            newValidator(schema, errors).validate(new SAXSource(createSecureXmlReader(null), new InputSource(inputStream)));
+            return errors.toResult(null);
+        } catch (Exception e) {
+            return errors.failed("XML validation failed: ", e);
+        }
+    }
 
-                @Override
-                public void fatalError(SAXParseException e) throws SAXException {
-                    errorDetails.append("FATAL: Line ").append(e.getLineNumber())
-                            .append(", Column ").append(e.getColumnNumber())
-                            .append(": ").append(e.getMessage()).append("\n");
-                    throw e;
+    @Override
+    public ValidationResult validateAndParse(InputStream inputStream, Interface interfaceEntity) {
+        ErrorCollector errors = new ErrorCollector();
+        try {
+            boolean isFlexibleMode = isFlexibleMode(interfaceEntity);
+
+            ValidatorHandler validatorHandler = null;
+            if (!isFlexibleMode) {
+                Schema schema = schemaRegistry.getInterfaceSchema(interfaceEntity.getSchemaPath());
+                if (schema == null) {
+                    return schemaNotFound(interfaceEntity);
                 }
-            });
+                validatorHandler = schema.newValidatorHandler();
+                validatorHandler.setErrorHandler(errors);
+            }
 
-            // Validate document
-            validator.validate(new DOMSource(document));
-            return true;
+            // Reader -> validator -> DOM builder; the validator forwards each event once it has checked it
+            DOMResult result = new DOMResult();
+            TransformerHandler domBuilder;
+            // TransformerFactory is not guaranteed to be thread-safe
+            synchronized (transformerFactory) {
+                domBuilder = transformerFactory.newTransformerHandler();
+            }
+            domBuilder.setResult(result);
+
+            XMLReader reader = createSecureXmlReader(null);
+            if (validatorHandler != null) {
+                XMLFilterImpl whitespaceKeeper = new XMLFilterImpl() {
+                    @Override
+                    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+                        // The validator reports whitespace in element-only content as ignorable;
+                        // keep it as text, as the pooled DOM parser does
+                        characters(ch, start, length);
+                    }
+                };
+                whitespaceKeeper.setContentHandler(domBuilder);
+                validatorHandler.setContentHandler(whitespaceKeeper);
+                reader.setContentHandler(validatorHandler);
+            } else {
+                reader.setContentHandler(domBuilder);
+            }
+            // Comments bypass the validator so the tree matches a regular parse; CDATA sections become plain text
+            reader.setProperty("http://xml.org/sax/properties/lexical-handler", domBuilder);
+            reader.setErrorHandler(errors);
+            reader.parse(new InputSource(inputStream));
 
+            Document document = (Document) result.getNode();
+            if (isFlexibleMode) {
+                // In flexible mode, only check well-formedness and the root element name
+                return checkFlexibleRoot(document.getDocumentElement().getLocalName(), interfaceEntity, document);
+            }
+            return errors.toResult(document);
         } catch (Exception e) {
-            validationErrorMessage = "XML validation failed: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
+            return errors.failed("XML validation failed: ", e);
+        }
+    }
+
+    private static boolean isFlexibleMode(Interface interfaceEntity) {
+        String rootElement = interfaceEntity.getRootElement();
+        return rootElement != null && rootElement.toUpperCase().endsWith(":FLEXIBLE");
+    }
+
+    /**
+     * Flexible mode check: the root element name must match, ignoring namespace.
+     */
+    private static ValidationResult checkFlexibleRoot(String actualRoot, Interface interfaceEntity, Document document) {
+        String expectedRoot = interfaceEntity.getRootElement().split(":")[0]; // Remove :FLEXIBLE suffix
+        if (!expectedRoot.equals(actualRoot)) {
+            return ValidationResult.failure(String.format(
+                "Root element mismatch. XML has '%s' but expected '%s'",
+                actualRoot, expectedRoot));
+        }
+        return ValidationResult.valid(document);
+    }
+
+    private static ValidationResult schemaNotFound(Interface interfaceEntity) {
+        String message = "XSD schema not found at path: " + interfaceEntity.getSchemaPath();
+        log.error(message);
+        return ValidationResult.unavailable(message);
+    }
+
+    /**
+     * Create a configured validator for one call; validators are not thread-safe.
+     */
+    private Validator newValidator(Schema schema, ErrorHandler errorHandler) {
+        Validator validator = schema.newValidator();
+        configureValidator(validator);
+        validator.setErrorHandler(errorHandler);
+        return validator;
+    }
+
+    /**
+     * Record the outcome of a boolean-returning call for {@link #getValidationErrorMessage()}.
+     */
+    private boolean remember(ValidationResult result) {
+        lastErrorMessage.set(result.getErrorMessage());
+        return result.isValid();
+    }
+
+    /**
+     * Create a namespace-aware XMLReader with the same restrictions the DOM parser pool applies.
+     */
+    private XMLReader createSecureXmlReader(DefaultHandler handler) throws Exception {
+        SAXParser parser;
+        // SAXParserFactory is not guaranteed to be thread-safe
+        synchronized (saxParserFactory) {
+            parser = saxParserFactory.newSAXParser();
         }
+        XMLReader reader = parser.getXMLReader();
+        if (handler != null) {
+            reader.setContentHandler(handler);
+            reader.setErrorHandler(handler);
+        }
+        return reader;
     }
 
     @Override
@@ -473,8 +482,9 @@ public class XmlValidationServiceImpl implements XmlValidationService {
     }
 
     @Override
+    @Deprecated
     public String getValidationErrorMessage() {
-        return validationErrorMessage;
+        return lastErrorMessage.get();
     }
 
     @Override
@@ -484,6 +494,15 @@ public class XmlValidationServiceImpl implements XmlValidationService {
 
     @Override
     public boolean isXmlCompatibleWithXsd(Document document, String xsdContent) {
+        String error = checkXsdCompatibility(document, xsdContent);
+        lastErrorMessage.set(error);
+        return error == null;
+    }
+
+    /**
+     * @return The incompatibility found, or null if the document is compatible
+     */
+    private String checkXsdCompatibility(Document document, String xsdContent) {
         try {
             // Extract root element info from XML document
             Element xmlRoot = document.getDocumentElement();
@@ -501,40 +520,49 @@ public class XmlValidationServiceImpl implements XmlValidationService {
             
             // Check if root element names match
             if (!xmlRootName.equals(xsdRootName)) {
-                validationErrorMessage = String.format(
+                String message = String.format(
                     "Root element mismatch. XML has '%s' but XSD expects '%s'", 
                     xmlRootName, xsdRootName);
-                log.error(validationErrorMessage);
-                return false;
+                log.error(message);
+                return message;
             }
             
             // Check if namespaces are compatible
             if (xsdRootNamespace != null && !xsdRootNamespace.isEmpty()) {
                 // XSD has a target namespace, XML must match it
                 if (xmlRootNamespace == null || !xmlRootNamespace.equals(xsdRootNamespace)) {
-                    validationErrorMessage = String.format(
+                    String message = String.format(
                         "Namespace mismatch. XML has '%s' but XSD expects '%s'", 
                         xmlRootNamespace, xsdRootNamespace);
-                    log.error(validationErrorMessage);
-                    return false;
+                    log.error(message);
+                    return message;
                 }
             } else if (xmlRootNamespace != null && !xmlRootNamespace.isEmpty()) {
                 // XSD has no target namespace but XML has one
-                validationErrorMessage = "Namespace mismatch. XML has a namespace but XSD has none";
-                log.error(validationErrorMessage);
-                return false;
+                String message = "Namespace mismatch. XML has a namespace but XSD has none";
+                log.error(message);
+                return message;
             }
             
-            return true;
+            return null;
         } catch (Exception e) {
-            validationErrorMessage = "Error checking XML compatibility with XSD: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
+            String message = "Error checking XML compatibility with XSD: " + e.getMessage();
+            log.error(message, e);
+            return message;
         }
     }
     
     @Override
     public boolean isXmlCompatibleWithInterface(Document document, Interface interfaceEntity) {
+        String error = checkInterfaceCompatibility(document, interfaceEntity);
+        lastErrorMessage.set(error);
+        return error == null;
+    }
+
+    /**
+     * @return The incompatibility found, or null if the document is compatible
+     */
+    private String checkInterfaceCompatibility(Document document, Interface interfaceEntity) {
         try {
             // Extract root element info from XML document
             Element xmlRoot = document.getDocumentElement();
@@ -551,35 +579,35 @@ public class XmlValidationServiceImpl implements XmlValidationService {
             
             // Check if root element names match
             if (!xmlRootName.equals(interfaceRootElement)) {
-                validationErrorMessage = String.format(
+                String message = String.format(
                     "Root element mismatch. XML has '%s' but interface expects '%s'", 
                     xmlRootName, interfaceRootElement);
-                log.error(validationErrorMessage);
-                return false;
+                log.error(message);
+                return message;
             }
             
             // Check if namespaces are compatible
             if (interfaceNamespace != null && !interfaceNamespace.isEmpty()) {
                 // Interface has a namespace, XML must match it
                 if (xmlRootNamespace == null || !xmlRootNamespace.equals(interfaceNamespace)) {
-                    validationErrorMessage = String.format(
+                    String message = String.format(
                         "Namespace mismatch. XML has '%s' but interface expects '%s'", 
                         xmlRootNamespace, interfaceNamespace);
-                    log.error(validationErrorMessage);
-                    return false;
+                    log.error(message);
+                    return message;
                 }
             } else if (xmlRootNamespace != null && !xmlRootNamespace.isEmpty()) {
                 // Interface has no namespace but XML has one
-                validationErrorMessage = "Namespace mismatch. XML has a namespace but interface has none";
-                log.error(validationErrorMessage);
-                return false;
+                String message = "Namespace mismatch. XML has a namespace but interface has none";
+                log.error(message);
+                return message;
             }
             
-            return true;
+            return null;
         } catch (Exception e) {
-            validationErrorMessage = "Error checking XML compatibility with interface: " + e.getMessage();
-            log.error(validationErrorMessage, e);
-            return false;
+            String message = "Error checking XML compatibility with interface: " + e.getMessage();
+            log.error(message, e);
+            return message;
         }
     }
     
@@ -669,4 +697,51 @@ public class XmlValidationServiceImpl implements XmlValidationService {
             return rootInfo;
         }
     }
+
+    /**
+     * Collects the problems reported during one validation call and stops at the first error.
+     */
+    private static final class ErrorCollector implements ErrorHandler {
+
+        private final List<ValidationError> errors = new ArrayList<>();
+        private boolean failureRecorded;
+
+        @Override
+        public void warning(SAXParseException e) {
+            log.warn("Validation warning: " + e.getMessage());
+            errors.add(ValidationError.of(ValidationError.Severity.WARNING, e));
+        }
+
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+            errors.add(ValidationError.of(ValidationError.Severity.ERROR, e));
+            failureRecorded = true;
+            throw e;
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            errors.add(ValidationError.of(ValidationError.Severity.FATAL, e));
+            failureRecorded = true;
+            throw e;
+        }
+
+        ValidationResult toResult(Document document) {
+            return ValidationResult.of(errors, document);
+        }
+
+        /**
+         * Result of a call that ended with an exception. An error this handler already recorded is not
+         * repeated; only then is the result complete, as any other exception is not about the document.
+         */
+        ValidationResult failed(String prefix, Exception e) {
+            log.error(prefix + e.getMessage(), e);
+            if (!failureRecorded) {
+                errors.add(e instanceof SAXParseException parseException
+                    ? ValidationError.of(ValidationError.Severity.ERROR, parseException)
+                    : ValidationError.of(ValidationError.Severity.ERROR, prefix + e.getMessage()));
+            }
+            return ValidationResult.of(errors, null, failureRecorded);
+        }
+    }
 }
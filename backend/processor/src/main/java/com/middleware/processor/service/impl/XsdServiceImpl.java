@@ -1,11 +1,15 @@
 package com.middleware.processor.service.impl;
 
+import com.middleware.processor.cache.ValidationResultCache;
 import com.middleware.processor.exception.ValidationException;
 import com.middleware.shared.model.Interface;
 import com.middleware.shared.model.MappingRule;
 import com.middleware.shared.repository.MappingRuleRepository;
 import com.middleware.processor.service.interfaces.XsdService;
 import com.middleware.processor.service.interfaces.InterfaceService;
+import com.middleware.processor.service.mapping.MappingPlanCache;
+import com.middleware.processor.service.util.XmlParserPool;
+import com.middleware.processor.validation.SchemaRegistry;
 import com.middleware.shared.service.util.CircuitBreakerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,6 +63,31 @@ public class XsdServiceImpl implements XsdService {
     @Autowired
     private InterfaceService interfaceService;
 
+    @Autowired
+    private XmlParserPool parserPool;
+
+    @Autowired
+    private SchemaRegistry schemaRegistry;
+
+    @Autowired
+    private ValidationResultCache validationResultCache;
+
+    @Autowired
+    private MappingPlanCache mappingPlanCache;
+
+    /**
+     * Parse an XSD document, through the shared parser pool when it is enabled for schema services.
+     */
+    private Document parseXsdDocument(InputStream inputStream) throws ParserConfigurationException, SAXException, IOException {
+        if (parserPool.isSharedWithSchemaServices()) {
+            return parserPool.parseSchema(inputStream);
+        }
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        return builder.parse(inputStream);
+    }
+
     @Override
     public boolean validateXsdSchema(MultipartFile file) {
         try {
@@ -83,6 +112,11 @@ public class XsdServiceImpl implements XsdService {
         String rootElement = getRootElement(file);
         String namespace = getNamespace(file);
 
+        // The previous and the uploaded schema may both be compiled already, and results validated against them cached
+        schemaRegistry.invalidate(interfaceEntity.getSchemaPath());
+        schemaRegistry.invalidate(file.getOriginalFilename());
+        validationResultCache.invalidateInterface(interfaceEntity.getId());
+
         interfaceEntity.setRootElement(rootElement);
         interfaceEntity.setNamespace(namespace);
         interfaceEntity.setSchemaPath(file.getOriginalFilename());
@@ -93,10 +127,7 @@ public class XsdServiceImpl implements XsdService {
     @Override
     public String getRootElement(MultipartFile file) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file.getInputStream());
+            Document document = parseXsdDocument(file.getInputStream());
             Element root = document.getDocumentElement();
             return root.getLocalName();
         } catch (ParserConfigurationException | SAXException | IOException e) {
@@ -107,10 +138,7 @@ public class XsdServiceImpl implements XsdService {
     @Override
     public String getNamespace(MultipartFile file) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file.getInputStream());
+            Document document = parseXsdDocument(file.getInputStream());
             Element root = document.getDocumentElement();
             return root.getNamespaceURI();
         } catch (ParserConfigurationException | SAXException | IOException e) {
@@ -121,10 +149,7 @@ public class XsdServiceImpl implements XsdService {
     @Override
     public List<Map<String, String>> getAllNamespaces(MultipartFile file) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file.getInputStream());
+            Document document = parseXsdDocument(file.getInputStream());
             Element root = document.getDocumentElement();
             
             Map<String, String> namespaceMap = extractNamespaces(root);
@@ -232,10 +257,7 @@ public class XsdServiceImpl implements XsdService {
                 }
             }
             
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(inputStream);
+            Document document = parseXsdDocument(inputStream);
             Element root = document.getDocumentElement();
             
             // Extract all namespaces
@@ -670,6 +692,7 @@ public class XsdServiceImpl implements XsdService {
     @Override
     public void deleteMappingRule(Long id) {
         mappingRuleRepository.deleteById(id);
+        mappingPlanCache.invalidateAll();
     }
 
     @Override
@@ -685,15 +708,13 @@ public class XsdServiceImpl implements XsdService {
     @Override
     public void deleteByClient_IdAndTableName(Long clientId, String tableName) {
         mappingRuleRepository.deleteByClient_IdAndTableName(clientId, tableName);
+        mappingPlanCache.invalidateAll();
     }
 
     @Override
     public String analyzeXsdStructure(MultipartFile file) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file.getInputStream());
+            Document document = parseXsdDocument(file.getInputStream());
             Element root = document.getDocumentElement();
             
             StringBuilder analysis = new StringBuilder();
@@ -881,6 +902,7 @@ public class XsdServiceImpl implements XsdService {
     @Override
     public void deleteMappingRulesByClientAndTable(Long clientId, String tableName) {
         mappingRuleRepository.deleteByClient_IdAndTableName(clientId, tableName);
+        mappingPlanCache.invalidateAll();
     }
 
     @Override
@@ -927,10 +949,7 @@ public class XsdServiceImpl implements XsdService {
             result.put("namespaces", namespaces);
             
             // Get structure
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(file.getInputStream());
+            Document document = parseXsdDocument(file.getInputStream());
             Element root = document.getDocumentElement();
             
             // Extract all namespaces
@@ -1024,10 +1043,7 @@ public class XsdServiceImpl implements XsdService {
         try {
             // Load the XSD document
             InputStream inputStream = getXsdInputStream(xsdPath);
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(inputStream);
+            Document document = parseXsdDocument(inputStream);
             Element root = document.getDocumentElement();
             
             // Extract all namespaces
@@ -1074,10 +1090,7 @@ public class XsdServiceImpl implements XsdService {
         try {
             // Load the XSD document
             InputStream inputStream = getXsdInputStream(xsdPath);
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(inputStream);
+            Document document = parseXsdDocument(inputStream);
             Element root = document.getDocumentElement();
             
             List<Map<String, Object>> attributes = new ArrayList<>();
@@ -1130,10 +1143,7 @@ public class XsdServiceImpl implements XsdService {
         try {
             // Load the XSD document
             InputStream inputStream = getXsdInputStream(xsdPath);
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(inputStream);
+            Document document = parseXsdDocument(inputStream);
             Element root = document.getDocumentElement();
             
             // Check for mixed content in complex types
@@ -1157,10 +1167,7 @@ public class XsdServiceImpl implements XsdService {
         try {
             // Load the XSD document
             InputStream inputStream = getXsdInputStream(xsdPath);
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(inputStream);
+            Document document = parseXsdDocument(inputStream);
             
             List<Map<String, String>> processingInstructions = new ArrayList<>();
             
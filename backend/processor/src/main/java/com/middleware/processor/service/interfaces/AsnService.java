@@ -229,6 +229,17 @@ public interface AsnService {
      */
     List<AsnLine> createAsnLines(List<AsnLine> lines);
 
+    /**
+     * Create multiple ASN lines, optionally bypassing the persistence context.
+     * In bulk mode the lines are copied into their table with PostgreSQL COPY within the
+     * current transaction; they get ids but are not managed afterwards.
+     *
+     * @param lines The list of ASN lines to create
+     * @param bulkLoad Whether to write the lines with COPY
+     * @return The list of created ASN lines
+     */
+    List<AsnLine> createAsnLines(List<AsnLine> lines, boolean bulkLoad);
+
     /**
      * Find ASN header by number.
      *
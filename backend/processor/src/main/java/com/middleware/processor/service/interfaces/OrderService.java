@@ -229,6 +229,17 @@ public interface OrderService {
      */
     List<OrderLine> createOrderLines(List<OrderLine> lines);
 
+    /**
+     * Create multiple Order lines, optionally bypassing the persistence context.
+     * In bulk mode the lines are copied into their table with PostgreSQL COPY within the
+     * current transaction; they get ids but are not managed afterwards.
+     *
+     * @param lines The list of Order lines to create
+     * @param bulkLoad Whether to write the lines with COPY
+     * @return The list of created Order lines
+     */
+    List<OrderLine> createOrderLines(List<OrderLine> lines, boolean bulkLoad);
+
     /**
      * Find Order header by number.
      *
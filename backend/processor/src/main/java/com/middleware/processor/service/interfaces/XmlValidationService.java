@@ -1,8 +1,11 @@
 package com.middleware.processor.service.interfaces;
 
 import org.w3c.dom.Document;
+import com.middleware.processor.validation.ValidationResult;
 import com.middleware.shared.model.Interface;
 
+import java.io.InputStream;
+
 /**
  * Service interface for XML validation operations.
  * Enhanced to support all XML types and proper schema matching.
@@ -42,10 +45,53 @@ public interface XmlValidationService {
     boolean validateXmlContent(Document document, Interface interfaceEntity);
 
     /**
-     * Gets the validation error message from the last validation operation.
+     * Validates an XML document against the interface's XSD schema.
+     * Unlike the boolean methods, the outcome is returned to the caller rather than kept in
+     * shared state, so this is safe to call concurrently.
+     * 
+     * @param document The XML document to validate
+     * @param interfaceEntity The interface containing the schema path
+     * @return The validation result with any errors found
+     */
+    ValidationResult validate(Document document, Interface interfaceEntity);
+
+    /**
+     * Validates XML content read from a stream against the interface's XSD schema without building a DOM.
+     * Reading stops at the first validation error.
+     * 
+     * @param inputStream The XML content
+     * @param interfaceEntity The interface containing the schema path
+     * @return The validation result with any errors found
+     */
+    ValidationResult validate(InputStream inputStream, Interface interfaceEntity);
+
+    /**
+     * Validates XML content read from a stream against the interface's XSD schema and builds
+     * its DOM in the same pass. Reading stops at the first validation error.
+     * 
+     * @param inputStream The XML content
+     * @param interfaceEntity The interface containing the schema path
+     * @return The validation result, carrying the parsed document if validation succeeded
+     */
+    ValidationResult validateAndParse(InputStream inputStream, Interface interfaceEntity);
+
+    /**
+     * Validates an XML document against an XSD schema, checking root element and namespace compatibility first.
+     * 
+     * @param document The XML document to validate
+     * @param xsdContent The XSD schema content as a string
+     * @return The validation result with any errors found
+     */
+    ValidationResult validateAgainstXsd(Document document, String xsdContent);
+
+    /**
+     * Gets the validation error message from the last boolean-returning validation operation
+     * performed by the calling thread.
      * 
      * @return The validation error message, or null if no error occurred
+     * @deprecated Use the {@link ValidationResult} returned by {@link #validate(Document, Interface)} and its overloads
      */
+    @Deprecated
     String getValidationErrorMessage();
 
     /**
@@ -0,0 +1,132 @@
+package com.middleware.processor.service.mapping;
+
+import com.middleware.processor.config.XmlMappingConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.w3c.dom.Document;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses the mapping engine for a document.
+ * Streamable rules are resolved in one StAX pass over the original payload; header rules
+ * outside the streaming subset, and the lines when the line paths are not streamable,
+ * are evaluated against the DOM.
+ */
+@Component
+public class DocumentMapper {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentMapper.class);
+
+    private final XmlMappingConfig config;
+    private final StreamingMappingEngine streamingEngine;
+    private final DomMappingEngine domEngine;
+
+    private final Counter streamingCounter;
+    private final Counter mixedCounter;
+    private final Counter domCounter;
+
+    public DocumentMapper(XmlMappingConfig config,
+                          StreamingMappingEngine streamingEngine,
+                          DomMappingEngine domEngine,
+                          MeterRegistry registry) {
+        this.config = config;
+        this.streamingEngine = streamingEngine;
+        this.domEngine = domEngine;
+        this.streamingCounter = documentCounter(registry, "stax");
+        this.mixedCounter = documentCounter(registry, "mixed");
+        this.domCounter = documentCounter(registry, "dom");
+    }
+
+    private static Counter documentCounter(MeterRegistry registry, String engine) {
+        return Counter.builder("xml.mapping.documents")
+            .description("Number of documents mapped, by engine")
+            .tag("engine", engine)
+            .register(registry);
+    }
+
+    /**
+     * Extract the raw rule values of a document.
+     *
+     * @param document The parsed XML document
+     * @param source The original payload the document was parsed from
+     * @param plan The compiled mapping plan
+     * @return Header values and line records in plan slot order
+     */
+    public MappedDocument map(Document document, MultipartFile source, MappingPlan plan) throws Exception {
+        String[] headerValues;
+        List<String[]> lines = new ArrayList<>();
+        LineRecordHandler collector = (index, values) -> lines.add(values);
+
+        if (config.isStreamingEnabled() && source != null && plan.hasStreamableRules()) {
+            try (InputStream inputStream = source.getInputStream()) {
+                headerValues = streamingEngine.map(inputStream, plan, true, collector);
+            }
+            boolean fullyStreamed = plan.isFullyStreamable();
+            if (!fullyStreamed) {
+                domEngine.mapHeader(document, plan, headerValues, true);
+                if (!plan.isLinesStreamable()) {
+                    domEngine.mapLines(document, plan, collector);
+                }
+            }
+            (fullyStreamed ? streamingCounter : mixedCounter).increment();
+            log.debug("Mapped {} via {} engine", source.getOriginalFilename(), fullyStreamed ? "StAX" : "mixed StAX/DOM");
+        } else {
+            headerValues = new String[plan.getHeaderRules().size()];
+            domEngine.mapHeader(document, plan, headerValues, false);
+            domEngine.mapLines(document, plan, collector);
+            domCounter.increment();
+        }
+
+        return new MappedDocument(plan, headerValues, lines);
+    }
+
+    /**
+     * Resolve the header rules of a fully streamable plan without building a DOM.
+     * Reading stops once every header value is known, which is usually well before the lines.
+     *
+     * @param source The original payload
+     * @param plan A plan for which {@link MappingPlan#isFullyStreamable()} holds
+     * @return Header values in plan slot order, with no line records
+     */
+    public MappedDocument mapHeader(MultipartFile source, MappingPlan plan) throws Exception {
+        requireFullyStreamable(plan);
+        try (InputStream inputStream = source.getInputStream()) {
+            String[] headerValues = streamingEngine.map(inputStream, plan, false, (index, values) -> { });
+            return new MappedDocument(plan, headerValues, List.of());
+        }
+    }
+
+    /**
+     * Stream the line records of a fully streamable plan without building a DOM or collecting the lines.
+     *
+     * @param source The original payload
+     * @param plan A plan for which {@link MappingPlan#isFullyStreamable()} holds
+     * @param lineHandler Receives each line record as soon as its element closes
+     * @return The number of line records handed to the handler
+     */
+    public int streamLines(MultipartFile source, MappingPlan plan, LineRecordHandler lineHandler) throws Exception {
+        requireFullyStreamable(plan);
+        int[] lineCount = new int[1];
+        try (InputStream inputStream = source.getInputStream()) {
+            streamingEngine.map(inputStream, plan, true, (index, values) -> {
+                lineCount[0]++;
+                lineHandler.onLine(index, values);
+            });
+        }
+        streamingCounter.increment();
+        return lineCount[0];
+    }
+
+    private static void requireFullyStreamable(MappingPlan plan) {
+        if (!plan.isFullyStreamable()) {
+            throw new IllegalStateException("Mapping plan uses XPath features that need a DOM");
+        }
+    }
+}
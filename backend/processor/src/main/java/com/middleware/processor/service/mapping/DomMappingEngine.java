@@ -0,0 +1,95 @@
+package com.middleware.processor.service.mapping;
+
+import com.middleware.processor.service.util.CompiledXPath;
+import com.middleware.processor.service.util.XmlProcessor;
+import com.middleware.shared.model.MappingRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.util.List;
+
+/**
+ * Resolves a {@link MappingPlan} against a parsed DOM with full XPath support.
+ * Used for rules whose source paths fall outside the streaming subset, and for
+ * every rule when streaming is disabled.
+ */
+@Component
+public class DomMappingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DomMappingEngine.class);
+
+    private final XmlProcessor xmlProcessor;
+
+    public DomMappingEngine(XmlProcessor xmlProcessor) {
+        this.xmlProcessor = xmlProcessor;
+    }
+
+    /**
+     * Evaluate header rules against the document.
+     *
+     * @param document The parsed XML document
+     * @param plan The compiled mapping plan
+     * @param headerValues Header values in slot order, filled in place
+     * @param skipStreamable Whether to leave slots already resolved by the streaming engine untouched
+     */
+    public void mapHeader(Document document, MappingPlan plan, String[] headerValues, boolean skipStreamable) throws XPathExpressionException {
+        List<MappingRule> headerRules = plan.getHeaderRules();
+        for (int slot = 0; slot < headerRules.size(); slot++) {
+            if (skipStreamable && plan.isHeaderStreamable(slot)) {
+                continue;
+            }
+            // Evaluate XPath relative to the document root for header fields
+            CompiledXPath sourceXPath = xmlProcessor.compileXPath(document, headerRules.get(slot).getSourceField());
+            headerValues[slot] = xmlProcessor.evaluateXPath(document, sourceXPath);
+        }
+    }
+
+    /**
+     * Evaluate line rules for every line element of the document.
+     *
+     * @param document The parsed XML document
+     * @param plan The compiled mapping plan
+     * @param lineHandler Receives the values of each line element in document order
+     */
+    public void mapLines(Document document, MappingPlan plan, LineRecordHandler lineHandler) throws Exception {
+        if (plan.getLineRules().isEmpty()) {
+            return;
+        }
+
+        // Line rule XPaths are compiled once per document rather than once per line
+        List<String> relativePaths = plan.getLineRelativePaths();
+        CompiledXPath[] lineXPaths = new CompiledXPath[relativePaths.size()];
+        for (int slot = 0; slot < lineXPaths.length; slot++) {
+            try {
+                lineXPaths[slot] = xmlProcessor.compileXPath(document, relativePaths.get(slot));
+            } catch (XPathExpressionException e) {
+                log.warn("Skipping line rule {}: invalid XPath '{}': {}",
+                    plan.getLineRules().get(slot).getName(), relativePaths.get(slot), e.getMessage());
+            }
+        }
+
+        String lineNodePath = plan.getLineNodePath();
+        NodeList lineNodes = xmlProcessor.evaluateXPathForNodes(document, xmlProcessor.compileXPath(document, lineNodePath));
+        log.debug("Found {} line nodes using XPath: {}", lineNodes.getLength(), lineNodePath);
+
+        int lineIndex = 0;
+        for (int i = 0; i < lineNodes.getLength(); i++) {
+            if (!(lineNodes.item(i) instanceof Element lineElement)) {
+                log.warn("Skipping non-element node found at index {} for XPath {}", i, lineNodePath);
+                continue;
+            }
+            String[] values = new String[lineXPaths.length];
+            for (int slot = 0; slot < lineXPaths.length; slot++) {
+                if (lineXPaths[slot] != null) {
+                    values[slot] = xmlProcessor.evaluateXPath(lineElement, lineXPaths[slot]);
+                }
+            }
+            lineHandler.onLine(lineIndex++, values);
+        }
+    }
+}
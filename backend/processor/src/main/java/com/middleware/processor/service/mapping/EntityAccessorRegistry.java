@@ -0,0 +1,178 @@
+package com.middleware.processor.service.mapping;
+
+import jakarta.persistence.Column;
+import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Field accessors of the entities populated by mapping rules.
+ * The fields of an entity class, including inherited ones, are resolved once into their type,
+ * nullability and a setter {@link MethodHandle}; mapping rule target names (snake_case column
+ * names or camelCase field names) are resolved once per class and name. Populating an entity
+ * then does no reflective lookups.
+ */
+@Component
+public class EntityAccessorRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityAccessorRegistry.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Map<Class<?>, ClassAccessors> accessorsByClass = new ConcurrentHashMap<>();
+
+    /**
+     * Get the accessor for a mapping rule target field.
+     *
+     * @param entityClass The entity class
+     * @param dbFieldName The target field, as a snake_case column name or a field name
+     * @return The accessor
+     * @throws NoSuchFieldException If neither the class nor its superclasses declare the field
+     */
+    public FieldAccessor getAccessor(Class<?> entityClass, String dbFieldName) throws NoSuchFieldException {
+        ClassAccessors accessors = accessorsByClass.computeIfAbsent(entityClass, ClassAccessors::new);
+        Optional<FieldAccessor> accessor = accessors.byTargetName.computeIfAbsent(dbFieldName,
+            name -> Optional.ofNullable(accessors.byFieldName.get(convertDbNameToCamelCase(name))));
+        if (accessor.isEmpty()) {
+            throw new NoSuchFieldException("Field '" + convertDbNameToCamelCase(dbFieldName) + "' (derived from '" + dbFieldName +
+                    "') not found in class " + entityClass.getName() + " or its superclasses.");
+        }
+        return accessor.get();
+    }
+
+    /** Converts snake_case or simple names to camelCase. */
+    static String convertDbNameToCamelCase(String dbName) {
+        if (dbName == null || dbName.isEmpty()) {
+            return dbName;
+        }
+        // If no underscore, assume it's already camelCase or a simple name
+        if (!dbName.contains("_")) {
+             // Handle potential all-caps names from DB
+             if (dbName.toUpperCase().equals(dbName)) {
+                 return dbName.toLowerCase();
+             }
+             // Assume it's correct or simple name
+             return dbName;
+        }
+
+        StringBuilder camelCaseName = new StringBuilder();
+        boolean capitalizeNext = false;
+        for (char c : dbName.toLowerCase().toCharArray()) {
+            if (c == '_') {
+                capitalizeNext = true;
+            } else {
+                if (capitalizeNext) {
+                    camelCaseName.append(Character.toUpperCase(c));
+                    capitalizeNext = false;
+                } else {
+                    camelCaseName.append(c);
+                }
+            }
+        }
+        return camelCaseName.toString();
+    }
+
+    /**
+     * Accessors of one entity class.
+     */
+    private static final class ClassAccessors {
+        private final Map<String, FieldAccessor> byFieldName = new HashMap<>();
+        private final Map<String, Optional<FieldAccessor>> byTargetName = new ConcurrentHashMap<>();
+
+        ClassAccessors(Class<?> entityClass) {
+            // Walk from the class upwards so a field hides a superclass field of the same name
+            for (Class<?> current = entityClass; current != null && current != Object.class; current = current.getSuperclass()) {
+                MethodHandles.Lookup lookup;
+                try {
+                    lookup = MethodHandles.privateLookupIn(current, MethodHandles.lookup());
+                } catch (IllegalAccessException e) {
+                    log.warn("Cannot access fields of {}: {}", current.getName(), e.getMessage());
+                    continue;
+                }
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || byFieldName.containsKey(field.getName())) {
+                        continue;
+                    }
+                    try {
+                        MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                        byFieldName.put(field.getName(), new FieldAccessor(field.getName(), field.getType(), isNullable(field), setter));
+                    } catch (IllegalAccessException e) {
+                        // Final fields have no setter and are never mapping targets
+                        log.debug("No setter for field {} of {}: {}", field.getName(), current.getName(), e.getMessage());
+                    }
+                }
+            }
+            log.debug("Resolved {} field accessor(s) for {}", byFieldName.size(), entityClass.getName());
+        }
+
+        private static boolean isNullable(Field field) {
+            // Check for @NotNull annotation
+            if (field.isAnnotationPresent(NotNull.class)) {
+                return false;
+            }
+            // Check for @Column(nullable = false)
+            Column column = field.getAnnotation(Column.class);
+            return column == null || column.nullable();
+        }
+    }
+
+    /**
+     * Precomputed type, nullability and setter of an entity field.
+     */
+    public static final class FieldAccessor {
+        private final String name;
+        private final Class<?> type;
+        private final boolean nullable;
+        private final MethodHandle setter;
+
+        FieldAccessor(String name, Class<?> type, boolean nullable, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.nullable = nullable;
+            this.setter = setter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        /**
+         * Set the field on an entity.
+         *
+         * @param entity The entity
+         * @param value The value; null is rejected for primitive fields
+         * @throws IllegalArgumentException If the value cannot be assigned to the field
+         */
+        public void set(Object entity, Object value) {
+            try {
+                setter.invokeExact(entity, value);
+            } catch (ClassCastException | NullPointerException e) {
+                throw new IllegalArgumentException("Can not set " + type.getName() + " field " + name + " to " +
+                        (value != null ? value.getClass().getName() : "null value"), e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Setting field " + name + " failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.middleware.processor.service.mapping;
+
+/**
+ * Receives the raw values of one line element, in the line slot order of the {@link MappingPlan}.
+ */
+@FunctionalInterface
+public interface LineRecordHandler {
+
+    /**
+     * @param lineIndex Zero-based position of the line element in the document
+     * @param values Raw value per line rule; null or empty when the rule's path matched nothing
+     */
+    void onLine(int lineIndex, String[] values) throws Exception;
+}
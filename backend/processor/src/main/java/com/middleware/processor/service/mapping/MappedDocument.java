@@ -0,0 +1,39 @@
+package com.middleware.processor.service.mapping;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Raw rule values extracted from one document, ready for the mapping step.
+ * Header values and line records are indexed by the slots of the {@link MappingPlan}.
+ */
+public final class MappedDocument {
+
+    private final MappingPlan plan;
+    private final String[] headerValues;
+    private final List<String[]> lines;
+
+    MappedDocument(MappingPlan plan, String[] headerValues, List<String[]> lines) {
+        this.plan = plan;
+        this.headerValues = headerValues;
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    public MappingPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Raw value of the header rule in the given slot; null or empty if its path matched nothing.
+     */
+    public String getHeaderValue(int slot) {
+        return headerValues[slot];
+    }
+
+    /**
+     * Line records in document order, each holding one raw value per line rule.
+     */
+    public List<String[]> getLines() {
+        return lines;
+    }
+}
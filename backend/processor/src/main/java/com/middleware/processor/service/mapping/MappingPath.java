@@ -0,0 +1,121 @@
+package com.middleware.processor.service.mapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A mapping rule source path reduced to the XPath subset the streaming engine can evaluate:
+ * a chain of element name steps, optionally anchored with a leading "//", ending in an element,
+ * an attribute ("@name") or "text()". Anything else (predicates, functions, axes, wildcards,
+ * unions) is rejected by {@link #parse(String)} and left to the DOM engine.
+ */
+final class MappingPath {
+
+    private static final Pattern QNAME = Pattern.compile("(?:[A-Za-z_][\\w.\\-]*:)?[A-Za-z_][\\w.\\-]*");
+    private static final String TEXT_STEP = "text()";
+
+    /** What the path selects once its last element step has matched. */
+    enum Target {
+        /** The string value of the element (all descendant text). */
+        ELEMENT,
+        /** The first text node child of the element. */
+        TEXT,
+        /** An attribute of the element. */
+        ATTRIBUTE
+    }
+
+    private final List<Step> steps;
+    private final boolean descendant;
+    private final Target target;
+    private final Step attribute;
+
+    private MappingPath(List<Step> steps, boolean descendant, Target target, Step attribute) {
+        this.steps = steps;
+        this.descendant = descendant;
+        this.target = target;
+        this.attribute = attribute;
+    }
+
+    /**
+     * Parse a source path.
+     *
+     * @param expression The XPath expression from the mapping rule
+     * @return The parsed path, or null if the expression needs a full XPath engine
+     */
+    static MappingPath parse(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        String path = expression.trim();
+        if (path.isEmpty() || path.equals("/") || path.equals("//")) {
+            return null;
+        }
+
+        boolean descendant = false;
+        if (path.startsWith("//")) {
+            descendant = true;
+            path = path.substring(2);
+        } else if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+
+        String[] segments = path.split("/", -1);
+        List<Step> steps = new ArrayList<>(segments.length);
+        Target target = Target.ELEMENT;
+        Step attribute = null;
+
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (last && segment.equals(TEXT_STEP)) {
+                target = Target.TEXT;
+            } else if (last && segment.startsWith("@") && QNAME.matcher(segment.substring(1)).matches()) {
+                target = Target.ATTRIBUTE;
+                attribute = Step.of(segment.substring(1));
+            } else if (QNAME.matcher(segment).matches()) {
+                steps.add(Step.of(segment));
+            } else {
+                // Empty segment ("a//b"), predicate, function, axis, wildcard, "." or ".."
+                return null;
+            }
+        }
+
+        if (descendant && steps.isEmpty()) {
+            // "//@id" or "//text()" select across the whole document
+            return null;
+        }
+        return new MappingPath(Collections.unmodifiableList(steps), descendant, target, attribute);
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    boolean isDescendant() {
+        return descendant;
+    }
+
+    Target getTarget() {
+        return target;
+    }
+
+    Step getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * A single name test. An empty prefix matches elements in no namespace, as in XPath 1.0.
+     */
+    record Step(String prefix, String localName) {
+
+        static Step of(String qualifiedName) {
+            int colon = qualifiedName.indexOf(':');
+            if (colon < 0) {
+                return new Step("", qualifiedName);
+            }
+            return new Step(qualifiedName.substring(0, colon), qualifiedName.substring(colon + 1));
+        }
+    }
+}
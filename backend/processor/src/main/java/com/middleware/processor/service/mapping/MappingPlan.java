@@ -0,0 +1,269 @@
+package com.middleware.processor.service.mapping;
+
+import com.middleware.processor.exception.ValidationException;
+import com.middleware.shared.model.MappingRule;
+import com.middleware.shared.model.TargetLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiled form of the active mapping rules of an interface.
+ * Header and line rules keep their original order and are addressed by slot index; the
+ * source paths the streaming engine can evaluate are merged into path tries so a single
+ * pass over the document resolves every rule. Paths outside the supported subset keep
+ * a null {@link MappingPath} and are evaluated by {@link DomMappingEngine} instead.
+ * Each rule is also bound to its target entity field, see {@link RuleBinding}.
+ * Plans are immutable and shared between documents through {@link MappingPlanCache}.
+ */
+public final class MappingPlan {
+
+    private static final Logger log = LoggerFactory.getLogger(MappingPlan.class);
+
+    private final List<MappingRule> headerRules;
+    private final List<MappingRule> lineRules;
+    private final List<RuleBinding> headerBindings;
+    private final List<RuleBinding> lineBindings;
+    private final List<String> lineRelativePaths;
+    private final String lineNodePath;
+
+    private final MappingPath[] headerPaths;
+    private final int streamableHeaderCount;
+    private final boolean linesStreamable;
+
+    private final TrieNode documentTrie = new TrieNode();
+    private final TrieNode descendantTrie = new TrieNode();
+    private final TrieNode lineTrie = new TrieNode();
+
+    private MappingPlan(List<MappingRule> headerRules, List<MappingRule> lineRules, String lineNodePath,
+                        Function<MappingRule, RuleBinding> headerBinder, Function<MappingRule, RuleBinding> lineBinder) {
+        this.headerRules = Collections.unmodifiableList(headerRules);
+        this.lineRules = Collections.unmodifiableList(lineRules);
+        this.lineNodePath = lineNodePath;
+        this.headerBindings = headerRules.stream().map(headerBinder).toList();
+        this.lineBindings = lineRules.stream().map(lineBinder).toList();
+
+        List<String> relativePaths = new ArrayList<>(lineRules.size());
+        for (MappingRule rule : lineRules) {
+            relativePaths.add(getRelativeXPath(rule.getSourceField()));
+        }
+        this.lineRelativePaths = Collections.unmodifiableList(relativePaths);
+
+        this.headerPaths = new MappingPath[headerRules.size()];
+        int streamable = 0;
+        for (int slot = 0; slot < headerRules.size(); slot++) {
+            MappingPath path = MappingPath.parse(headerRules.get(slot).getSourceField());
+            // Header paths are evaluated against the document node, so they need at least one element step
+            if (path != null && !path.getSteps().isEmpty()) {
+                headerPaths[slot] = path;
+                insert(path, slot, false);
+                streamable++;
+            }
+        }
+        this.streamableHeaderCount = streamable;
+
+        this.linesStreamable = compileLinePaths();
+    }
+
+    /**
+     * Compile the mapping rules of an interface into a plan.
+     *
+     * @param allRules The active mapping rules of the interface
+     * @param defaultLineNodePath Line node XPath to use when it cannot be derived from the line rules
+     * @param headerBinder Binds a header rule to the header entity
+     * @param lineBinder Binds a line rule to the line entity
+     * @return The compiled plan
+     */
+    public static MappingPlan compile(List<MappingRule> allRules, String defaultLineNodePath,
+                                      Function<MappingRule, RuleBinding> headerBinder, Function<MappingRule, RuleBinding> lineBinder) {
+        List<MappingRule> headerRules = new ArrayList<>();
+        List<MappingRule> lineRules = new ArrayList<>();
+        for (MappingRule rule : allRules) {
+            if (rule.getTargetLevel() == TargetLevel.HEADER) {
+                headerRules.add(rule);
+            } else if (rule.getTargetLevel() == TargetLevel.LINE) {
+                if (rule.getSourceField() == null) {
+                    log.warn("Skipping line rule {} because source field is not defined.", rule.getName());
+                    continue;
+                }
+                lineRules.add(rule);
+            }
+        }
+        String lineNodePath = lineRules.isEmpty() ? null : determineLineNodeXPath(lineRules, defaultLineNodePath);
+        return new MappingPlan(headerRules, lineRules, lineNodePath, headerBinder, lineBinder);
+    }
+
+    private boolean compileLinePaths() {
+        if (lineRules.isEmpty()) {
+            return true;
+        }
+        MappingPath linePath = MappingPath.parse(lineNodePath);
+        if (linePath == null || linePath.getSteps().isEmpty() || linePath.getTarget() != MappingPath.Target.ELEMENT) {
+            log.debug("Line node XPath {} is not streamable", lineNodePath);
+            return false;
+        }
+
+        MappingPath[] linePaths = new MappingPath[lineRules.size()];
+        for (int slot = 0; slot < lineRules.size(); slot++) {
+            String relativePath = lineRelativePaths.get(slot);
+            // A leading slash would make the expression absolute rather than relative to the line
+            MappingPath path = relativePath.startsWith("/") ? null : MappingPath.parse(relativePath);
+            if (path == null) {
+                log.debug("Line rule {} uses non-streamable XPath {}", lineRules.get(slot).getName(), relativePath);
+                return false;
+            }
+            linePaths[slot] = path;
+        }
+
+        TrieNode lineNode = insertSteps(linePath.isDescendant() ? descendantTrie : documentTrie, linePath);
+        lineNode.lineNode = true;
+        for (int slot = 0; slot < linePaths.length; slot++) {
+            insert(linePaths[slot], slot, true);
+        }
+        return true;
+    }
+
+    private void insert(MappingPath path, int slot, boolean line) {
+        TrieNode root = line ? lineTrie : (path.isDescendant() ? descendantTrie : documentTrie);
+        insertSteps(root, path).captures.add(new Capture(slot, path.getTarget(), path.getAttribute()));
+    }
+
+    private static TrieNode insertSteps(TrieNode root, MappingPath path) {
+        TrieNode node = root;
+        for (MappingPath.Step step : path.getSteps()) {
+            node = node.children.computeIfAbsent(step, s -> new TrieNode());
+        }
+        return node;
+    }
+
+    /**
+     * Extracts the relative path from a full XPath, assuming the last segment is the field name.
+     * Basic implementation - might need refinement based on actual XPath structures.
+     */
+    static String getRelativeXPath(String fullXPath) {
+        if (fullXPath == null) return null;
+        int lastSlash = fullXPath.lastIndexOf("/");
+        if (lastSlash >= 0 && lastSlash < fullXPath.length() - 1) {
+            return fullXPath.substring(lastSlash + 1);
+        }
+        return fullXPath; // Return full path if no slash or it's the last char
+    }
+
+    /** Helper to determine the XPath for line nodes: the parent path of the first line rule. */
+    private static String determineLineNodeXPath(List<MappingRule> lineRules, String defaultPath) {
+        String sourceField = lineRules.get(0).getSourceField();
+        int lastSlash = sourceField.lastIndexOf('/');
+        // Basic check to avoid returning root or empty path
+        String path = (lastSlash > 0) ? sourceField.substring(0, lastSlash) : defaultPath;
+        if (path == null || path.trim().isEmpty()) {
+            log.error("Could not determine a valid XPath for line nodes. Default path was also empty/null.");
+            throw new ValidationException("Unable to determine XPath for line items. Check mapping rules or provide a default path.");
+        }
+        return path;
+    }
+
+    public List<MappingRule> getHeaderRules() {
+        return headerRules;
+    }
+
+    public List<MappingRule> getLineRules() {
+        return lineRules;
+    }
+
+    /**
+     * Header rules bound to the header entity, in header slot order.
+     */
+    public List<RuleBinding> getHeaderBindings() {
+        return headerBindings;
+    }
+
+    /**
+     * Line rules bound to the line entity, in line slot order.
+     */
+    public List<RuleBinding> getLineBindings() {
+        return lineBindings;
+    }
+
+    /**
+     * XPath of each line rule relative to its line element, in line slot order.
+     */
+    public List<String> getLineRelativePaths() {
+        return lineRelativePaths;
+    }
+
+    /**
+     * XPath selecting the line elements, or null when the plan has no line rules.
+     */
+    public String getLineNodePath() {
+        return lineNodePath;
+    }
+
+    /**
+     * Whether the header rule in the given slot can be resolved by the streaming engine.
+     */
+    public boolean isHeaderStreamable(int slot) {
+        return headerPaths[slot] != null;
+    }
+
+    /**
+     * Number of header rules the streaming engine can resolve.
+     */
+    public int getStreamableHeaderCount() {
+        return streamableHeaderCount;
+    }
+
+    /**
+     * Whether the line node path and every line rule can be resolved by the streaming engine.
+     */
+    public boolean isLinesStreamable() {
+        return linesStreamable;
+    }
+
+    /**
+     * Whether every rule of the plan can be resolved without a DOM.
+     */
+    public boolean isFullyStreamable() {
+        return linesStreamable && streamableHeaderCount == headerRules.size();
+    }
+
+    /**
+     * Whether the streaming engine has anything to resolve for this plan.
+     */
+    public boolean hasStreamableRules() {
+        return streamableHeaderCount > 0 || (linesStreamable && !lineRules.isEmpty());
+    }
+
+    TrieNode getDocumentTrie() {
+        return documentTrie;
+    }
+
+    TrieNode getDescendantTrie() {
+        return descendantTrie;
+    }
+
+    TrieNode getLineTrie() {
+        return lineTrie;
+    }
+
+    /**
+     * Trie node for one element step. Children are keyed by the step as written in the rule;
+     * captures are the rule slots whose path ends at this node.
+     */
+    static final class TrieNode {
+        final Map<MappingPath.Step, TrieNode> children = new HashMap<>();
+        final List<Capture> captures = new ArrayList<>();
+        boolean lineNode;
+    }
+
+    /**
+     * A rule slot resolved at a trie node.
+     */
+    record Capture(int slot, MappingPath.Target target, MappingPath.Step attribute) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.middleware.processor.service.mapping;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.middleware.processor.config.XmlMappingConfig;
+import com.middleware.processor.service.util.TransformationService;
+import com.middleware.shared.model.Interface;
+import com.middleware.shared.model.MappingRule;
+import com.middleware.shared.repository.MappingRuleRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled mapping plans per interface.
+ * A plan is compiled from the interface's active rules on first use and shared by every document
+ * of the interface until the rules change. Concurrent requests for a missing plan wait for a
+ * single compilation. Each interface has a generation that is part of the cache key and is
+ * bumped on invalidation, so a compilation that read the old rules while they were being changed
+ * can never be served afterwards; invalidation inside a transaction is repeated after commit.
+ */
+@Component
+public class MappingPlanCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MappingPlanCache.class);
+
+    private final MappingRuleRepository mappingRuleRepository;
+    private final EntityAccessorRegistry accessorRegistry;
+    private final TransformationService transformationService;
+    private final Cache<PlanKey, MappingPlan> plans;
+
+    private final Map<Long, Long> interfaceGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    private final Timer compileTimer;
+
+    public MappingPlanCache(XmlMappingConfig config,
+                            MappingRuleRepository mappingRuleRepository,
+                            EntityAccessorRegistry accessorRegistry,
+                            TransformationService transformationService,
+                            MeterRegistry registry) {
+        this.mappingRuleRepository = mappingRuleRepository;
+        this.accessorRegistry = accessorRegistry;
+        this.transformationService = transformationService;
+        this.plans = CacheBuilder.newBuilder()
+            .maximumSize(config.getPlanCacheMaxSize())
+            .expireAfterWrite(config.getPlanCacheTtlSeconds(), TimeUnit.SECONDS)
+            .build();
+
+        this.compileTimer = Timer.builder("xml.mapping.plan.compile")
+            .description("Time spent loading and compiling the mapping rules of an interface")
+            .register(registry);
+        Gauge.builder("xml.mapping.plan.cache.size", plans, Cache::size)
+            .description("Number of compiled mapping plans currently cached")
+            .register(registry);
+    }
+
+    /**
+     * Get the mapping plan of an interface, compiling it on first use or after its rules changed.
+     *
+     * @param interfaceId The interface id
+     * @param target The document type and entity classes the plan populates
+     * @return The compiled plan
+     */
+    public MappingPlan getPlan(Long interfaceId, Target target) {
+        PlanKey key = new PlanKey(interfaceId, target, globalGeneration.get(), interfaceGenerations.getOrDefault(interfaceId, 0L));
+        try {
+            return plans.get(key, () -> compile(interfaceId, target));
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to compile mapping plan of interface " + interfaceId, e.getCause());
+        }
+    }
+
+    private MappingPlan compile(Long interfaceId, Target target) {
+        long start = System.nanoTime();
+        List<MappingRule> rules = mappingRuleRepository.findByInterfaceIdAndIsActiveTrue(interfaceId);
+        MappingPlan plan = MappingPlan.compile(rules, target.defaultLineNodeXPath(),
+            rule -> RuleBinding.bind(rule, target.headerClass(), accessorRegistry, transformationService),
+            rule -> RuleBinding.bind(rule, target.lineClass(), accessorRegistry, transformationService));
+        compileTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Compiled {} mapping plan for interface {}: {} header rule(s), {} line rule(s)",
+            target.documentType(), interfaceId, plan.getHeaderRules().size(), plan.getLineRules().size());
+        return plan;
+    }
+
+    /**
+     * Drop the plan of an interface after its mapping rules changed.
+     *
+     * @param interfaceId The interface id, or null if unknown, which drops every plan
+     */
+    public void invalidate(Long interfaceId) {
+        if (interfaceId == null) {
+            invalidateAll();
+            return;
+        }
+        evict(interfaceId);
+        afterCommit(() -> evict(interfaceId));
+    }
+
+    /**
+     * Drop the plan a mapping rule belongs to after the rule was created, changed or deleted.
+     *
+     * @param rule The mapping rule
+     */
+    public void invalidate(MappingRule rule) {
+        Interface interfaceEntity = rule.getInterfaceEntity();
+        invalidate(interfaceEntity != null ? interfaceEntity.getId() : rule.getInterfaceId());
+    }
+
+    /**
+     * Drop every plan, e.g. after rules of unknown interfaces were changed.
+     */
+    public void invalidateAll() {
+        evictAll();
+        afterCommit(this::evictAll);
+    }
+
+    private void evict(Long interfaceId) {
+        interfaceGenerations.merge(interfaceId, 1L, Long::sum);
+        plans.asMap().keySet().removeIf(key -> key.interfaceId().equals(interfaceId));
+        log.debug("Invalidated mapping plan of interface {}", interfaceId);
+    }
+
+    private void evictAll() {
+        globalGeneration.incrementAndGet();
+        plans.invalidateAll();
+        log.debug("Invalidated all mapping plans");
+    }
+
+    /**
+     * Repeat an eviction once the surrounding transaction commits, so documents processed while
+     * the rule change was uncommitted cannot leave a plan compiled from the old rules behind.
+     */
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * What a plan is compiled for: the strategy's document type, its fallback line node XPath
+     * and the header and line entity classes the rules are bound to.
+     */
+    public record Target(String documentType, String defaultLineNodeXPath, Class<?> headerClass, Class<?> lineClass) {
+    }
+
+    private record PlanKey(Long interfaceId, Target target, long globalGeneration, long interfaceGeneration) {
+    }
+}
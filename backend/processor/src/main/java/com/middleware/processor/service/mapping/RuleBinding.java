@@ -0,0 +1,95 @@
+package com.middleware.processor.service.mapping;
+
+import com.middleware.processor.service.mapping.EntityAccessorRegistry.FieldAccessor;
+import com.middleware.processor.service.util.TransformationService;
+import com.middleware.shared.model.MappingRule;
+
+/**
+ * A mapping rule resolved against the entity class it populates.
+ * Holds the target field accessor and the transformation pipeline for the field's type, so
+ * applying the rule to a value needs no lookups. A rule whose target field does not exist
+ * keeps the lookup failure and reports it each time the rule is applied.
+ */
+public final class RuleBinding {
+
+    private final MappingRule rule;
+    private final Class<?> entityClass;
+    private final FieldAccessor accessor;
+    private final String missingFieldMessage;
+    private final TransformationService.Pipeline pipeline;
+    private final boolean required;
+
+    private RuleBinding(MappingRule rule, Class<?> entityClass, FieldAccessor accessor, String missingFieldMessage,
+                        TransformationService.Pipeline pipeline) {
+        this.rule = rule;
+        this.entityClass = entityClass;
+        this.accessor = accessor;
+        this.missingFieldMessage = missingFieldMessage;
+        this.pipeline = pipeline;
+        this.required = Boolean.TRUE.equals(rule.getRequired());
+    }
+
+    /**
+     * Resolve a rule against an entity class.
+     *
+     * @param rule The mapping rule
+     * @param entityClass The entity class the rule populates
+     * @param accessorRegistry Source of the target field accessor
+     * @param transformationService Source of the transformation pipeline
+     * @return The binding
+     */
+    static RuleBinding bind(MappingRule rule, Class<?> entityClass, EntityAccessorRegistry accessorRegistry,
+                            TransformationService transformationService) {
+        String targetField = rule.getTargetField();
+        if (targetField == null || targetField.trim().isEmpty()) {
+            return new RuleBinding(rule, entityClass, null, null, null);
+        }
+        try {
+            FieldAccessor accessor = accessorRegistry.getAccessor(entityClass, targetField);
+            return new RuleBinding(rule, entityClass, accessor, null,
+                transformationService.getPipeline(rule.getTransformation(), accessor.getType()));
+        } catch (NoSuchFieldException e) {
+            return new RuleBinding(rule, entityClass, null, e.getMessage(), null);
+        }
+    }
+
+    public MappingRule getRule() {
+        return rule;
+    }
+
+    /**
+     * The entity class the accessor and pipeline were resolved for.
+     */
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Whether the rule names a target field at all.
+     */
+    public boolean hasTargetField() {
+        return accessor != null || missingFieldMessage != null;
+    }
+
+    /**
+     * @return The target field accessor
+     * @throws NoSuchFieldException If the entity class has no such field
+     */
+    public FieldAccessor getAccessor() throws NoSuchFieldException {
+        if (accessor == null) {
+            throw new NoSuchFieldException(missingFieldMessage);
+        }
+        return accessor;
+    }
+
+    /**
+     * The transformation pipeline for the target field's type, or null if the field does not exist.
+     */
+    public TransformationService.Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+}
@@ -0,0 +1,358 @@
+package com.middleware.processor.service.mapping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the streamable rules of a {@link MappingPlan} in a single StAX pass.
+ * Each open element carries the trie nodes it matched; header values are collected as
+ * the document is read and each line element is handed to a {@link LineRecordHandler}
+ * as soon as it closes. Values follow XPath string semantics: the first matching node
+ * in document order wins, elements yield their full text content and "text()" yields
+ * the first text node child.
+ */
+@Component
+public class StreamingMappingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingMappingEngine.class);
+
+    private final XMLInputFactory inputFactory;
+
+    public StreamingMappingEngine() {
+        this.inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false); // Security: Disallow DTDs
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false); // Security: Disable external entities
+    }
+
+    /**
+     * Stream a document through the plan.
+     *
+     * @param inputStream The XML content
+     * @param plan The compiled mapping plan
+     * @param includeLines Whether to resolve line records; only honoured if the plan's lines are streamable.
+     *                     Without lines the pass stops as soon as every streamable header rule is resolved.
+     * @param lineHandler Receives each line record as soon as its element closes
+     * @return Header values in header slot order; slots the streaming engine cannot resolve are null
+     */
+    public String[] map(InputStream inputStream, MappingPlan plan, boolean includeLines, LineRecordHandler lineHandler) throws Exception {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+        try {
+            Pass pass = new Pass(plan, includeLines && plan.isLinesStreamable(), lineHandler);
+            while (reader.hasNext() && !(pass.headerOnly() && pass.headerComplete())) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> pass.startElement(reader);
+                    case XMLStreamConstants.END_ELEMENT -> pass.endElement();
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> pass.text(reader);
+                    case XMLStreamConstants.COMMENT, XMLStreamConstants.PROCESSING_INSTRUCTION -> pass.splitText();
+                    case XMLStreamConstants.DTD -> throw new XMLStreamException("DOCTYPE is disallowed", reader.getLocation());
+                    default -> {
+                        // Document start/end and entity declarations carry no mapped values
+                    }
+                }
+            }
+            log.debug("Streamed document with {} line records", pass.lineCount);
+            return pass.headerValues;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * State of one pass over a document.
+     */
+    private static final class Pass {
+
+        private final MappingPlan plan;
+        private final boolean includeLines;
+        private final LineRecordHandler lineHandler;
+
+        private final String[] headerValues;
+        private final BitSet headerClaimed;
+
+        // First binding seen for each prefix, mirroring XmlProcessor#getDocumentNamespaces
+        private final Map<String, String> prefixToUri = new HashMap<>();
+        private final Map<String, List<String>> uriToPrefixes = new HashMap<>();
+
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final List<TextCapture> captures = new ArrayList<>();
+
+        private String[] lineValues;
+        private BitSet lineClaimed;
+        private int lineCount;
+        private int resolvedHeaders;
+
+        Pass(MappingPlan plan, boolean includeLines, LineRecordHandler lineHandler) {
+            this.plan = plan;
+            this.includeLines = includeLines;
+            this.lineHandler = lineHandler;
+            this.headerValues = new String[plan.getHeaderRules().size()];
+            this.headerClaimed = new BitSet(headerValues.length);
+            frames.push(new Frame(List.of(plan.getDocumentTrie()), List.of(), false));
+        }
+
+        void startElement(XMLStreamReader reader) {
+            registerNamespaces(reader);
+
+            // A child element ends the first text node of a text() capture on its parent
+            splitText();
+
+            Frame parent = frames.peek();
+            String localName = reader.getLocalName();
+            String uri = nullToEmpty(reader.getNamespaceURI());
+
+            List<MappingPlan.TrieNode> headerNodes = new ArrayList<>(2);
+            for (MappingPlan.TrieNode node : parent.headerNodes) {
+                match(node, localName, uri, headerNodes);
+            }
+            match(plan.getDescendantTrie(), localName, uri, headerNodes);
+
+            List<MappingPlan.TrieNode> lineNodes = new ArrayList<>(1);
+            for (MappingPlan.TrieNode node : parent.lineNodes) {
+                match(node, localName, uri, lineNodes);
+            }
+
+            boolean lineStart = false;
+            if (includeLines && lineValues == null) {
+                for (MappingPlan.TrieNode node : headerNodes) {
+                    if (node.lineNode) {
+                        lineStart = true;
+                        lineValues = new String[plan.getLineRules().size()];
+                        lineClaimed = new BitSet(lineValues.length);
+                        // Line rules are relative to the line element itself
+                        lineNodes.add(plan.getLineTrie());
+                        break;
+                    }
+                }
+            }
+
+            int depth = frames.size();
+            for (MappingPlan.TrieNode node : headerNodes) {
+                applyCaptures(node, reader, depth, headerValues, headerClaimed);
+            }
+            if (lineValues != null) {
+                for (MappingPlan.TrieNode node : lineNodes) {
+                    applyCaptures(node, reader, depth, lineValues, lineClaimed);
+                }
+            }
+
+            frames.push(new Frame(headerNodes, lineNodes, lineStart));
+        }
+
+        void endElement() throws Exception {
+            int depth = frames.size() - 1;
+            for (int i = captures.size() - 1; i >= 0 && captures.get(i).depth == depth; i--) {
+                TextCapture capture = captures.remove(i);
+                String value = capture.complete();
+                if (value != null) {
+                    resolve(capture.values, capture.slot, value);
+                }
+            }
+            Frame frame = frames.pop();
+            if (frame.lineStart) {
+                String[] values = lineValues;
+                lineValues = null;
+                lineClaimed = null;
+                lineHandler.onLine(lineCount++, values);
+            }
+        }
+
+        boolean headerOnly() {
+            return !includeLines;
+        }
+
+        boolean headerComplete() {
+            return resolvedHeaders == plan.getStreamableHeaderCount();
+        }
+
+        private void resolve(String[] values, int slot, String value) {
+            values[slot] = value;
+            if (values == headerValues) {
+                resolvedHeaders++;
+            }
+        }
+
+        void text(XMLStreamReader reader) {
+            if (captures.isEmpty()) {
+                return;
+            }
+            int depth = frames.size() - 1;
+            String text = null;
+            for (TextCapture capture : captures) {
+                if (capture.accepts(depth)) {
+                    if (text == null) {
+                        text = reader.getText();
+                    }
+                    capture.append(text);
+                }
+            }
+        }
+
+        void splitText() {
+            int depth = frames.size() - 1;
+            for (TextCapture capture : captures) {
+                if (capture.firstTextOnly && capture.depth == depth && capture.value.length() > 0) {
+                    capture.closed = true;
+                }
+            }
+        }
+
+        private void registerNamespaces(XMLStreamReader reader) {
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                bind(nullToEmpty(reader.getNamespacePrefix(i)), nullToEmpty(reader.getNamespaceURI(i)));
+            }
+            bind(nullToEmpty(reader.getPrefix()), nullToEmpty(reader.getNamespaceURI()));
+        }
+
+        private void bind(String prefix, String uri) {
+            // Unprefixed name tests only ever match elements in no namespace, so the default namespace is not bound
+            if (prefix.isEmpty() || uri.isEmpty() || prefixToUri.putIfAbsent(prefix, uri) != null) {
+                return;
+            }
+            uriToPrefixes.computeIfAbsent(uri, u -> new ArrayList<>(1)).add(prefix);
+        }
+
+        private void match(MappingPlan.TrieNode node, String localName, String uri, List<MappingPlan.TrieNode> matches) {
+            if (node.children.isEmpty()) {
+                return;
+            }
+            if (uri.isEmpty()) {
+                addIfPresent(node.children.get(new MappingPath.Step("", localName)), matches);
+                return;
+            }
+            List<String> prefixes = uriToPrefixes.get(uri);
+            if (prefixes != null) {
+                for (String prefix : prefixes) {
+                    addIfPresent(node.children.get(new MappingPath.Step(prefix, localName)), matches);
+                }
+            }
+        }
+
+        private static void addIfPresent(MappingPlan.TrieNode node, List<MappingPlan.TrieNode> matches) {
+            if (node != null && !matches.contains(node)) {
+                matches.add(node);
+            }
+        }
+
+        private void applyCaptures(MappingPlan.TrieNode node, XMLStreamReader reader, int depth, String[] values, BitSet claimed) {
+            for (MappingPlan.Capture capture : node.captures) {
+                int slot = capture.slot();
+                if (claimed.get(slot)) {
+                    continue;
+                }
+                switch (capture.target()) {
+                    case ATTRIBUTE -> {
+                        String value = attributeValue(reader, capture.attribute());
+                        if (value != null) {
+                            claimed.set(slot);
+                            resolve(values, slot, value);
+                        }
+                    }
+                    case ELEMENT -> {
+                        // The first matching element wins even if it turns out to be empty
+                        claimed.set(slot);
+                        captures.add(new TextCapture(depth, false, values, claimed, slot));
+                    }
+                    case TEXT -> {
+                        if (!hasPendingCapture(values, slot)) {
+                            captures.add(new TextCapture(depth, true, values, claimed, slot));
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean hasPendingCapture(String[] values, int slot) {
+            for (TextCapture capture : captures) {
+                if (capture.values == values && capture.slot == slot) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String attributeValue(XMLStreamReader reader, MappingPath.Step attribute) {
+            String expectedUri = attribute.prefix().isEmpty() ? "" : prefixToUri.get(attribute.prefix());
+            if (expectedUri == null) {
+                return null;
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                if (attribute.localName().equals(reader.getAttributeLocalName(i))
+                        && expectedUri.equals(nullToEmpty(reader.getAttributeNamespace(i)))) {
+                    return reader.getAttributeValue(i);
+                }
+            }
+            return null;
+        }
+
+        private static String nullToEmpty(String value) {
+            return value == null ? XMLConstants.NULL_NS_URI : value;
+        }
+    }
+
+    /**
+     * Trie nodes matched by an open element.
+     */
+    private record Frame(List<MappingPlan.TrieNode> headerNodes, List<MappingPlan.TrieNode> lineNodes, boolean lineStart) {
+    }
+
+    /**
+     * Text being collected for one rule slot while its element is open.
+     */
+    private static final class TextCapture {
+        private final int depth;
+        private final boolean firstTextOnly;
+        private final String[] values;
+        private final BitSet claimed;
+        private final int slot;
+        private final StringBuilder value = new StringBuilder();
+        private boolean closed;
+
+        TextCapture(int depth, boolean firstTextOnly, String[] values, BitSet claimed, int slot) {
+            this.depth = depth;
+            this.firstTextOnly = firstTextOnly;
+            this.values = values;
+            this.claimed = claimed;
+            this.slot = slot;
+        }
+
+        boolean accepts(int textDepth) {
+            return !firstTextOnly || (textDepth == depth && !closed);
+        }
+
+        void append(String text) {
+            value.append(text);
+        }
+
+        /**
+         * @return The value for the slot, or null if this capture does not resolve it
+         */
+        String complete() {
+            if (!firstTextOnly) {
+                return value.toString();
+            }
+            if (value.length() > 0 && !claimed.get(slot)) {
+                // text() falls through to the next matching element when this one has no text child
+                claimed.set(slot);
+                return value.toString();
+            }
+            return null;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.middleware.processor.service.strategy;
 import com.middleware.processor.exception.ValidationException;
 import com.middleware.processor.service.factory.AsnFactory;
 import com.middleware.processor.service.interfaces.AsnService;
+import com.middleware.processor.service.mapping.MappedDocument;
+import com.middleware.processor.service.mapping.MappingPlan;
+import com.middleware.processor.service.mapping.RuleBinding;
 import com.middleware.shared.model.*;
 import com.middleware.shared.repository.ClientRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -10,11 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Concrete strategy for processing ASN (Advanced Shipping Notice) documents.
@@ -59,38 +61,38 @@ public class AsnDocumentProcessingStrategy extends BaseDocumentProcessingTemplat
      */
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
-    protected Object processSpecificDocument(Document document, Interface interfaceEntity) throws Exception {
+    protected Object processSpecificDocument(Document document, MultipartFile source, Interface interfaceEntity) throws Exception {
         log.debug("Processing ASN specific document for interface: {}", interfaceEntity.getName());
 
         // Fetch a fresh Client instance to avoid session issues
         Client freshClient = clientRepository.findById(interfaceEntity.getClient().getId())
             .orElseThrow(() -> new ValidationException("Client not found with ID: " + interfaceEntity.getClient().getId()));
 
-        List<MappingRule> allRules = getActiveMappingRules(interfaceEntity.getId());
+        // Extract header values and line records in one pass where the rule paths allow it
+        MappedDocument mappedDocument = mapDocument(document, source, getMappingPlan(interfaceEntity));
 
         // 1. Process Header
-        AsnHeader asnHeader = createAndProcessHeader(document, freshClient, allRules);
+        AsnHeader asnHeader = createAndProcessHeader(mappedDocument, freshClient);
 
         // 2. Process Lines using the generic line processing method
+        List<RuleBinding> lineRules = mappedDocument.getPlan().getLineBindings();
         List<AsnLine> asnLines = processLineItems(
-            document,
-            null, // Pass null header initially
-            allRules,
-            DEFAULT_ASN_LINE_XPATH,
+            mappedDocument,
+            asnHeader, // Unsaved header; lines are re-linked to the saved header below
             AsnHeader::getClient,
             (header, client) -> asnFactory.createDefaultLine(header, client),
-            (line, element) -> applyAsnLineRules(line, element, allRules)
+            (line, values) -> applyAsnLineRules(line, values, lineRules)
         );
 
         // 3. Batch save header and lines in a single transaction
-        return saveAsnDocumentBatch(asnHeader, asnLines);
+        return saveAsnDocumentBatch(asnHeader, asnLines, interfaceEntity);
     }
 
     /**
      * Saves the ASN document (header and lines) in a batch operation
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    private AsnHeader saveAsnDocumentBatch(AsnHeader header, List<AsnLine> lines) {
+    private AsnHeader saveAsnDocumentBatch(AsnHeader header, List<AsnLine> lines, Interface interfaceEntity) {
         log.debug("Saving ASN document batch - Header and {} lines", lines.size());
 
         // 1. Save header first to get ID
@@ -105,10 +107,10 @@ public class AsnDocumentProcessingStrategy extends BaseDocumentProcessingTemplat
             line.setClient(savedHeader.getClient());
         });
 
-        // 3. Batch save all lines
+        // 3. Batch save all lines, chunk by chunk so the persistence context stays small
         if (!lines.isEmpty()) {
             log.debug("Batch saving {} ASN lines", lines.size());
-            asnService.createAsnLines(lines);
+            writeLineItems(lines, interfaceEntity, asnService::createAsnLines);
         }
 
         log.info("Successfully saved ASN document batch - Header ID: {}, Lines: {}", 
@@ -116,23 +118,73 @@ public class AsnDocumentProcessingStrategy extends BaseDocumentProcessingTemplat
         return savedHeader;
     }
 
+    @Override
+    protected Class<?> getHeaderEntityClass() {
+        return AsnHeader.class;
+    }
+
+    @Override
+    protected Class<?> getLineEntityClass() {
+        return AsnLine.class;
+    }
+
+    @Override
+    protected String getDefaultLineNodeXPath() {
+        return DEFAULT_ASN_LINE_XPATH;
+    }
+
+    /**
+     * Processes a large ASN document in streaming mode.
+     * The header is saved first so lines can be written in chunks as they are read.
+     * Runs within the transaction started by the base class processDocument method.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED)
+    protected Object processSpecificDocumentStreaming(MultipartFile source, MappingPlan plan, Interface interfaceEntity) throws Exception {
+        log.debug("Processing ASN document in streaming mode for interface: {}", interfaceEntity.getName());
+
+        // Fetch a fresh Client instance to avoid session issues
+        Client freshClient = clientRepository.findById(interfaceEntity.getClient().getId())
+            .orElseThrow(() -> new ValidationException("Client not found with ID: " + interfaceEntity.getClient().getId()));
+
+        // 1. Process and save Header; reading stops once every header value is known
+        AsnHeader asnHeader = createAndProcessHeader(documentMapper.mapHeader(source, plan), freshClient);
+        AsnHeader savedHeader = asnService.createAsnHeader(asnHeader);
+        if (savedHeader == null || savedHeader.getId() == null) {
+            throw new ValidationException("Failed to save Asn Header or generate ID.");
+        }
+
+        // 2. Stream lines and write them in chunks
+        List<RuleBinding> lineRules = plan.getLineBindings();
+        int lineCount = processLineItemsInChunks(
+            source,
+            plan,
+            interfaceEntity,
+            savedHeader,
+            AsnHeader::getClient,
+            (header, client) -> asnFactory.createDefaultLine(header, client),
+            (line, values) -> applyAsnLineRules(line, values, lineRules),
+            asnService::createAsnLines
+        );
+
+        log.info("Successfully processed streamed ASN document - Header ID: {}, Lines: {}", savedHeader.getId(), lineCount);
+        return savedHeader;
+    }
+
     /**
      * Creates the AsnHeader entity and applies header-level mapping rules.
      */
-    private AsnHeader createAndProcessHeader(Document document, Client client, List<MappingRule> allRules) throws Exception {
+    private AsnHeader createAndProcessHeader(MappedDocument mappedDocument, Client client) throws Exception {
         AsnHeader header = asnFactory.createDefaultHeader(client);
 
-        List<MappingRule> headerRules = allRules.stream()
-            .filter(rule -> rule.getTargetLevel() == TargetLevel.HEADER)
-            .collect(Collectors.toList());
+        List<RuleBinding> headerRules = mappedDocument.getPlan().getHeaderBindings();
 
         log.debug("Applying {} header mapping rules.", headerRules.size());
 
-        for (MappingRule rule : headerRules) {
-            // Evaluate XPath relative to the document root for header fields
-            String rawValue = xmlProcessor.evaluateXPath(document, rule.getSourceField());
+        for (int slot = 0; slot < headerRules.size(); slot++) {
+            String rawValue = mappedDocument.getHeaderValue(slot);
             // Use the standardized method from the base class to apply the rule
-            applyRuleToField(header, rule, rawValue);
+            applyRuleToField(header, headerRules.get(slot), rawValue);
         }
 
         // Perform any final header validation if needed
@@ -142,24 +194,20 @@ public class AsnDocumentProcessingStrategy extends BaseDocumentProcessingTemplat
     }
 
     /**
-     * Applies mapping rules specific to an AsnLine entity within the context of its XML element.
+     * Applies mapping rules specific to an AsnLine entity from the raw values of its XML element.
      * This method is passed as a lambda to the base class processLineItems.
      */
-    private void applyAsnLineRules(AsnLine line, Element lineElement, List<MappingRule> allRules) {
-        List<MappingRule> lineLevelRules = allRules.stream()
-            .filter(rule -> rule.getTargetLevel() == TargetLevel.LINE)
-            .collect(Collectors.toList());
-
+    private void applyAsnLineRules(AsnLine line, String[] values, List<RuleBinding> lineRules) {
         // Apply default values first (optional, could be in factory)
         // applyDefaultValues(line, lineLevelRules); // If needed
 
-        for (MappingRule rule : lineLevelRules) {
+        for (int slot = 0; slot < lineRules.size(); slot++) {
+            RuleBinding binding = lineRules.get(slot);
+            MappingRule rule = binding.getRule();
             try {
-                // Determine the relative XPath for the field within the line element
-                String relativeXPath = getRelativeXPath(rule.getSourceField());
-                String rawValue = xmlProcessor.evaluateXPath(lineElement, relativeXPath);
+                String rawValue = values[slot];
                 // Use the standardized method from the base class
-                applyRuleToField(line, rule, rawValue);
+                applyRuleToField(line, binding, rawValue);
             } catch (Exception e) {
                 // Error handling is mostly within applyRuleToField, but log context here
                 log.warn("Error applying rule 	{}	 to ASN line: {}", rule.getName(), e.getMessage());
@@ -174,19 +222,6 @@ public class AsnDocumentProcessingStrategy extends BaseDocumentProcessingTemplat
         validateAsnLine(line);
     }
 
-    /**
-     * Extracts the relative path from a full XPath, assuming the last segment is the field name.
-     * Basic implementation - might need refinement based on actual XPath structures.
-     */
-    private String getRelativeXPath(String fullXPath) {
-        if (fullXPath == null) return null;
-        int lastSlash = fullXPath.lastIndexOf("/");
-        if (lastSlash >= 0 && lastSlash < fullXPath.length() - 1) {
-            return fullXPath.substring(lastSlash + 1);
-        }
-        return fullXPath; // Return full path if no slash or it's the last char
-    }
-
     // --- Specific Validations (Keep if needed) ---
 
     private void validateAsnHeader(AsnHeader header) {
@@ -218,8 +253,7 @@ public class AsnDocumentProcessingStrategy extends BaseDocumentProcessingTemplat
         log.debug("ASN Line validation passed for line number (if available): {}", line.getLineNumber());
     }
 
-    // Note: Methods like getTargetFieldType, isFieldNullable, setEntityField, findField,
-    // convertDbNameToCamelCase are now expected to be in BaseDocumentProcessingTemplate.
-    // Remove them from here if they exist.
+    // Note: Field access for mapping rules (setEntityField and the EntityAccessorRegistry
+    // lookups) lives in BaseDocumentProcessingTemplate. Do not add reflective helpers here.
 }
 
@@ -1,39 +1,52 @@
 package com.middleware.processor.service.strategy;
 
+import com.middleware.processor.cache.CachedValidationResult;
+import com.middleware.processor.cache.InFlightDocument;
+import com.middleware.processor.cache.ProcessingStatusTracker;
+import com.middleware.processor.cache.ValidationResultCache;
+import com.middleware.processor.config.BulkLoadConfig;
+import com.middleware.processor.config.XmlStreamingConfig;
+import com.middleware.processor.config.XmlValidationConfig;
 import com.middleware.processor.exception.ValidationException;
+import com.middleware.processor.service.PayloadStorageService;
+import com.middleware.processor.service.ProcessedFileErrorWriter;
 import com.middleware.processor.service.interfaces.XmlValidationService;
+import com.middleware.processor.service.mapping.DocumentMapper;
+import com.middleware.processor.service.mapping.EntityAccessorRegistry;
+import com.middleware.processor.service.mapping.EntityAccessorRegistry.FieldAccessor;
+import com.middleware.processor.service.mapping.MappedDocument;
+import com.middleware.processor.service.mapping.MappingPlan;
+import com.middleware.processor.service.mapping.MappingPlanCache;
+import com.middleware.processor.service.mapping.RuleBinding;
 import com.middleware.processor.service.util.TransformationService;
 import com.middleware.processor.service.util.XmlProcessor;
+import com.middleware.processor.validation.ValidationResult;
 import com.middleware.shared.model.Client;
 import com.middleware.shared.model.Interface;
 import com.middleware.shared.model.MappingRule;
 import com.middleware.shared.model.ProcessedFile;
-import com.middleware.shared.model.TargetLevel;
-import com.middleware.shared.repository.MappingRuleRepository;
 import com.middleware.shared.repository.ProcessedFileRepository;
 import com.middleware.shared.service.util.CircuitBreakerService;
-import jakarta.persistence.Column;
-import jakarta.validation.constraints.NotNull;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
-import java.lang.reflect.Field;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Abstract template for document processing strategies.
@@ -47,9 +60,6 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
     @Autowired
     protected XmlValidationService xmlValidationService;
 
-    @Autowired
-    protected MappingRuleRepository mappingRuleRepository;
-
     @Autowired
     protected ProcessedFileRepository processedFileRepository;
 
@@ -62,9 +72,47 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
     @Autowired
     protected CircuitBreakerService circuitBreakerService;
 
+    @Autowired
+    protected DocumentMapper documentMapper;
+
+    @Autowired
+    protected XmlStreamingConfig streamingConfig;
+
+    @Autowired
+    protected BulkLoadConfig bulkLoadConfig;
+
+    @Autowired
+    protected XmlValidationConfig validationConfig;
+
+    @Autowired
+    protected ValidationResultCache validationResultCache;
+
+    @Autowired
+    protected EntityAccessorRegistry entityAccessorRegistry;
+
+    @Autowired
+    protected MappingPlanCache mappingPlanCache;
+
+    @Autowired
+    protected PayloadStorageService payloadStorageService;
+
+    @Autowired
+    protected ProcessedFileErrorWriter processedFileErrorWriter;
+
+    @Autowired
+    protected ProcessingStatusTracker processingStatusTracker;
+
+    @PersistenceContext
+    protected EntityManager entityManager;
+
     /**
      * Main processing method that orchestrates the document processing flow.
      * Runs within the transaction initiated by the calling service (e.g., XmlProcessorServiceImpl).
+     * While the document is processed it is listed by the processing status tracker; the
+     * ProcessedFile record is inserted once, with the final outcome.
+     * When the document fails after its entities may have been written, a transaction started
+     * here is rolled back; a caller's transaction that this one joined is left to the caller,
+     * which must roll the document's writes back itself, e.g. to a savepoint.
      *
      * @param file            The multipart file containing the XML document.
      * @param interfaceEntity The interface configuration for this document.
@@ -76,46 +124,135 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
 
         ProcessedFile processedFile = new ProcessedFile();
         processedFile.setFileName(file.getOriginalFilename());
-        processedFile.setStatus("PROCESSING");
         processedFile.setInterfaceEntity(interfaceEntity);
         processedFile.setClient(interfaceEntity.getClient()); // Use client from interface initially
         processedFile.setProcessedAt(LocalDateTime.now());
 
+        InFlightDocument inFlight = processingStatusTracker.begin(file.getOriginalFilename(), interfaceEntity);
+        boolean writesStarted = false;
         try {
-            // Save initial processing status
-            // Note: Saving here might cause issues if the outer transaction rolls back.
-            // Consider saving the ProcessedFile record only at the end or in the calling service.
-            processedFile = processedFileRepository.save(processedFile);
-
-            // Parse XML document
-            Document document = xmlProcessor.parseXmlFile(file);
+            // Large documents are mapped and persisted without building a DOM
+            MappingPlan streamingPlan = resolveStreamingPlan(file, interfaceEntity);
+            if (streamingPlan != null) {
+                validateXmlStream(file, interfaceEntity);
+                writesStarted = true;
+                processSpecificDocumentStreaming(file, streamingPlan, interfaceEntity);
+
+                processedFile.setStatus("SUCCESS");
+                payloadStorageService.storePayload(processedFile, file);
+                return processedFileRepository.save(processedFile);
+            }
 
-            // Validate XML
-            validateXml(document, interfaceEntity);
+            // Parse and validate XML
+            Document document = parseAndValidateXml(file, interfaceEntity);
 
             // Process document using the specific strategy implementation
-            Object processedEntity = processSpecificDocument(document, interfaceEntity);
+            writesStarted = true;
+            Object processedEntity = processSpecificDocument(document, file, interfaceEntity);
 
-            // Update processed file status to SUCCESS
             processedFile.setStatus("SUCCESS");
-            processedFile.setContent(xmlProcessor.serializeDocument(document)); // Store processed content if needed
+            // Keep the bytes as received for reprocessing rather than re-serializing the DOM
+            payloadStorageService.storePayload(processedFile, file);
             return processedFileRepository.save(processedFile);
 
         } catch (ValidationException e) {
             log.error("Validation error processing document {}: {}", file.getOriginalFilename(), e.getMessage());
             processedFile.setStatus("ERROR");
             processedFile.setErrorMessage("Validation error: " + e.getMessage());
-            // Ensure the error record is saved even if initial save happened
-            return processedFileRepository.save(processedFile);
+            return recordFailure(processedFile, writesStarted);
         } catch (Exception e) {
             log.error("Error processing document {}: {}", file.getOriginalFilename(), e.getMessage(), e);
             processedFile.setStatus("ERROR");
             processedFile.setErrorMessage("Processing error: " + e.getMessage());
-            // Ensure the error record is saved even if initial save happened
-            return processedFileRepository.save(processedFile);
+            return recordFailure(processedFile, writesStarted);
+        } finally {
+            processingStatusTracker.complete(inFlight);
         }
     }
 
+    /**
+     * Records the error of a failed document. Once the document's header or lines may have been
+     * written, e.g. chunks flushed while streaming, a transaction started by processDocument is
+     * marked rollback-only so none of them is committed, and the error record is written in a
+     * transaction of its own. A joined transaction is never marked: that would doom the caller's
+     * other work, such as the other documents of a coalesced group.
+     *
+     * @param processedFile The error record.
+     * @param writesStarted Whether the document's entities may already have been written.
+     * @return The error record.
+     */
+    private ProcessedFile recordFailure(ProcessedFile processedFile, boolean writesStarted) {
+        if (writesStarted && TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionStatus status = TransactionAspectSupport.currentTransactionStatus();
+            if (status.isNewTransaction()) {
+                status.setRollbackOnly();
+                return processedFileErrorWriter.writeInOwnTransaction(processedFile);
+            }
+        }
+        return processedFileErrorWriter.write(processedFile);
+    }
+
+    /**
+     * Parses the document and validates it against its schema in the configured validation mode.
+     * Runs within the existing transaction.
+     *
+     * @param file            The multipart file containing the XML document.
+     * @param interfaceEntity The interface configuration.
+     * @return The parsed, validated document.
+     * @throws ValidationException If validation fails.
+     */
+    protected Document parseAndValidateXml(MultipartFile file, Interface interfaceEntity) throws Exception {
+        if (interfaceEntity.getSchemaPath() == null || interfaceEntity.getSchemaPath().isEmpty()) {
+            Document document = xmlProcessor.parseXmlFile(file);
+            validateXml(document, interfaceEntity);
+            return document;
+        }
+
+        // Identical payloads already validated against this schema version skip validation
+        String cacheKey = validationResultCache.keyFor(file, interfaceEntity);
+        CachedValidationResult cached = cacheKey != null ? validationResultCache.getValidationResult(cacheKey) : null;
+        if (cached != null) {
+            if (!cached.isValid()) {
+                throw schemaValidationFailure(interfaceEntity, cached.getErrorMessage());
+            }
+            Document document = xmlProcessor.parseXmlFile(file);
+            performAdditionalValidations(document, interfaceEntity);
+            return document;
+        }
+
+        Document document;
+        ValidationResult result;
+        switch (validationConfig.getMode()) {
+            case STREAM -> {
+                // Invalid documents are rejected before any tree is built
+                try (InputStream inputStream = file.getInputStream()) {
+                    result = xmlValidationService.validate(inputStream, interfaceEntity);
+                }
+                document = null;
+            }
+            case FUSED -> {
+                try (InputStream inputStream = file.getInputStream()) {
+                    result = xmlValidationService.validateAndParse(inputStream, interfaceEntity);
+                }
+                document = result.getDocument();
+            }
+            default -> {
+                document = xmlProcessor.parseXmlFile(file);
+                result = xmlValidationService.validate(document, interfaceEntity);
+            }
+        }
+
+        if (cacheKey != null) {
+            validationResultCache.cacheValidationResult(cacheKey, result);
+        }
+        requireValid(result, interfaceEntity);
+        if (document == null) {
+            document = xmlProcessor.parseXmlFile(file);
+        }
+        performAdditionalValidations(document, interfaceEntity);
+        return document;
+    }
+
     /**
      * Validates an XML document against its schema and performs additional validations.
      * Runs within the existing transaction.
@@ -127,11 +264,7 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
     @Transactional(propagation = Propagation.MANDATORY) // Must be called within an existing transaction
     protected void validateXml(Document document, Interface interfaceEntity) throws ValidationException {
         if (interfaceEntity.getSchemaPath() != null && !interfaceEntity.getSchemaPath().isEmpty()) {
-            boolean isValid = xmlValidationService.validateXmlContent(document, interfaceEntity);
-            if (!isValid) {
-                throw new ValidationException("XML validation failed against schema: " + interfaceEntity.getSchemaPath() +
-                        ". Error: " + xmlValidationService.getValidationErrorMessage());
-            }
+            requireValid(xmlValidationService.validate(document, interfaceEntity), interfaceEntity);
         } else {
             log.warn("No XSD schema path defined for interface {}, skipping schema validation.", interfaceEntity.getName());
         }
@@ -139,6 +272,56 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
         performAdditionalValidations(document, interfaceEntity);
     }
 
+    /**
+     * Validates a document read from its payload stream against the interface schema, without a DOM.
+     * Used in streaming mode; DOM-based additional validations are skipped.
+     *
+     * @param file            The multipart file containing the XML document.
+     * @param interfaceEntity The interface configuration.
+     * @throws ValidationException If validation fails.
+     */
+    protected void validateXmlStream(MultipartFile file, Interface interfaceEntity) throws Exception {
+        if (interfaceEntity.getSchemaPath() != null && !interfaceEntity.getSchemaPath().isEmpty()) {
+            String cacheKey = validationResultCache.keyFor(file, interfaceEntity);
+            CachedValidationResult cached = cacheKey != null ? validationResultCache.getValidationResult(cacheKey) : null;
+            if (cached != null) {
+                if (!cached.isValid()) {
+                    throw schemaValidationFailure(interfaceEntity, cached.getErrorMessage());
+                }
+                return;
+            }
+
+            ValidationResult result;
+            try (InputStream inputStream = file.getInputStream()) {
+                result = xmlValidationService.validate(inputStream, interfaceEntity);
+            }
+            if (cacheKey != null) {
+                validationResultCache.cacheValidationResult(cacheKey, result);
+            }
+            requireValid(result, interfaceEntity);
+        } else {
+            log.warn("No XSD schema path defined for interface {}, skipping schema validation.", interfaceEntity.getName());
+        }
+    }
+
+    /**
+     * Throws if a schema validation result has errors.
+     *
+     * @param result          The validation result.
+     * @param interfaceEntity The interface configuration.
+     * @throws ValidationException If the result has errors.
+     */
+    protected void requireValid(ValidationResult result, Interface interfaceEntity) throws ValidationException {
+        if (!result.isValid()) {
+            throw schemaValidationFailure(interfaceEntity, result.getErrorMessage());
+        }
+    }
+
+    private static ValidationException schemaValidationFailure(Interface interfaceEntity, String errorMessage) {
+        return new ValidationException("XML validation failed against schema: " + interfaceEntity.getSchemaPath() +
+                ". Error: " + errorMessage);
+    }
+
     /**
      * Placeholder for additional validation logic specific to the document type.
      * To be implemented by subclasses if needed.
@@ -157,70 +340,146 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
      * Recommended propagation is REQUIRED to participate in the main transaction.
      *
      * @param document        The parsed XML document.
+     * @param source          The original payload the document was parsed from.
      * @param interfaceEntity The interface configuration.
      * @return The processed domain entity (e.g., AsnHeader, OrderHeader).
      * @throws Exception If processing fails.
      */
     // @Transactional annotation should be on the implementing method in the concrete class
-    protected abstract Object processSpecificDocument(Document document, Interface interfaceEntity) throws Exception;
+    protected abstract Object processSpecificDocument(Document document, MultipartFile source, Interface interfaceEntity) throws Exception;
 
     /**
-     * Retrieves active mapping rules for a given interface.
-     * Runs within the existing transaction.
+     * Streaming counterpart of {@link #processSpecificDocument}, used for documents above the
+     * interface's streaming threshold. Implementations should save the header first and write
+     * lines through {@link #processLineItemsInChunks} so memory stays flat regardless of line count.
      *
-     * @param interfaceId The ID of the interface.
-     * @return A list of active mapping rules.
+     * @param source          The original payload.
+     * @param plan            The interface's mapping plan; always fully streamable.
+     * @param interfaceEntity The interface configuration.
+     * @return The processed domain entity (e.g., AsnHeader, OrderHeader).
+     * @throws Exception If processing fails.
+     */
+    protected abstract Object processSpecificDocumentStreaming(MultipartFile source, MappingPlan plan, Interface interfaceEntity) throws Exception;
+
+    /**
+     * Line node XPath to use when it cannot be derived from the line rules.
      */
-    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
-    protected List<MappingRule> getActiveMappingRules(Long interfaceId) {
-        return mappingRuleRepository.findByInterfaceIdAndIsActiveTrue(interfaceId);
+    protected String getDefaultLineNodeXPath() {
+        return null;
     }
 
+    /**
+     * Decides whether a document should be processed in streaming mode.
+     *
+     * @param file            The multipart file containing the XML document.
+     * @param interfaceEntity The interface configuration.
+     * @return The mapping plan to stream with, or null to process the document through the DOM.
+     */
+    protected MappingPlan resolveStreamingPlan(MultipartFile file, Interface interfaceEntity) {
+        if (!streamingConfig.isEnabled() || interfaceEntity.getId() == null) {
+            return null;
+        }
+        Long interfaceThreshold = interfaceEntity.getStreamingThresholdBytes();
+        long threshold = interfaceThreshold != null ? interfaceThreshold : streamingConfig.getDefaultThresholdBytes();
+        if (file.getSize() < threshold) {
+            return null;
+        }
+
+        MappingPlan plan = getMappingPlan(interfaceEntity);
+        if (!plan.isFullyStreamable()) {
+            log.warn("Document {} ({} bytes) exceeds the streaming threshold of interface {} but its mapping rules need XPath features " +
+                     "outside the streaming subset; processing through the DOM.", file.getOriginalFilename(), file.getSize(), interfaceEntity.getName());
+            return null;
+        }
+        log.info("Processing document {} ({} bytes) for interface {} in streaming mode", file.getOriginalFilename(), file.getSize(), interfaceEntity.getName());
+        return plan;
+    }
+
+    /**
+     * Decides whether document lines are written with COPY instead of through the persistence context.
+     *
+     * @param interfaceEntity The interface configuration.
+     * @param lineCount       Number of lines of the document, or read so far when streaming.
+     * @return True if the lines should be bulk loaded.
+     */
+    protected boolean useBulkLoad(Interface interfaceEntity, int lineCount) {
+        if (!bulkLoadConfig.isEnabled()) {
+            return false;
+        }
+        Integer interfaceThreshold = interfaceEntity.getBulkLoadThresholdRows();
+        int threshold = interfaceThreshold != null ? interfaceThreshold : bulkLoadConfig.getDefaultThresholdRows();
+        return threshold > 0 && lineCount >= threshold;
+    }
+
+    /**
+     * Retrieves the compiled mapping plan of an interface.
+     * The plan is compiled from the active mapping rules on first use and cached until the rules change.
+     *
+     * @param interfaceEntity The interface configuration.
+     * @return The mapping plan, with rules bound to this strategy's header and line entities.
+     */
+    protected MappingPlan getMappingPlan(Interface interfaceEntity) {
+        return mappingPlanCache.getPlan(interfaceEntity.getId(),
+            new MappingPlanCache.Target(getDocumentType(), getDefaultLineNodeXPath(), getHeaderEntityClass(), getLineEntityClass()));
+    }
+
+    /**
+     * Entity class populated by header-level mapping rules.
+     */
+    protected abstract Class<?> getHeaderEntityClass();
+
+    /**
+     * Entity class populated by line-level mapping rules.
+     */
+    protected abstract Class<?> getLineEntityClass();
+
     // --- Standardized Field Processing --- 
 
     /**
-     * Applies a mapping rule to set a field on an entity, handling transformation and default values.
+     * Applies a bound mapping rule to set a field on an entity, handling transformation and default values.
      *
      * @param entity     The target entity.
-     * @param rule       The mapping rule to apply.
+     * @param binding    The mapping rule to apply, bound to the entity's class.
      * @param rawXmlValue The raw value extracted from the XML (can be null or empty).
      * @throws Exception If a required field is missing or transformation/setting fails.
      */
-    protected void applyRuleToField(Object entity, MappingRule rule, String rawXmlValue) throws Exception {
+    protected void applyRuleToField(Object entity, RuleBinding binding, String rawXmlValue) throws Exception {
+        MappingRule rule = binding.getRule();
         String targetFieldName = rule.getTargetField();
-        if (targetFieldName == null || targetFieldName.trim().isEmpty()) {
+        if (!binding.hasTargetField()) {
             log.warn("Skipping rule 	{}	 because target field is not defined.", rule.getName());
             return;
         }
 
         try {
-            Class<?> targetType = getTargetFieldType(entity, targetFieldName);
-            boolean isNullable = isFieldNullable(entity, targetFieldName);
+            FieldAccessor accessor;
+            TransformationService.Pipeline pipeline;
+            if (binding.getEntityClass() == entity.getClass()) {
+                accessor = binding.getAccessor();
+                pipeline = binding.getPipeline();
+            } else {
+                // Entity of another class than the plan was bound to; resolve its field directly
+                accessor = entityAccessorRegistry.getAccessor(entity.getClass(), targetFieldName);
+                pipeline = transformationService.getPipeline(rule.getTransformation(), accessor.getType());
+            }
+            boolean isNullable = accessor.isNullable();
             Object finalValue = null;
             String sourceValue = null; // To store the value used (XML or Default)
 
             if (rawXmlValue != null && !rawXmlValue.trim().isEmpty()) {
-                // Use TransformationService for XML value
-                finalValue = transformationService.transformAndConvert(
-                    rawXmlValue,
-                    rule.getTransformation(),
-                    targetType
-                );
+                // Use the rule's transformation pipeline for XML value
+                finalValue = pipeline.transformAndConvert(rawXmlValue);
                 sourceValue = "XML";
                 log.debug("Transformed XML value for {}: {}", targetFieldName, finalValue);
             } else if (rule.getDefaultValue() != null && !rule.getDefaultValue().trim().isEmpty()) {
-                // Use TransformationService for Default value if XML value is empty/null
-                finalValue = transformationService.transformAndConvert(
-                    rule.getDefaultValue(),
-                    rule.getTransformation(), // Apply transformation to default value too
-                    targetType
-                );
+                // Apply transformation to default value too if XML value is empty/null
+                finalValue = pipeline.transformAndConvert(rule.getDefaultValue());
                 sourceValue = "Default";
                 log.debug("Using transformed default value for {}: {}", targetFieldName, finalValue);
             }
 
             // Check requirement only after attempting to get a value
-            if (finalValue == null && rule.getRequired()) {
+            if (finalValue == null && binding.isRequired()) {
                  throw new ValidationException("Required field '" + targetFieldName + "' is missing or resulted in null value (Rule: " + rule.getName() + ").");
             } else if (finalValue == null && !isNullable) {
                  // If field is non-nullable in DB and value is null, throw error
@@ -228,12 +487,12 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
                  throw new ValidationException("Non-nullable field '" + targetFieldName + "' cannot be null (Rule: " + rule.getName() + ").");
             }
 
-            // Set the field value using reflection (or a safer method)
-            setEntityField(entity, targetFieldName, finalValue);
+            // Set the field value through the precomputed setter
+            setEntityField(entity, accessor, finalValue);
 
         } catch (Exception e) {
             log.error("Failed to process rule 	{}	 for field 	{}	: {}", rule.getName(), targetFieldName, e.getMessage());
-            if (rule.getRequired()) {
+            if (binding.isRequired()) {
                 // Re-throw exception if the field was required
                 throw new ValidationException("Error processing required field " + targetFieldName + " (Rule: " + rule.getName() + "): " + e.getMessage(), e);
             }
@@ -242,143 +501,67 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
         }
     }
 
-    /** Helper method to get target field type using reflection. */
-    protected Class<?> getTargetFieldType(Object entity, String fieldName) throws NoSuchFieldException {
-        Field field = findField(entity.getClass(), fieldName);
-        return field.getType();
-    }
-
-    /** Helper method to check field nullability based on annotations. */
-    protected boolean isFieldNullable(Object entity, String fieldName) {
+    /** Helper method to set an entity field through its precomputed accessor. */
+    protected void setEntityField(Object entity, FieldAccessor accessor, Object value) {
+        String fieldName = accessor.getName();
         try {
-            Field field = findField(entity.getClass(), fieldName);
-            // Check for @NotNull annotation
-            if (field.isAnnotationPresent(NotNull.class)) {
-                return false;
-            }
-            // Check for @Column(nullable = false)
-            if (field.isAnnotationPresent(Column.class)) {
-                Column column = field.getAnnotation(Column.class);
-                if (!column.nullable()) {
-                    return false;
-                }
-            }
-            return true; // Default to nullable if no constraints found
-        } catch (NoSuchFieldException e) {
-            log.warn("Could not determine nullability for field {}, assuming nullable", fieldName);
-            return true;
-        }
-    }
-
-    /** Helper method to set entity field value using reflection. */
-    protected void setEntityField(Object entity, String fieldName, Object value) throws Exception {
-        try {
-            Field field = findField(entity.getClass(), fieldName);
-            field.setAccessible(true);
             // Basic type coercion might be needed if transformAndConvert doesn't guarantee exact type match
             // For example, handle conversion between Integer and Long if necessary
-            Object convertedValue = value;
-            if (value != null && !field.getType().isAssignableFrom(value.getClass())) {
+            if (value != null && !accessor.getType().isAssignableFrom(value.getClass())) {
                 // Attempt basic conversions or rely on framework/DB conversion
                 log.warn("Potential type mismatch for field {}. Expected {}, got {}. Attempting to set anyway.",
-                         fieldName, field.getType().getSimpleName(), value.getClass().getSimpleName());
+                         fieldName, accessor.getType().getSimpleName(), value.getClass().getSimpleName());
                 // Add specific conversion logic here if needed
             }
-            field.set(entity, convertedValue);
-            log.debug("Set field 	{}	 to value: {}", fieldName, convertedValue);
-        } catch (NoSuchFieldException e) {
-            log.error("Field 	{}	 not found in entity class {}", fieldName, entity.getClass().getSimpleName());
-            throw e;
-        } catch (IllegalAccessException e) {
-            log.error("Cannot access field 	{}	 in entity class {}", fieldName, entity.getClass().getSimpleName());
-            throw e;
+            accessor.set(entity, value);
+            log.debug("Set field 	{}	 to value: {}", fieldName, value);
         } catch (IllegalArgumentException e) {
             log.error("Type mismatch setting field 	{}	 with value 	{}	 (type {}). Expected type {}. Error: {}",
                       fieldName, value, (value != null ? value.getClass().getSimpleName() : "null"),
-                      findField(entity.getClass(), fieldName).getType().getSimpleName(), e.getMessage());
+                      accessor.getType().getSimpleName(), e.getMessage());
             // Provide more context in the exception
             throw new IllegalArgumentException("Type mismatch for field '" + fieldName + "'. Expected " +
-                                             findField(entity.getClass(), fieldName).getType().getSimpleName() +
+                                             accessor.getType().getSimpleName() +
                                              " but got " + (value != null ? value.getClass().getSimpleName() : "null"), e);
         }
     }
 
-    /** Helper to find field, handling potential naming conventions (snake_case to camelCase) and inheritance. */
-    private Field findField(Class<?> entityClass, String dbFieldName) throws NoSuchFieldException {
-        // Convert database field name (snake_case) to Java field name (camelCase)
-        String fieldName = convertDbNameToCamelCase(dbFieldName);
+    // --- Standardized Line Processing ---
 
-        Class<?> currentClass = entityClass;
-        while (currentClass != null) {
-            try {
-                return currentClass.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                // Field not found in current class, try superclass
-                currentClass = currentClass.getSuperclass();
-            }
-        }
-        // Field not found in the entire hierarchy
-        throw new NoSuchFieldException("Field '" + fieldName + "' (derived from '" + dbFieldName + "') not found in class " + entityClass.getName() + " or its superclasses.");
-    }
-
-    /** Converts snake_case or simple names to camelCase. */
-    private String convertDbNameToCamelCase(String dbName) {
-        if (dbName == null || dbName.isEmpty()) {
-            return dbName;
-        }
-        // If no underscore, assume it's already camelCase or a simple name
-        if (!dbName.contains("_")) {
-             // Handle potential all-caps names from DB
-             if (dbName.toUpperCase().equals(dbName)) {
-                 return dbName.toLowerCase();
-             }
-             // Assume it's correct or simple name
-             return dbName;
-        }
-
-        StringBuilder camelCaseName = new StringBuilder();
-        boolean capitalizeNext = false;
-        for (char c : dbName.toLowerCase().toCharArray()) {
-            if (c == '_') {
-                capitalizeNext = true;
-            } else {
-                if (capitalizeNext) {
-                    camelCaseName.append(Character.toUpperCase(c));
-                    capitalizeNext = false;
-                } else {
-                    camelCaseName.append(c);
-                }
-            }
-        }
-        return camelCaseName.toString();
+    /**
+     * Extracts the raw values of every active mapping rule from a document.
+     * Streamable paths of the {@link MappingPlan} are resolved in one StAX pass
+     * over the original payload and the remaining rules are evaluated against the DOM.
+     *
+     * @param document The parsed XML document.
+     * @param source The original payload the document was parsed from.
+     * @param plan The interface's mapping plan.
+     * @return Header values and line records in plan slot order.
+     * @throws Exception If the document cannot be read.
+     */
+    protected MappedDocument mapDocument(Document document, MultipartFile source, MappingPlan plan) throws Exception {
+        return documentMapper.map(document, source, plan);
     }
 
-    // --- Standardized Line Processing (Conceptual) ---
-
     /**
-     * Processes line items from the XML document based on mapping rules.
-     * This is a conceptual implementation and might need adjustments based on specific strategy needs.
+     * Processes line items from the mapped line records.
      *
      * @param <H> Type of the header entity.
      * @param <L> Type of the line entity.
-     * @param document The parsed XML document.
+     * @param mappedDocument The raw values extracted from the document.
      * @param headerEntity The already processed header entity.
-     * @param allRules All mapping rules for the interface.
-     * @param defaultLineNodeXPath A fallback XPath to find line nodes if derivation fails.
      * @param clientExtractor Function to get the Client from the header entity.
      * @param lineEntityFactory Function to create a new line entity instance.
-     * @param lineRuleApplier Consumer to apply mapping rules to a created line entity within the context of its XML element.
+     * @param lineRuleApplier Consumer to apply the plan's line rules to a created line entity from its raw values.
      * @return A list of processed line entities.
      * @throws Exception If line processing fails.
      */
     protected <H, L> List<L> processLineItems(
-        Document document,
+        MappedDocument mappedDocument,
         H headerEntity,
-        List<MappingRule> allRules,
-        String defaultLineNodeXPath,
         Function<H, Client> clientExtractor,
         BiFunction<H, Client, L> lineEntityFactory,
-        BiConsumer<L, Element> lineRuleApplier
+        BiConsumer<L, String[]> lineRuleApplier
     ) throws Exception {
 
         List<L> lines = new ArrayList<>();
@@ -387,78 +570,134 @@ public abstract class BaseDocumentProcessingTemplate extends BaseDocumentProcess
             throw new ValidationException("Cannot process lines: Client is null in the header entity.");
         }
 
-        List<MappingRule> lineLevelRules = allRules.stream()
-            .filter(rule -> rule.getTargetLevel() == TargetLevel.LINE)
-            .collect(Collectors.toList());
-
-        if (lineLevelRules.isEmpty()) {
+        if (mappedDocument.getPlan().getLineRules().isEmpty()) {
             log.warn("No line-level mapping rules found for document type {}. Skipping line processing.", getDocumentType());
             return lines;
         }
 
-        // Determine line node XPath (Refined logic)
-        String lineNodeXPath = determineLineNodeXPath(lineLevelRules, defaultLineNodeXPath);
-        log.debug("Using line node XPath: {}", lineNodeXPath);
-
-        NodeList lineNodes = xmlProcessor.evaluateXPathForNodes(document, lineNodeXPath);
-        log.debug("Found {} line nodes using XPath: {}", lineNodes.getLength(), lineNodeXPath);
-
-        if (lineNodes.getLength() == 0) {
-            log.warn("No line nodes found using XPath: {}. Check mapping rules or XML structure.", lineNodeXPath);
+        List<String[]> lineRecords = mappedDocument.getLines();
+        if (lineRecords.isEmpty()) {
+            log.warn("No line nodes found using XPath: {}. Check mapping rules or XML structure.", mappedDocument.getPlan().getLineNodePath());
             // Decide if this is an error or acceptable (e.g., header-only document)
             // Depending on requirements, could throw ValidationException here.
         }
 
-        for (int i = 0; i < lineNodes.getLength(); i++) {
-            if (!(lineNodes.item(i) instanceof Element)) {
-                log.warn("Skipping non-element node found at index {} for XPath {}", i, lineNodeXPath);
-                continue;
-            }
-            Element lineElement = (Element) lineNodes.item(i);
-
+        for (int i = 0; i < lineRecords.size(); i++) {
             // Create line entity using the provided factory function
             L lineEntity = lineEntityFactory.apply(headerEntity, client);
 
             // Apply specific line rules using the provided consumer
-            // The consumer should handle iterating through lineLevelRules and calling applyRuleToField
             try {
-                 lineRuleApplier.accept(lineEntity, lineElement);
+                 lineRuleApplier.accept(lineEntity, lineRecords.get(i));
             } catch (Exception e) {
                  log.error("Error applying rules to line item {}: {}", i + 1, e.getMessage(), e);
-                 // Decide how to handle line-level errors: skip line, fail document?
                  // For now, rethrow to fail the document processing
                  throw new ValidationException("Failed to apply rules to line item " + (i + 1) + ": " + e.getMessage(), e);
             }
 
-            // Perform any final line validation if needed (e.g., check required fields not covered by rules)
-            // validateLineEntity(lineEntity, lineLevelRules);
-
             lines.add(lineEntity);
         }
 
         return lines;
     }
 
-    /** Helper to determine the XPath for line nodes. Needs careful implementation. */
-    private String determineLineNodeXPath(List<MappingRule> lineRules, String defaultPath) {
-        // Simple approach: Use the parent path of the first line rule
-        Optional<String> derivedPath = lineRules.stream()
-            .map(MappingRule::getSourceField)
-            .filter(Objects::nonNull)
-            .findFirst()
-            .map(path -> {
-                int lastSlash = path.lastIndexOf('/');
-                // Basic check to avoid returning root or empty path
-                return (lastSlash > 0) ? path.substring(0, lastSlash) : defaultPath;
-            });
-
-        String path = derivedPath.orElse(defaultPath);
-        if (path == null || path.trim().isEmpty()) {
-             log.error("Could not determine a valid XPath for line nodes. Default path was also empty/null.");
-             throw new ValidationException("Unable to determine XPath for line items. Check mapping rules or provide a default path.");
+    /**
+     * Streams line items from the payload and writes them in fixed-size chunks.
+     * Each chunk is written, flushed and detached from the persistence context before the next
+     * line is read, so neither the line list nor the session grows with the document. Once the
+     * lines read reach the interface's bulk load threshold, further chunks are written with COPY.
+     *
+     * @param <H> Type of the header entity.
+     * @param <L> Type of the line entity.
+     * @param source The original payload.
+     * @param plan The interface's mapping plan; must be fully streamable.
+     * @param interfaceEntity The interface configuration.
+     * @param headerEntity The saved header entity.
+     * @param clientExtractor Function to get the Client from the header entity.
+     * @param lineEntityFactory Function to create a new line entity instance.
+     * @param lineRuleApplier Consumer to apply the plan's line rules to a created line entity from its raw values.
+     * @param chunkWriter Persists one chunk of line entities, with COPY if the flag is set.
+     * @return The number of lines written.
+     * @throws Exception If line processing fails.
+     */
+    protected <H, L> int processLineItemsInChunks(
+        MultipartFile source,
+        MappingPlan plan,
+        Interface interfaceEntity,
+        H headerEntity,
+        Function<H, Client> clientExtractor,
+        BiFunction<H, Client, L> lineEntityFactory,
+        BiConsumer<L, String[]> lineRuleApplier,
+        BiConsumer<List<L>, Boolean> chunkWriter
+    ) throws Exception {
+
+        Client client = clientExtractor.apply(headerEntity);
+        if (client == null) {
+            throw new ValidationException("Cannot process lines: Client is null in the header entity.");
         }
-        return path;
+
+        if (plan.getLineRules().isEmpty()) {
+            log.warn("No line-level mapping rules found for document type {}. Skipping line processing.", getDocumentType());
+            return 0;
+        }
+
+        int chunkSize = Math.max(1, streamingConfig.getChunkSize());
+        List<L> chunk = new ArrayList<>(chunkSize);
+        int lineCount = documentMapper.streamLines(source, plan, (index, values) -> {
+            L lineEntity = lineEntityFactory.apply(headerEntity, client);
+            try {
+                lineRuleApplier.accept(lineEntity, values);
+            } catch (Exception e) {
+                log.error("Error applying rules to line item {}: {}", index + 1, e.getMessage(), e);
+                throw new ValidationException("Failed to apply rules to line item " + (index + 1) + ": " + e.getMessage(), e);
+            }
+            chunk.add(lineEntity);
+            if (chunk.size() >= chunkSize) {
+                writeLineChunk(chunk, chunkWriter, useBulkLoad(interfaceEntity, index + 1));
+            }
+        });
+        if (!chunk.isEmpty()) {
+            writeLineChunk(chunk, chunkWriter, useBulkLoad(interfaceEntity, lineCount));
+        }
+
+        if (lineCount == 0) {
+            log.warn("No line nodes found using XPath: {}. Check mapping rules or XML structure.", plan.getLineNodePath());
+        }
+        return lineCount;
     }
 
-}
+    /**
+     * Writes the mapped line items of a document in chunks.
+     * Each chunk is written, flushed and detached from the persistence context before the next
+     * one, so the session holds at most one chunk of lines and flush time per chunk stays flat
+     * regardless of line count. The header the lines belong to stays managed. Documents at or
+     * above the interface's bulk load threshold are written with COPY in one go instead.
+     *
+     * @param <L> Type of the line entity.
+     * @param lines The line entities, already linked to their saved header.
+     * @param interfaceEntity The interface configuration.
+     * @param chunkWriter Persists one chunk of line entities, with COPY if the flag is set.
+     */
+    protected <L> void writeLineItems(List<L> lines, Interface interfaceEntity, BiConsumer<List<L>, Boolean> chunkWriter) {
+        if (useBulkLoad(interfaceEntity, lines.size())) {
+            writeLineChunk(new ArrayList<>(lines), chunkWriter, true);
+            return;
+        }
+        int chunkSize = Math.max(1, streamingConfig.getChunkSize());
+        for (int start = 0; start < lines.size(); start += chunkSize) {
+            writeLineChunk(new ArrayList<>(lines.subList(start, Math.min(start + chunkSize, lines.size()))), chunkWriter, false);
+        }
+    }
+
+    private <L> void writeLineChunk(List<L> chunk, BiConsumer<List<L>, Boolean> chunkWriter, boolean bulkLoad) {
+        log.debug("Writing chunk of {} lines{}", chunk.size(), bulkLoad ? " with COPY" : "");
+        chunkWriter.accept(chunk, bulkLoad);
+        if (!bulkLoad) {
+            entityManager.flush();
+            // Detach only the written lines; the header and client stay managed for the next chunk
+            chunk.forEach(entityManager::detach);
+        }
+        chunk.clear();
+    }
 
+}
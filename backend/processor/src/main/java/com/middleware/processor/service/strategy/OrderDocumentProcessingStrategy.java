@@ -3,6 +3,9 @@ package com.middleware.processor.service.strategy;
 import com.middleware.processor.exception.ValidationException;
 import com.middleware.processor.service.factory.OrderFactory;
 import com.middleware.processor.service.interfaces.OrderService;
+import com.middleware.processor.service.mapping.MappedDocument;
+import com.middleware.processor.service.mapping.MappingPlan;
+import com.middleware.processor.service.mapping.RuleBinding;
 import com.middleware.shared.model.*;
 import com.middleware.shared.repository.ClientRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -10,11 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Concrete strategy for processing ORDER documents.
@@ -64,17 +66,18 @@ public class OrderDocumentProcessingStrategy extends BaseDocumentProcessingTempl
      */
     @Override
     @Transactional(propagation = Propagation.REQUIRED) // Changed from MANDATORY
-    protected Object processSpecificDocument(Document document, Interface interfaceEntity) throws Exception {
+    protected Object processSpecificDocument(Document document, MultipartFile source, Interface interfaceEntity) throws Exception {
         log.debug("Processing ORDER specific document for interface: {}", interfaceEntity.getName());
 
         // Fetch a fresh Client instance to avoid session issues
         Client freshClient = clientRepository.findById(interfaceEntity.getClient().getId())
             .orElseThrow(() -> new ValidationException("Client not found with ID: " + interfaceEntity.getClient().getId()));
 
-        List<MappingRule> allRules = getActiveMappingRules(interfaceEntity.getId());
+        // Extract header values and line records in one pass where the rule paths allow it
+        MappedDocument mappedDocument = mapDocument(document, source, getMappingPlan(interfaceEntity));
 
         // 1. Process Header
-        OrderHeader orderHeader = createAndProcessHeader(document, freshClient, allRules);
+        OrderHeader orderHeader = createAndProcessHeader(mappedDocument, freshClient);
 
         // Save header first to get ID
         OrderHeader savedOrderHeader = orderService.createOrderHeader(orderHeader);
@@ -84,43 +87,92 @@ public class OrderDocumentProcessingStrategy extends BaseDocumentProcessingTempl
         log.debug("Saved Order Header with ID: {}", savedOrderHeader.getId());
 
         // 2. Process Lines using the generic line processing method
+        List<RuleBinding> lineRules = mappedDocument.getPlan().getLineBindings();
         List<OrderLine> orderLines = processLineItems(
-            document,
+            mappedDocument,
             savedOrderHeader, // Pass the saved header with ID
-            allRules,
-            DEFAULT_ORDER_LINE_XPATH,
             OrderHeader::getClient, // Function to get Client from Header
             (header, client) -> orderFactory.createDefaultLine(header, client), // Line factory function
-            (line, element) -> applyOrderLineRules(line, element, allRules) // Rule application logic for one line
+            (line, values) -> applyOrderLineRules(line, values, lineRules) // Rule application logic for one line
         );
 
         // Save lines if any were processed
         if (!orderLines.isEmpty()) {
             log.debug("Saving {} processed Order lines.", orderLines.size());
-            orderService.createOrderLines(orderLines);
+            writeLineItems(orderLines, interfaceEntity, orderService::createOrderLines);
         }
 
         log.info("Successfully processed ORDER document for interface: {}", interfaceEntity.getName());
         return savedOrderHeader; // Return the processed header entity
     }
 
+    @Override
+    protected Class<?> getHeaderEntityClass() {
+        return OrderHeader.class;
+    }
+
+    @Override
+    protected Class<?> getLineEntityClass() {
+        return OrderLine.class;
+    }
+
+    @Override
+    protected String getDefaultLineNodeXPath() {
+        return DEFAULT_ORDER_LINE_XPATH;
+    }
+
+    /**
+     * Processes a large ORDER document in streaming mode.
+     * The header is saved first so lines can be written in chunks as they are read.
+     * Runs within the transaction started by the base class processDocument method.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED)
+    protected Object processSpecificDocumentStreaming(MultipartFile source, MappingPlan plan, Interface interfaceEntity) throws Exception {
+        log.debug("Processing ORDER document in streaming mode for interface: {}", interfaceEntity.getName());
+
+        // Fetch a fresh Client instance to avoid session issues
+        Client freshClient = clientRepository.findById(interfaceEntity.getClient().getId())
+            .orElseThrow(() -> new ValidationException("Client not found with ID: " + interfaceEntity.getClient().getId()));
+
+        // 1. Process and save Header; reading stops once every header value is known
+        OrderHeader orderHeader = createAndProcessHeader(documentMapper.mapHeader(source, plan), freshClient);
+        OrderHeader savedHeader = orderService.createOrderHeader(orderHeader);
+        if (savedHeader == null || savedHeader.getId() == null) {
+            throw new ValidationException("Failed to save Order Header or generate ID.");
+        }
+
+        // 2. Stream lines and write them in chunks
+        List<RuleBinding> lineRules = plan.getLineBindings();
+        int lineCount = processLineItemsInChunks(
+            source,
+            plan,
+            interfaceEntity,
+            savedHeader,
+            OrderHeader::getClient,
+            (header, client) -> orderFactory.createDefaultLine(header, client),
+            (line, values) -> applyOrderLineRules(line, values, lineRules),
+            orderService::createOrderLines
+        );
+
+        log.info("Successfully processed streamed ORDER document - Header ID: {}, Lines: {}", savedHeader.getId(), lineCount);
+        return savedHeader;
+    }
+
     /**
      * Creates the OrderHeader entity and applies header-level mapping rules.
      */
-    private OrderHeader createAndProcessHeader(Document document, Client client, List<MappingRule> allRules) throws Exception {
+    private OrderHeader createAndProcessHeader(MappedDocument mappedDocument, Client client) throws Exception {
         OrderHeader header = orderFactory.createDefaultHeader(client);
 
-        List<MappingRule> headerRules = allRules.stream()
-            .filter(rule -> rule.getTargetLevel() == TargetLevel.HEADER)
-            .collect(Collectors.toList());
+        List<RuleBinding> headerRules = mappedDocument.getPlan().getHeaderBindings();
 
         log.debug("Applying {} header mapping rules.", headerRules.size());
 
-        for (MappingRule rule : headerRules) {
-            // Evaluate XPath relative to the document root for header fields
-            String rawValue = xmlProcessor.evaluateXPath(document, rule.getSourceField());
+        for (int slot = 0; slot < headerRules.size(); slot++) {
+            String rawValue = mappedDocument.getHeaderValue(slot);
             // Use the standardized method from the base class to apply the rule
-            applyRuleToField(header, rule, rawValue);
+            applyRuleToField(header, headerRules.get(slot), rawValue);
         }
 
         // Perform any final header validation if needed
@@ -130,24 +182,20 @@ public class OrderDocumentProcessingStrategy extends BaseDocumentProcessingTempl
     }
 
     /**
-     * Applies mapping rules specific to an OrderLine entity within the context of its XML element.
+     * Applies mapping rules specific to an OrderLine entity from the raw values of its XML element.
      * This method is passed as a lambda to the base class processLineItems.
      */
-    private void applyOrderLineRules(OrderLine line, Element lineElement, List<MappingRule> allRules) {
-        List<MappingRule> lineLevelRules = allRules.stream()
-            .filter(rule -> rule.getTargetLevel() == TargetLevel.LINE)
-            .collect(Collectors.toList());
-
+    private void applyOrderLineRules(OrderLine line, String[] values, List<RuleBinding> lineRules) {
         // Apply default values first (optional, could be in factory)
         // applyDefaultValues(line, lineLevelRules); // If needed
 
-        for (MappingRule rule : lineLevelRules) {
+        for (int slot = 0; slot < lineRules.size(); slot++) {
+            RuleBinding binding = lineRules.get(slot);
+            MappingRule rule = binding.getRule();
             try {
-                // Determine the relative XPath for the field within the line element
-                String relativeXPath = getRelativeXPath(rule.getSourceField());
-                String rawValue = xmlProcessor.evaluateXPath(lineElement, relativeXPath);
+                String rawValue = values[slot];
                 // Use the standardized method from the base class
-                applyRuleToField(line, rule, rawValue);
+                applyRuleToField(line, binding, rawValue);
             } catch (Exception e) {
                 // Error handling is mostly within applyRuleToField, but log context here
                 log.warn("Error applying rule {} to ORDER line: {}", rule.getName(), e.getMessage());
@@ -164,19 +212,6 @@ public class OrderDocumentProcessingStrategy extends BaseDocumentProcessingTempl
         validateOrderLine(line);
     }
 
-    /**
-     * Extracts the relative path from a full XPath, assuming the last segment is the field name.
-     * Basic implementation - might need refinement based on actual XPath structures.
-     */
-    private String getRelativeXPath(String fullXPath) {
-        if (fullXPath == null) return null;
-        int lastSlash = fullXPath.lastIndexOf("/");
-        if (lastSlash >= 0 && lastSlash < fullXPath.length() - 1) {
-            return fullXPath.substring(lastSlash + 1);
-        }
-        return fullXPath; // Return full path if no slash or it's the last char
-    }
-
     // --- Specific Validations (Keep if needed) ---
 
     private void validateOrderHeader(OrderHeader header) {
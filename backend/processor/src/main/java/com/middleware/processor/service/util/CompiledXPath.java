@@ -0,0 +1,66 @@
+package com.middleware.processor.service.util;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.Map;
+
+/**
+ * Precompiled XPath handle produced by {@link XmlProcessor#compileXPath}.
+ * The handle itself is immutable and can be shared between threads; because
+ * {@link XPathExpression} is not thread-safe, each thread compiles its own copy
+ * on first use and reuses it afterwards.
+ */
+public final class CompiledXPath {
+
+    private static final ThreadLocal<XPathFactory> XPATH_FACTORY = ThreadLocal.withInitial(XPathFactory::newInstance);
+
+    private final String expression;
+    private final Map<String, String> namespaces;
+    private final NamespaceContext namespaceContext;
+    private final ThreadLocal<XPathExpression> compiled;
+
+    CompiledXPath(String expression, Map<String, String> namespaces, NamespaceContext namespaceContext) throws XPathExpressionException {
+        this.expression = expression;
+        this.namespaces = namespaces;
+        this.namespaceContext = namespaceContext;
+        this.compiled = new ThreadLocal<>();
+        // Compile once up front so invalid expressions fail where they are declared
+        this.compiled.set(compile());
+    }
+
+    private XPathExpression compile() throws XPathExpressionException {
+        XPath xpath = XPATH_FACTORY.get().newXPath();
+        if (!namespaces.isEmpty()) {
+            xpath.setNamespaceContext(namespaceContext);
+        }
+        return xpath.compile(expression);
+    }
+
+    /**
+     * Get the compiled expression for the calling thread.
+     */
+    XPathExpression expression() throws XPathExpressionException {
+        XPathExpression expr = compiled.get();
+        if (expr == null) {
+            expr = compile();
+            compiled.set(expr);
+        }
+        return expr;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public Map<String, String> getNamespaces() {
+        return namespaces;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,315 @@
+package com.middleware.processor.service.util;
+
+import com.middleware.processor.config.BulkLoadConfig;
+import com.middleware.shared.model.BaseEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.enhanced.NoopOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.Type;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes entities straight into their table with PostgreSQL COPY.
+ * The column layout of an entity class is read from its Hibernate mapping once. Ids are drawn
+ * from the entity's sequence in the blocks its optimizer uses, so they never collide with ids
+ * Hibernate hands out. Rows are encoded as CSV into a bounded buffer and streamed over the
+ * connection of the current transaction; the entities never enter the persistence context.
+ */
+@Component
+public class CopyBulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CopyBulkLoader.class);
+
+    private static final String ALLOCATE_IDS_SQL = "select nextval(cast(? as regclass)) from generate_series(1, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final BulkLoadConfig config;
+    private final MeterRegistry registry;
+    private final Map<Class<?>, CopyTable> tables = new ConcurrentHashMap<>();
+
+    public CopyBulkLoader(BulkLoadConfig config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+    }
+
+    /**
+     * Copy new entities into their table within the current transaction.
+     * Pending changes of the persistence context are flushed first, so rows the entities
+     * reference, such as a header persisted in the same transaction, already exist.
+     *
+     * @param entityClass The mapped entity class
+     * @param entities New entities of that class; their ids and timestamps are set
+     * @return The number of rows written
+     */
+    public long copy(Class<?> entityClass, List<?> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        session.flush();
+        CopyTable table = tables.computeIfAbsent(entityClass, type -> new CopyTable(session.getFactory(), type, registry));
+
+        long start = System.nanoTime();
+        try {
+            long rows = session.doReturningWork(connection -> table.copy(session, connection, entities, config.getBufferSizeBytes()));
+            table.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            table.rowCounter.increment(rows);
+            log.debug("Copied {} row(s) into {} in {} ms", rows, table.tableName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return rows;
+        } catch (RuntimeException e) {
+            table.failureCounter.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes one value into a CSV field; null values are handled by the caller.
+     */
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(StringBuilder out, Object value);
+    }
+
+    /**
+     * COPY layout of one entity class: the id column, the insertable single-column properties
+     * and how each of them is encoded.
+     */
+    private static final class CopyTable {
+        private final AbstractEntityPersister persister;
+        private final String tableName;
+        private final String sequenceName;
+        private final int idBlockSize;
+        private final int[] propertyIndexes;
+        private final FieldWriter[] writers;
+        private final String copySql;
+
+        private final Timer timer;
+        private final Counter rowCounter;
+        private final Counter failureCounter;
+
+        CopyTable(SessionFactoryImplementor factory, Class<?> entityClass, MeterRegistry registry) {
+            this.persister = (AbstractEntityPersister) factory.getMappingMetamodel().getEntityDescriptor(entityClass);
+            this.tableName = persister.getIdentifierTableName();
+
+            List<String> columns = new ArrayList<>();
+            Generator generator = persister.getGenerator();
+            if (generator instanceof SequenceStyleGenerator sequenceGenerator) {
+                this.sequenceName = sequenceGenerator.getDatabaseStructure().getPhysicalName().render();
+                this.idBlockSize = idBlockSize(sequenceGenerator.getOptimizer(), entityClass);
+                columns.add(persister.getIdentifierColumnNames()[0]);
+            } else {
+                // Ids come from the column default and are not written back to the entities
+                this.sequenceName = null;
+                this.idBlockSize = 0;
+            }
+
+            PersistenceUnitUtil persistenceUnitUtil = factory.getPersistenceUnitUtil();
+            String[] propertyNames = persister.getPropertyNames();
+            Type[] propertyTypes = persister.getPropertyTypes();
+            boolean[] insertable = persister.getPropertyInsertability();
+            List<Integer> indexes = new ArrayList<>();
+            List<FieldWriter> fieldWriters = new ArrayList<>();
+            for (int i = 0; i < propertyNames.length; i++) {
+                String[] propertyColumns = persister.getPropertyColumnNames(i);
+                if (!insertable[i] || propertyColumns.length == 0) {
+                    continue;
+                }
+                if (propertyColumns.length > 1) {
+                    throw new IllegalStateException("COPY does not support multi-column property " + propertyNames[i] +
+                        " of " + entityClass.getName());
+                }
+                columns.add(propertyColumns[0]);
+                indexes.add(i);
+                fieldWriters.add(writerFor(propertyTypes[i], persistenceUnitUtil));
+            }
+            this.propertyIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+            this.writers = fieldWriters.toArray(new FieldWriter[0]);
+            this.copySql = "COPY " + tableName + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+
+            this.timer = Timer.builder("xml.persistence.copy")
+                .description("Time spent copying document lines into their table")
+                .tag("table", tableName)
+                .register(registry);
+            this.rowCounter = Counter.builder("xml.persistence.copy.rows")
+                .description("Number of rows written with COPY")
+                .tag("table", tableName)
+                .register(registry);
+            this.failureCounter = Counter.builder("xml.persistence.copy.failures")
+                .description("Number of COPY operations that failed")
+                .tag("table", tableName)
+                .register(registry);
+            log.info("Prepared COPY of {} into {} with {} column(s)", entityClass.getSimpleName(), tableName, columns.size());
+        }
+
+        private static int idBlockSize(Optimizer optimizer, Class<?> entityClass) {
+            if (optimizer instanceof PooledLoOptimizer) {
+                // Each sequence value v reserves the ids v .. v + increment - 1
+                return optimizer.getIncrementSize();
+            }
+            if (optimizer == null || optimizer instanceof NoopOptimizer) {
+                return 1;
+            }
+            throw new IllegalStateException("COPY does not support the " + optimizer.getClass().getSimpleName() +
+                " id optimizer of " + entityClass.getName());
+        }
+
+        private static FieldWriter writerFor(Type type, PersistenceUnitUtil persistenceUnitUtil) {
+            if (type.isEntityType()) {
+                return (out, value) -> appendPlain(out, persistenceUnitUtil.getIdentifier(value));
+            }
+            int sqlType = type instanceof BasicType<?> basicType ? basicType.getJdbcType().getDefaultSqlTypeCode() : Types.OTHER;
+            Class<?> javaType = type.getReturnedClass();
+            if (Date.class.isAssignableFrom(javaType)) {
+                return sqlType == Types.DATE
+                    ? (out, value) -> out.append(new java.sql.Date(((Date) value).getTime()).toLocalDate())
+                    : (out, value) -> out.append(new java.sql.Timestamp(((Date) value).getTime()).toLocalDateTime());
+            }
+            if (javaType.isEnum()) {
+                boolean ordinal = sqlType == Types.TINYINT || sqlType == Types.SMALLINT || sqlType == Types.INTEGER;
+                return ordinal
+                    ? (out, value) -> out.append(((Enum<?>) value).ordinal())
+                    : (out, value) -> appendQuoted(out, ((Enum<?>) value).name());
+            }
+            return CopyTable::appendPlain;
+        }
+
+        private static void appendPlain(StringBuilder out, Object value) {
+            if (value instanceof String string) {
+                appendQuoted(out, string);
+            } else if (value instanceof BigDecimal decimal) {
+                out.append(decimal.toPlainString());
+            } else {
+                out.append(value);
+            }
+        }
+
+        /**
+         * Strings are always quoted, so an empty string stays distinct from the unquoted empty NULL.
+         */
+        private static void appendQuoted(StringBuilder out, String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.append('"');
+                }
+                out.append(c);
+            }
+            out.append('"');
+        }
+
+        long copy(SessionImplementor session, Connection connection, List<?> entities, int bufferSize) throws SQLException {
+            long[] ids = allocateIds(connection, entities.size());
+            LocalDateTime now = LocalDateTime.now();
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+            try {
+                StringBuilder rows = new StringBuilder(bufferSize + 1024);
+                for (int n = 0; n < entities.size(); n++) {
+                    Object entity = entities.get(n);
+                    if (ids != null) {
+                        persister.setIdentifier(entity, ids[n], session);
+                        rows.append(ids[n]).append(',');
+                    }
+                    if (entity instanceof BaseEntity baseEntity) {
+                        // @PrePersist does not run for copied rows
+                        if (baseEntity.getCreatedAt() == null) {
+                            baseEntity.setCreatedAt(now);
+                        }
+                        baseEntity.setUpdatedAt(now);
+                    }
+                    appendRow(rows, persister.getPropertyValues(entity));
+                    if (rows.length() >= bufferSize) {
+                        send(copyIn, rows);
+                    }
+                }
+                send(copyIn, rows);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+
+        private void appendRow(StringBuilder rows, Object[] values) {
+            for (int i = 0; i < propertyIndexes.length; i++) {
+                if (i > 0) {
+                    rows.append(',');
+                }
+                Object value = values[propertyIndexes[i]];
+                if (value != null) {
+                    writers[i].write(rows, value);
+                }
+            }
+            rows.append('\n');
+        }
+
+        private static void send(CopyIn copyIn, StringBuilder rows) throws SQLException {
+            if (rows.length() == 0) {
+                return;
+            }
+            byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            rows.setLength(0);
+        }
+
+        private long[] allocateIds(Connection connection, int count) throws SQLException {
+            if (sequenceName == null) {
+                return null;
+            }
+            long[] ids = new long[count];
+            int blocks = (count + idBlockSize - 1) / idBlockSize;
+            try (PreparedStatement statement = connection.prepareStatement(ALLOCATE_IDS_SQL)) {
+                statement.setString(1, sequenceName);
+                statement.setInt(2, blocks);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    int n = 0;
+                    while (resultSet.next()) {
+                        long low = resultSet.getLong(1);
+                        for (int k = 0; k < idBlockSize && n < count; k++) {
+                            ids[n++] = low + k;
+                        }
+                    }
+                    if (n < count) {
+                        throw new SQLException("Sequence " + sequenceName + " returned ids for " + n + " of " + count + " rows");
+                    }
+                }
+            }
+            return ids;
+        }
+    }
+}
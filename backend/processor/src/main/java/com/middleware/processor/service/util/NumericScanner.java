@@ -0,0 +1,118 @@
+package com.middleware.processor.service.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Reads numbers out of free-form values such as "1,5 kg" or "EUR -12.30".
+ * Only digits, the decimal separators '.' and ',' and a leading minus sign are considered;
+ * every other character is skipped. Values are accumulated in a long while they fit, so
+ * the common case creates no intermediate strings; longer numbers fall back to BigDecimal.
+ */
+final class NumericScanner {
+
+    private static final long MAX_BEFORE_DIGIT = (Long.MAX_VALUE - 9) / 10;
+
+    private NumericScanner() {
+    }
+
+    /**
+     * Parse the number in a value.
+     *
+     * @param value The value to scan
+     * @return The number with one digit of scale per fraction digit, or null if the value
+     *         holds no digits and at most one sign or separator
+     * @throws NumberFormatException If the numeric characters do not form a number, e.g. "1.2.3"
+     */
+    static BigDecimal parseDecimal(String value) {
+        return (BigDecimal) scan(value, false);
+    }
+
+    /**
+     * Parse the number in a value, rounded half up to an integer.
+     *
+     * @param value The value to scan
+     * @return The rounded number, or null as for {@link #parseDecimal(String)}
+     * @throws NumberFormatException If the numeric characters do not form a number
+     */
+    static Long parseRoundedLong(String value) {
+        return (Long) scan(value, true);
+    }
+
+    private static Object scan(String value, boolean round) {
+        boolean negative = false;
+        boolean separator = false;
+        int numericChars = 0;
+        int digits = 0;
+        int scale = 0;
+        long unscaled = 0;
+        int firstDroppedDigit = -1;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (round && separator) {
+                    // Half-up rounding only depends on the first fraction digit
+                    if (firstDroppedDigit < 0) {
+                        firstDroppedDigit = c - '0';
+                    }
+                } else if (unscaled > MAX_BEFORE_DIGIT) {
+                    return scanLarge(value, round);
+                } else {
+                    unscaled = unscaled * 10 + (c - '0');
+                    if (separator) {
+                        scale++;
+                    }
+                }
+            } else if (c == '.' || c == ',') {
+                if (separator) {
+                    throw invalid(value);
+                }
+                separator = true;
+            } else if (c == '-') {
+                if (numericChars > 0) {
+                    throw invalid(value);
+                }
+                negative = true;
+            } else {
+                continue;
+            }
+            numericChars++;
+        }
+
+        if (digits == 0) {
+            // A lone sign or separator counts as no value; anything longer is malformed
+            if (numericChars <= 1) {
+                return null;
+            }
+            throw invalid(value);
+        }
+        if (round) {
+            long rounded = firstDroppedDigit >= 5 ? unscaled + 1 : unscaled;
+            return negative ? -rounded : rounded;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    /**
+     * Slow path for numbers with more digits than fit in a long.
+     */
+    private static Object scanLarge(String value, boolean round) {
+        StringBuilder numeric = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.' || c == '-') {
+                numeric.append(c);
+            } else if (c == ',') {
+                numeric.append('.');
+            }
+        }
+        BigDecimal decimal = new BigDecimal(numeric.toString());
+        return round ? decimal.setScale(0, RoundingMode.HALF_UP).longValue() : decimal;
+    }
+
+    private static NumberFormatException invalid(String value) {
+        return new NumberFormatException("Not a valid number: " + value);
+    }
+}
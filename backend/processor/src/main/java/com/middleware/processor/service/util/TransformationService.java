@@ -1,18 +1,35 @@
 package com.middleware.processor.service.util;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.text.SimpleDateFormat;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
  * Generic transformation service that handles chained transformations and type conversion.
@@ -34,19 +51,72 @@ import java.util.function.Function;
  * - ASN Number: "remove_leading_zeros|integer" with Integer.class
  * - Receipt Date: "trim|date_format" with Date.class
  * - Quantity: "remove_leading_zeros|decimal_format" with BigDecimal.class
+ *
+ * Each distinct chain and target type is compiled once into a pipeline of transformation steps
+ * ending in the target type converter, so applying a chain to a value involves no parsing of
+ * the chain and no dispatch on transformation names.
+ *
+ * Dates and times use immutable java.time formatters that are safe to share between consumer
+ * threads. Parsing accepts one- or two-digit fields, ignores trailing text and rolls
+ * out-of-range fields over, so 2024-02-30 is read as 2024-03-01.
  */
 @Service
 public class TransformationService {
     private static final Logger logger = LoggerFactory.getLogger(TransformationService.class);
     
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-    private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss");
-    private static final SimpleDateFormat DATETIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-    
-    private final Map<String, Function<String, Object>> transformationCache;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss");
+
+    private static final DateTimeFormatter DATE_PARSER = lenientParser(true, false);
+    private static final DateTimeFormatter TIME_PARSER = lenientParser(false, true);
+    private static final DateTimeFormatter DATETIME_PARSER = lenientParser(true, true);
+
+    private static final Pattern CHAIN_SEPARATOR = Pattern.compile("\\|");
+    private static final Pattern LEADING_ZEROS = Pattern.compile("^0+");
+
+    private static final String NAME_TAG = "name";
+    private static final String TYPE_TAG = "type";
+
+    private final MeterRegistry registry;
+    private final Map<String, Step> steps;
+    private final Map<PipelineKey, Pipeline> transformationCache;
     
-    public TransformationService() {
+    public TransformationService(MeterRegistry registry) {
+        this.registry = registry;
         this.transformationCache = new ConcurrentHashMap<>();
+
+        Map<String, Step> stepMap = new LinkedHashMap<>();
+        addStep(stepMap, "uppercase", String::toUpperCase);
+        addStep(stepMap, "lowercase", String::toLowerCase);
+        addStep(stepMap, "trim", String::trim);
+        addStep(stepMap, "date_format", value -> DATE_FORMAT.format(parseDate(value)));
+        addStep(stepMap, "time_format", value -> TIME_FORMAT.format(LocalTime.from(parseLeading(TIME_PARSER, value))));
+        addStep(stepMap, "datetime_format", value -> DATETIME_FORMAT.format(LocalDateTime.from(parseLeading(DATETIME_PARSER, value))));
+        addStep(stepMap, "remove_leading_zeros", value -> {
+            String trimmed = LEADING_ZEROS.matcher(value).replaceFirst("");
+            return trimmed.isEmpty() ? "0" : trimmed;
+        });
+        addStep(stepMap, "decimal_format", value -> formatDecimalNumber(value, 3));
+        addStep(stepMap, "integer_format", value -> formatDecimalNumber(value, 0));
+        addStep(stepMap, "currency_format", value -> formatDecimalNumber(value, 2));
+        this.steps = Map.copyOf(stepMap);
+
+        Gauge.builder("xml.transformation.pipelines", transformationCache, Map::size)
+            .description("Number of compiled transformation pipelines")
+            .register(registry);
+    }
+
+    private void addStep(Map<String, Step> stepMap, String name, StepFunction function) {
+        Timer timer = Timer.builder("xml.transformation.step")
+            .description("Time spent applying a transformation to a value")
+            .tag(NAME_TAG, name)
+            .register(registry);
+        Counter failures = Counter.builder("xml.transformation.failures")
+            .description("Number of values a transformation failed on")
+            .tag(NAME_TAG, name)
+            .register(registry);
+        stepMap.put(name, new Step(name, function, timer, failures));
     }
 
     /**
@@ -60,29 +130,19 @@ public class TransformationService {
      * @throws TransformationException if transformation or conversion fails
      */
     public Object transformAndConvert(String value, String transformationChain, Class<?> targetType) {
-        if (value == null || value.trim().isEmpty()) {
-            return null;
-        }
-
-        try {
-            // Split the transformation chain
-            String[] transformations = transformationChain != null ? 
-                transformationChain.toLowerCase().split("\\|") : 
-                new String[0];
-
-            // Apply each transformation in sequence
-            String result = value;
-            for (String transformation : transformations) {
-                result = applyTransformation(result, transformation.trim());
-            }
+        return getPipeline(transformationChain, targetType).transformAndConvert(value);
+    }
 
-            // Convert to target type
-            return convertToTargetType(result, targetType);
-        } catch (Exception e) {
-            logger.error("Error in transformation chain '{}' for value '{}' to type '{}': {}", 
-                transformationChain, value, targetType.getName(), e.getMessage());
-            throw new TransformationException("Transformation failed", e);
-        }
+    /**
+     * Get the compiled pipeline for a transformation chain and target type, compiling it on first use.
+     * Callers that apply the same rule repeatedly can keep the pipeline instead of looking it up per value.
+     *
+     * @param transformationChain The chain of transformations (pipe-separated), or null for none
+     * @param targetType The desired output type
+     * @return The pipeline
+     */
+    public Pipeline getPipeline(String transformationChain, Class<?> targetType) {
+        return transformationCache.computeIfAbsent(new PipelineKey(transformationChain, targetType), this::compile);
     }
 
     /**
@@ -96,133 +156,153 @@ public class TransformationService {
      * @throws TransformationException if transformation fails
      */
     public String applyTransformation(String value, String transformation) {
-        if (value == null || value.trim().isEmpty() || transformation == null || transformation.trim().isEmpty()) {
+        if (isBlank(value) || isBlank(transformation)) {
             return value;
         }
-        
-        try {
-            switch (transformation) {
-                case "uppercase":
-                    return value.toUpperCase();
-                    
-                case "lowercase":
-                    return value.toLowerCase();
-                    
-                case "trim":
-                    return value.trim();
-                    
-                case "date_format":
-                    return DATE_FORMAT.format(DATE_FORMAT.parse(value));
-                    
-                case "time_format":
-                    return TIME_FORMAT.format(TIME_FORMAT.parse(value));
-                    
-                case "datetime_format":
-                    return DATETIME_FORMAT.format(DATETIME_FORMAT.parse(value));
-                    
-                case "remove_leading_zeros":
-                    String trimmed = value.replaceFirst("^0+", "");
-                    return trimmed.isEmpty() ? "0" : trimmed;
-                    
-                case "decimal_format":
-                    return formatDecimalNumber(value, 3);
-                    
-                case "integer_format":
-                    return formatDecimalNumber(value, 0);
-                    
-                case "currency_format":
-                    return formatDecimalNumber(value, 2);
-                    
-                default:
-                    logger.warn("Unknown transformation: {}", transformation);
-                    return value;
+        Step step = steps.get(transformation);
+        if (step == null) {
+            logger.warn("Unknown transformation: {}", transformation);
+            return value;
+        }
+        return step.apply(value);
+    }
+
+    /**
+     * Compile a transformation chain and target type into a pipeline.
+     * Unknown transformations are reported once here and left out of the pipeline.
+     */
+    private Pipeline compile(PipelineKey key) {
+        List<Step> chainSteps = new ArrayList<>();
+        if (key.chain() != null) {
+            for (String name : CHAIN_SEPARATOR.split(key.chain().toLowerCase(Locale.ROOT))) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                Step step = steps.get(name);
+                if (step == null) {
+                    logger.warn("Unknown transformation '{}' in chain '{}'", name, key.chain());
+                    continue;
+                }
+                chainSteps.add(step);
             }
-        } catch (Exception e) {
-            logger.error("Error applying transformation '{}' to value '{}': {}", 
-                transformation, value, e.getMessage());
-            throw new TransformationException("Transformation '" + transformation + "' failed", e);
         }
+
+        Class<?> targetType = key.targetType();
+        Timer conversionTimer = Timer.builder("xml.transformation.conversion")
+            .description("Time spent converting transformed values to their target type")
+            .tag(TYPE_TAG, targetType.getSimpleName())
+            .register(registry);
+        Counter conversionFailures = Counter.builder("xml.transformation.conversion.failures")
+            .description("Number of transformed values that could not be converted to their target type")
+            .tag(TYPE_TAG, targetType.getSimpleName())
+            .register(registry);
+        logger.debug("Compiled transformation chain '{}' to {} with {} step(s)", key.chain(), targetType.getName(), chainSteps.size());
+        return new Pipeline(key.chain(), chainSteps.toArray(new Step[0]), converterFor(targetType), targetType, conversionTimer, conversionFailures);
     }
 
     /**
-     * Convert a value to the target type.
+     * Select the conversion for a target type. Values reach the converter trimmed and non-blank.
      */
-    private Object convertToTargetType(String value, Class<?> targetType) {
-        if (value == null || value.trim().isEmpty()) {
-            return null;
+    private static Converter converterFor(Class<?> targetType) {
+        if (String.class.equals(targetType)) {
+            return value -> value;
         }
 
-        try {
-            String cleanValue = value.trim();
-            
-            if (String.class.equals(targetType)) {
-                return cleanValue;
-            }
-            
-            // Handle numeric types
-            if (isNumericType(targetType)) {
-                cleanValue = cleanValue.replace(",", ".")
-                                     .replaceAll("[^\\d.\\-]", "");
-                
-                if (cleanValue.isEmpty() || cleanValue.equals(".") || cleanValue.equals("-")) {
+        // Handle numeric types
+        if (Integer.class.equals(targetType) || int.class.equals(targetType)) {
+            return value -> {
+                Long rounded = NumericScanner.parseRoundedLong(value);
+                return rounded == null ? null : rounded.intValue();
+            };
+        } else if (Long.class.equals(targetType) || long.class.equals(targetType)) {
+            return NumericScanner::parseRoundedLong;
+        } else if (Double.class.equals(targetType) || double.class.equals(targetType)) {
+            return value -> {
+                BigDecimal decimal = NumericScanner.parseDecimal(value);
+                return decimal == null ? null : decimal.doubleValue();
+            };
+        } else if (BigDecimal.class.equals(targetType)) {
+            return NumericScanner::parseDecimal;
+        } else if (isNumericType(targetType)) {
+            return value -> {
+                if (NumericScanner.parseDecimal(value) == null) {
                     return null;
                 }
-                
-                BigDecimal decimal = new BigDecimal(cleanValue);
-                
-                if (Integer.class.equals(targetType) || int.class.equals(targetType)) {
-                    return decimal.setScale(0, RoundingMode.HALF_UP).intValue();
-                } else if (Long.class.equals(targetType) || long.class.equals(targetType)) {
-                    return decimal.setScale(0, RoundingMode.HALF_UP).longValue();
-                } else if (Double.class.equals(targetType) || double.class.equals(targetType)) {
-                    return decimal.doubleValue();
-                } else if (BigDecimal.class.equals(targetType)) {
-                    return decimal;
-                }
-            }
-            
-            // Handle date types
-            if (java.util.Date.class.equals(targetType)) {
-                return DATE_FORMAT.parse(cleanValue);
-            } else if (java.time.LocalDate.class.equals(targetType)) {
-                return java.time.LocalDate.parse(cleanValue);
-            } else if (java.time.LocalDateTime.class.equals(targetType)) {
-                return java.time.LocalDateTime.parse(cleanValue);
-            }
-            
-            // Handle boolean
-            if (Boolean.class.equals(targetType) || boolean.class.equals(targetType)) {
-                return Boolean.parseBoolean(cleanValue);
-            }
-            
+                throw new TransformationException("Unsupported target type: " + targetType.getName());
+            };
+        }
+
+        // Handle date types
+        if (Date.class.equals(targetType)) {
+            return value -> Date.from(parseDate(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } else if (LocalDate.class.equals(targetType)) {
+            return LocalDate::parse;
+        } else if (LocalDateTime.class.equals(targetType)) {
+            return LocalDateTime::parse;
+        }
+
+        // Handle boolean
+        if (Boolean.class.equals(targetType) || boolean.class.equals(targetType)) {
+            return Boolean::parseBoolean;
+        }
+
+        return value -> {
             throw new TransformationException("Unsupported target type: " + targetType.getName());
-            
-        } catch (Exception e) {
-            logger.error("Error converting value '{}' to type '{}': {}", 
-                value, targetType.getName(), e.getMessage());
-            throw new TransformationException("Type conversion failed", e);
+        };
+    }
+
+    /**
+     * Build a parser for the yyyy-MM-dd and HH:mm:ss patterns that accepts one- or two-digit fields
+     * and resolves out-of-range values by rolling them over.
+     */
+    private static DateTimeFormatter lenientParser(boolean date, boolean time) {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        if (date) {
+            builder.appendValue(ChronoField.YEAR, 1, 9, SignStyle.NORMAL)
+                .appendLiteral('-')
+                .appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE)
+                .appendLiteral('-')
+                .appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE);
         }
+        if (date && time) {
+            builder.appendLiteral('T');
+        }
+        if (time) {
+            builder.appendValue(ChronoField.HOUR_OF_DAY, 1, 2, SignStyle.NOT_NEGATIVE)
+                .appendLiteral(':')
+                .appendValue(ChronoField.MINUTE_OF_HOUR, 1, 2, SignStyle.NOT_NEGATIVE)
+                .appendLiteral(':')
+                .appendValue(ChronoField.SECOND_OF_MINUTE, 1, 2, SignStyle.NOT_NEGATIVE);
+        }
+        return builder.toFormatter(Locale.ROOT).withResolverStyle(ResolverStyle.LENIENT);
+    }
+
+    /**
+     * Parse the date or time at the start of a value; leading whitespace and anything after it are ignored.
+     */
+    private static TemporalAccessor parseLeading(DateTimeFormatter parser, String value) {
+        int start = 0;
+        while (start < value.length() && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        return parser.parse(value, new ParsePosition(start));
+    }
+
+    private static LocalDate parseDate(String value) {
+        return LocalDate.from(parseLeading(DATE_PARSER, value));
     }
 
     /**
      * Format a decimal number with specified decimal places.
      */
-    private String formatDecimalNumber(String value, int decimalPlaces) {
+    private static String formatDecimalNumber(String value, int decimalPlaces) {
         try {
-            String cleanValue = value.trim()
-                                   .replace(",", ".")
-                                   .replaceAll("[^\\d.\\-]", "");
-            
-            BigDecimal number = new BigDecimal(cleanValue);
-            
-            DecimalFormat formatter = new DecimalFormat();
-            formatter.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
-            formatter.setMinimumFractionDigits(decimalPlaces);
-            formatter.setMaximumFractionDigits(decimalPlaces);
-            formatter.setGroupingUsed(false);
-            formatter.setRoundingMode(RoundingMode.HALF_UP);
-
-            return formatter.format(number);
+            BigDecimal number = NumericScanner.parseDecimal(value);
+            if (number == null) {
+                throw new NumberFormatException("No number in value: " + value);
+            }
+            return number.setScale(decimalPlaces, RoundingMode.HALF_UP).toPlainString();
         } catch (Exception e) {
             logger.error("Error formatting decimal number: {} with {} decimal places: {}", 
                 value, decimalPlaces, e.getMessage());
@@ -230,13 +310,129 @@ public class TransformationService {
         }
     }
 
-    private boolean isNumericType(Class<?> type) {
+    private static boolean isNumericType(Class<?> type) {
         return Number.class.isAssignableFrom(type) ||
                type == int.class ||
                type == long.class ||
                type == double.class ||
                type == float.class;
     }
+
+    /**
+     * Same test as {@code value.trim().isEmpty()} without creating the trimmed copy.
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface StepFunction {
+        String apply(String value) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        Object convert(String value) throws Exception;
+    }
+
+    private record PipelineKey(String chain, Class<?> targetType) {
+    }
+
+    /**
+     * A named transformation with its metrics.
+     */
+    private record Step(String name, StepFunction function, Timer timer, Counter failures) {
+
+        String apply(String value) {
+            // Blank values pass through untouched, e.g. after an earlier trim emptied them
+            if (isBlank(value)) {
+                return value;
+            }
+            long start = System.nanoTime();
+            try {
+                return function.apply(value);
+            } catch (Exception e) {
+                failures.increment();
+                logger.error("Error applying transformation '{}' to value '{}': {}", 
+                    name, value, e.getMessage());
+                throw new TransformationException("Transformation '" + name + "' failed", e);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * A compiled transformation chain followed by the conversion to its target type.
+     */
+    public static final class Pipeline {
+        private final String chain;
+        private final Step[] steps;
+        private final Converter converter;
+        private final Class<?> targetType;
+        private final Timer conversionTimer;
+        private final Counter conversionFailures;
+
+        private Pipeline(String chain, Step[] steps, Converter converter, Class<?> targetType,
+                         Timer conversionTimer, Counter conversionFailures) {
+            this.chain = chain;
+            this.steps = steps;
+            this.converter = converter;
+            this.targetType = targetType;
+            this.conversionTimer = conversionTimer;
+            this.conversionFailures = conversionFailures;
+        }
+
+        /**
+         * Transform a value through the chain and convert it to the target type.
+         *
+         * @param value The input value to transform
+         * @return The transformed and converted value, or null for a blank value
+         * @throws TransformationException if transformation or conversion fails
+         */
+        public Object transformAndConvert(String value) {
+            if (isBlank(value)) {
+                return null;
+            }
+
+            try {
+                String result = value;
+                for (Step step : steps) {
+                    result = step.apply(result);
+                }
+                return convert(result);
+            } catch (Exception e) {
+                logger.error("Error in transformation chain '{}' for value '{}' to type '{}': {}", 
+                    chain, value, targetType.getName(), e.getMessage());
+                throw new TransformationException("Transformation failed", e);
+            }
+        }
+
+        private Object convert(String value) {
+            if (isBlank(value)) {
+                return null;
+            }
+            long start = System.nanoTime();
+            try {
+                return converter.convert(value.trim());
+            } catch (Exception e) {
+                conversionFailures.increment();
+                logger.error("Error converting value '{}' to type '{}': {}", 
+                    value, targetType.getName(), e.getMessage());
+                throw new TransformationException("Type conversion failed", e);
+            } finally {
+                conversionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
 }
 
 class TransformationException extends RuntimeException {
@@ -0,0 +1,200 @@
+package com.middleware.processor.service.util;
+
+import com.middleware.processor.config.XmlParserPoolConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of namespace-aware DocumentBuilder instances.
+ * Document builders come from a single factory configured once with the secure feature set
+ * (no DTDs, no external entities, no XInclude). Schema builders come from a second factory
+ * that accepts a DOCTYPE, since older partner XSDs often carry one, but still never loads
+ * external DTDs or entities. Builders are reset before they are returned to their pool;
+ * when the pool is full the returned builder is discarded.
+ */
+@Component
+public class XmlParserPool {
+
+    private static final Logger log = LoggerFactory.getLogger(XmlParserPool.class);
+
+    private final XmlParserPoolConfig config;
+    private final DocumentBuilderFactory factory;
+    private final BlockingQueue<DocumentBuilder> idleBuilders;
+    private final DocumentBuilderFactory schemaFactory;
+    private final BlockingQueue<DocumentBuilder> idleSchemaBuilders;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter discardCounter;
+
+    public XmlParserPool(XmlParserPoolConfig config, MeterRegistry registry) throws ParserConfigurationException {
+        this.config = config;
+        this.factory = createSecureFactory();
+        this.idleBuilders = new ArrayBlockingQueue<>(Math.max(1, config.getMaxIdle()));
+        this.schemaFactory = createSchemaFactory();
+        this.idleSchemaBuilders = new ArrayBlockingQueue<>(Math.max(1, config.getMaxIdle()));
+
+        this.hitCounter = Counter.builder("xml.parser.pool.hits")
+            .description("Number of parses served by a pooled DocumentBuilder")
+            .register(registry);
+        this.missCounter = Counter.builder("xml.parser.pool.misses")
+            .description("Number of parses that had to create a new DocumentBuilder")
+            .register(registry);
+        this.discardCounter = Counter.builder("xml.parser.pool.discarded")
+            .description("Number of DocumentBuilders dropped because the pool was full or reset failed")
+            .register(registry);
+        Gauge.builder("xml.parser.pool.idle", idleBuilders, BlockingQueue::size)
+            .description("Number of idle DocumentBuilders in the pool")
+            .register(registry);
+        Gauge.builder("xml.parser.pool.schema.idle", idleSchemaBuilders, BlockingQueue::size)
+            .description("Number of idle schema DocumentBuilders in the pool")
+            .register(registry);
+    }
+
+    /**
+     * Creates the factory with the same security settings XmlProcessor has always applied.
+     */
+    private static DocumentBuilderFactory createSecureFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true); // Enable namespace support
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); // Security: Disallow DTDs
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false); // Security: Disable external entities
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); // Security: Disable external parameter entities
+        factory.setXIncludeAware(false); // Security: Disable XInclude
+        factory.setExpandEntityReferences(false); // Security: Don't expand entity references
+        return factory;
+    }
+
+    /**
+     * Creates the factory used for XSDs. Unlike the document factory it accepts a DOCTYPE
+     * (and expands internal entities, as the per-call factories did before pooling), but
+     * external DTDs, external entities and XInclude stay disabled.
+     */
+    private static DocumentBuilderFactory createSchemaFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true); // Security: Entity expansion limits
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); // Security: Never fetch the DTD
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false); // Security: Disable external entities
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); // Security: Disable external parameter entities
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, ""); // Security: No external DTD access
+        factory.setXIncludeAware(false); // Security: Disable XInclude
+        return factory;
+    }
+
+    /**
+     * Parse an input stream with a pooled builder.
+     *
+     * @param inputStream The XML content
+     * @return The parsed Document
+     */
+    public Document parse(InputStream inputStream) throws IOException, SAXException, ParserConfigurationException {
+        DocumentBuilder builder = borrow();
+        try {
+            return builder.parse(inputStream);
+        } finally {
+            release(builder);
+        }
+    }
+
+    /**
+     * Parse an input source with a pooled builder.
+     *
+     * @param inputSource The XML content
+     * @return The parsed Document
+     */
+    public Document parse(InputSource inputSource) throws IOException, SAXException, ParserConfigurationException {
+        DocumentBuilder builder = borrow();
+        try {
+            return builder.parse(inputSource);
+        } finally {
+            release(builder);
+        }
+    }
+
+    /**
+     * Parse an XSD (or another schema-side document) with a pooled schema builder.
+     * A DOCTYPE is accepted; external DTDs and entities are never resolved.
+     *
+     * @param inputStream The schema content
+     * @return The parsed Document
+     */
+    public Document parseSchema(InputStream inputStream) throws IOException, SAXException, ParserConfigurationException {
+        DocumentBuilder builder = borrow(schemaFactory, idleSchemaBuilders);
+        try {
+            return builder.parse(inputStream);
+        } finally {
+            release(builder, idleSchemaBuilders);
+        }
+    }
+
+    /**
+     * Take a builder out of the pool, creating one if none is idle.
+     * Callers must hand it back through {@link #release(DocumentBuilder)}.
+     */
+    public DocumentBuilder borrow() throws ParserConfigurationException {
+        return borrow(factory, idleBuilders);
+    }
+
+    /**
+     * Reset a builder and return it to the pool.
+     */
+    public void release(DocumentBuilder builder) {
+        release(builder, idleBuilders);
+    }
+
+    private DocumentBuilder borrow(DocumentBuilderFactory source, BlockingQueue<DocumentBuilder> idle)
+            throws ParserConfigurationException {
+        if (config.isEnabled()) {
+            DocumentBuilder builder = idle.poll();
+            if (builder != null) {
+                hitCounter.increment();
+                return builder;
+            }
+        }
+        missCounter.increment();
+        // DocumentBuilderFactory is not guaranteed to be thread-safe
+        synchronized (source) {
+            return source.newDocumentBuilder();
+        }
+    }
+
+    private void release(DocumentBuilder builder, BlockingQueue<DocumentBuilder> idle) {
+        if (builder == null || !config.isEnabled()) {
+            return;
+        }
+        try {
+            builder.reset();
+        } catch (Exception e) {
+            log.debug("Discarding DocumentBuilder that failed to reset: {}", e.getMessage());
+            discardCounter.increment();
+            return;
+        }
+        if (!idle.offer(builder)) {
+            discardCounter.increment();
+        }
+    }
+
+    /**
+     * Whether schema-related services should parse through this pool.
+     */
+    public boolean isSharedWithSchemaServices() {
+        return config.isEnabled() && config.isSharedWithSchemaServices();
+    }
+}
@@ -1,8 +1,12 @@
 package com.middleware.processor.service.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.middleware.processor.exception.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 import org.w3c.dom.Document;
@@ -12,18 +16,15 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
 import javax.xml.namespace.NamespaceContext;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathExpressionException;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Enhanced XML processing utility class.
@@ -34,6 +35,19 @@ public class XmlProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(XmlProcessor.class);
 
+    private static final String NAMESPACES_USER_DATA_KEY = "com.middleware.processor.namespaces";
+
+    private final XmlParserPool parserPool;
+    private final Cache<XPathKey, CompiledXPath> xpathCache;
+
+    public XmlProcessor(XmlParserPool parserPool,
+                        @Value("${xml.xpath.cache.max-size:2048}") long xpathCacheMaxSize) {
+        this.parserPool = parserPool;
+        this.xpathCache = CacheBuilder.newBuilder()
+            .maximumSize(xpathCacheMaxSize)
+            .build();
+    }
+
     /**
      * Parse an XML file into a Document object.
      *
@@ -59,19 +73,10 @@ public class XmlProcessor {
      * @throws Exception If parsing fails
      */
     public Document parseXmlBytes(byte[] bytes) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true); // Enable namespace support
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); // Security: Disallow DTDs
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false); // Security: Disable external entities
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); // Security: Disable external parameter entities
-        factory.setXIncludeAware(false); // Security: Disable XInclude
-        factory.setExpandEntityReferences(false); // Security: Don't expand entity references
-
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(new ByteArrayInputStream(bytes));
+        Document document = parserPool.parse(new ByteArrayInputStream(bytes));
         
         // Extract and register all namespaces
-        Map<String, String> namespaces = extractNamespaces(document.getDocumentElement());
+        Map<String, String> namespaces = getDocumentNamespaces(document);
         log.debug("Extracted {} namespaces from document", namespaces.size());
         
         return document;
@@ -85,20 +90,11 @@ public class XmlProcessor {
      * @throws Exception If parsing fails
      */
     public Document parseXmlString(String xmlString) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true); // Enable namespace support
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); // Security: Disallow DTDs
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false); // Security: Disable external entities
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); // Security: Disable external parameter entities
-        factory.setXIncludeAware(false); // Security: Disable XInclude
-        factory.setExpandEntityReferences(false); // Security: Don't expand entity references
-
-        DocumentBuilder builder = factory.newDocumentBuilder();
         InputSource inputSource = new InputSource(new StringReader(xmlString));
-        Document document = builder.parse(inputSource);
+        Document document = parserPool.parse(inputSource);
         
         // Extract and register all namespaces
-        Map<String, String> namespaces = extractNamespaces(document.getDocumentElement());
+        Map<String, String> namespaces = getDocumentNamespaces(document);
         log.debug("Extracted {} namespaces from document", namespaces.size());
         
         return document;
@@ -180,22 +176,12 @@ public class XmlProcessor {
      * @throws Exception If evaluation fails
      */
     public String evaluateXPath(Document document, String xpathExpression) throws Exception {
-        Map<String, String> namespaces = extractNamespaces(document.getDocumentElement());
-        XPathFactory xPathFactory = XPathFactory.newInstance();
-        XPath xpath = xPathFactory.newXPath();
-        
-        // Set namespace context if namespaces are present
-        if (!namespaces.isEmpty()) {
-            xpath.setNamespaceContext(new MapNamespaceContext(namespaces));
-        }
-        
-        XPathExpression expr = xpath.compile(xpathExpression);
-        Object result = expr.evaluate(document, XPathConstants.STRING);
-        return result != null ? result.toString() : null;
+        return evaluateXPath(document, compileXPath(document, xpathExpression));
     }
 
     /**
      * Evaluate an XPath expression on an Element and return the result as a string.
+     * Namespace prefixes are resolved against the owning document's namespace context.
      *
      * @param element The Element to evaluate against
      * @param xpathExpression The XPath expression
@@ -203,18 +189,7 @@ public class XmlProcessor {
      * @throws Exception If evaluation fails
      */
     public String evaluateXPath(Element element, String xpathExpression) throws Exception {
-        Map<String, String> namespaces = extractNamespaces(element);
-        XPathFactory xPathFactory = XPathFactory.newInstance();
-        XPath xpath = xPathFactory.newXPath();
-        
-        // Set namespace context if namespaces are present
-        if (!namespaces.isEmpty()) {
-            xpath.setNamespaceContext(new MapNamespaceContext(namespaces));
-        }
-        
-        XPathExpression expr = xpath.compile(xpathExpression);
-        Object result = expr.evaluate(element, XPathConstants.STRING);
-        return result != null ? result.toString() : null;
+        return evaluateXPath(element, compileXPath(element.getOwnerDocument(), xpathExpression));
     }
 
     /**
@@ -226,17 +201,106 @@ public class XmlProcessor {
      * @throws Exception If evaluation fails
      */
     public NodeList evaluateXPathForNodes(Document document, String xpathExpression) throws Exception {
-        Map<String, String> namespaces = extractNamespaces(document.getDocumentElement());
-        XPathFactory xPathFactory = XPathFactory.newInstance();
-        XPath xpath = xPathFactory.newXPath();
-        
-        // Set namespace context if namespaces are present
-        if (!namespaces.isEmpty()) {
-            xpath.setNamespaceContext(new MapNamespaceContext(namespaces));
+        return evaluateXPathForNodes(document, compileXPath(document, xpathExpression));
+    }
+
+    /**
+     * Evaluate a precompiled XPath against a Document or Element and return the result as a string.
+     *
+     * @param context The node to evaluate against
+     * @param xpath The compiled XPath handle
+     * @return The result as a string, or null if not found
+     * @throws XPathExpressionException If evaluation fails
+     */
+    public String evaluateXPath(Node context, CompiledXPath xpath) throws XPathExpressionException {
+        Object result = xpath.expression().evaluate(context, XPathConstants.STRING);
+        return result != null ? result.toString() : null;
+    }
+
+    /**
+     * Evaluate a precompiled XPath against a Document or Element and return the result as a NodeList.
+     *
+     * @param context The node to evaluate against
+     * @param xpath The compiled XPath handle
+     * @return The result as a NodeList
+     * @throws XPathExpressionException If evaluation fails
+     */
+    public NodeList evaluateXPathForNodes(Node context, CompiledXPath xpath) throws XPathExpressionException {
+        return (NodeList) xpath.expression().evaluate(context, XPathConstants.NODESET);
+    }
+
+    /**
+     * Compile an XPath expression using the namespace bindings of the given document.
+     *
+     * @param document The document whose namespace declarations should be in scope
+     * @param xpathExpression The XPath expression
+     * @return A reusable compiled handle
+     * @throws XPathExpressionException If the expression cannot be compiled
+     */
+    public CompiledXPath compileXPath(Document document, String xpathExpression) throws XPathExpressionException {
+        return compileXPath(xpathExpression, getDocumentNamespaces(document));
+    }
+
+    /**
+     * Compile an XPath expression, reusing a cached handle when the same expression
+     * was already compiled with the same namespace bindings.
+     *
+     * @param xpathExpression The XPath expression
+     * @param namespaces Prefix to URI bindings to use for the expression
+     * @return A reusable compiled handle
+     * @throws XPathExpressionException If the expression cannot be compiled
+     */
+    public CompiledXPath compileXPath(String xpathExpression, Map<String, String> namespaces) throws XPathExpressionException {
+        XPathKey key = new XPathKey(xpathExpression, Map.copyOf(namespaces));
+        try {
+            return xpathCache.get(key, () -> new CompiledXPath(key.expression(), key.namespaces(), new MapNamespaceContext(key.namespaces())));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof XPathExpressionException) {
+                throw (XPathExpressionException) e.getCause();
+            }
+            throw new XPathExpressionException(e.getCause());
         }
-        
-        XPathExpression expr = xpath.compile(xpathExpression);
-        return (NodeList) expr.evaluate(document, XPathConstants.NODESET);
+    }
+
+    /**
+     * Get the namespace declarations of a document.
+     * They are collected in a single pass on first use and kept on the document,
+     * so repeated evaluations against the same document do not walk it again.
+     * As with {@link #extractNamespaces}, a later or inner declaration of a prefix overrides an earlier one.
+     *
+     * @param document The document
+     * @return An immutable map of namespace prefixes to URIs
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getDocumentNamespaces(Document document) {
+        Object cached = document.getUserData(NAMESPACES_USER_DATA_KEY);
+        if (cached instanceof Map) {
+            return (Map<String, String>) cached;
+        }
+
+        Map<String, String> namespaces = new HashMap<>();
+        Element root = document.getDocumentElement();
+        if (root != null) {
+            Deque<Element> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Element element = pending.pop();
+                extractNamespacesFromElement(element, namespaces);
+
+                // Push children in reverse so they are visited in document order
+                NodeList children = element.getChildNodes();
+                for (int i = children.getLength() - 1; i >= 0; i--) {
+                    Node child = children.item(i);
+                    if (child.getNodeType() == Node.ELEMENT_NODE) {
+                        pending.push((Element) child);
+                    }
+                }
+            }
+        }
+
+        Map<String, String> result = Map.copyOf(namespaces);
+        document.setUserData(NAMESPACES_USER_DATA_KEY, result, null);
+        return result;
     }
 
     /**
@@ -294,6 +358,12 @@ public class XmlProcessor {
         }
     }
 
+    /**
+     * Cache key for compiled XPath expressions.
+     */
+    private record XPathKey(String expression, Map<String, String> namespaces) {
+    }
+
     /**
      * Implementation of NamespaceContext that uses a Map for namespace lookups.
      */
@@ -0,0 +1,345 @@
+package com.middleware.processor.validation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.middleware.processor.config.SchemaCacheConfig;
+import com.middleware.processor.config.XmlValidationConfig;
+import com.middleware.shared.model.Interface;
+import com.middleware.shared.repository.InterfaceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe registry of compiled XSD schemas.
+ * Interface schemas are keyed by their schema path plus the file's modification time and size,
+ * so an XSD replaced on disk is recompiled on next use; schemas given as XSD content are keyed
+ * by a SHA-256 hash of that content. Compiled {@link Schema} instances are immutable and shared
+ * between threads; callers create a {@link javax.xml.validation.Validator} per document.
+ */
+@Component
+public class SchemaRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaRegistry.class);
+
+    private static final String INLINE_LOCATION = "inline";
+    private static final String CLASSPATH_FINGERPRINT = "classpath";
+    private static final String SOURCE_TAG = "source";
+
+    private final SchemaCacheConfig cacheConfig;
+    private final XmlValidationConfig validationConfig;
+    private final InterfaceRepository interfaceRepository;
+    private final Cache<SchemaKey, Schema> schemaCache;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer interfaceCompileTimer;
+    private final Timer inlineCompileTimer;
+
+    public SchemaRegistry(SchemaCacheConfig cacheConfig,
+                          XmlValidationConfig validationConfig,
+                          InterfaceRepository interfaceRepository,
+                          MeterRegistry registry) {
+        this.cacheConfig = cacheConfig;
+        this.validationConfig = validationConfig;
+        this.interfaceRepository = interfaceRepository;
+        this.schemaCache = CacheBuilder.newBuilder()
+            .maximumSize(cacheConfig.getMaxSize())
+            .build();
+
+        this.hitCounter = Counter.builder("xml.schema.cache.hits")
+            .description("Number of validations served by an already compiled schema")
+            .register(registry);
+        this.missCounter = Counter.builder("xml.schema.cache.misses")
+            .description("Number of validations that had to compile their schema")
+            .register(registry);
+        this.interfaceCompileTimer = compileTimer(registry, "interface");
+        this.inlineCompileTimer = compileTimer(registry, INLINE_LOCATION);
+        Gauge.builder("xml.schema.cache.size", schemaCache, Cache::size)
+            .description("Number of compiled schemas currently cached")
+            .register(registry);
+    }
+
+    private static Timer compileTimer(MeterRegistry registry, String source) {
+        return Timer.builder("xml.schema.compile")
+            .description("Time spent compiling XSD schemas")
+            .tag(SOURCE_TAG, source)
+            .register(registry);
+    }
+
+    /**
+     * Get the compiled schema of an interface, compiling it on first use or after the XSD changed.
+     * Interface schemas are compiled with full schema checking and all schema locations honoured.
+     *
+     * @param schemaPath The interface schema path
+     * @return The compiled schema, or null if no XSD exists at the path
+     * @throws SAXException If the XSD cannot be compiled
+     * @throws IOException If the XSD cannot be read
+     */
+    public Schema getInterfaceSchema(String schemaPath) throws SAXException, IOException {
+        URL location = resolveSchemaLocation(schemaPath);
+        if (location == null) {
+            return null;
+        }
+        SchemaKey key = new SchemaKey(schemaPath, fingerprint(location));
+        return getOrCompile(key, interfaceCompileTimer, () -> {
+            // Drop versions compiled from an earlier copy of the file
+            schemaCache.asMap().keySet().removeIf(k -> k.location().equals(schemaPath) && !k.equals(key));
+            try (InputStream inputStream = location.openStream()) {
+                SchemaFactory factory = newSchemaFactory();
+                factory.setFeature("http://apache.org/xml/features/validation/schema-full-checking", true);
+                factory.setFeature("http://apache.org/xml/features/honour-all-schemaLocations", true);
+                // The system id lets relative xs:include and xs:import locations resolve against the XSD
+                return factory.newSchema(new StreamSource(inputStream, location.toExternalForm()));
+            }
+        });
+    }
+
+    /**
+     * Get the compiled schema for XSD content, compiling it on first use.
+     *
+     * @param xsdContent The XSD content
+     * @return The compiled schema
+     * @throws SAXException If the XSD cannot be compiled
+     * @throws IOException If the XSD cannot be read
+     */
+    public Schema getSchema(String xsdContent) throws SAXException, IOException {
+        SchemaKey key = new SchemaKey(INLINE_LOCATION, sha256(xsdContent));
+        return getOrCompile(key, inlineCompileTimer,
+            () -> newSchemaFactory().newSchema(new StreamSource(new StringReader(xsdContent))));
+    }
+
+    /**
+     * Identify the current version of an interface schema without compiling it.
+     *
+     * @param schemaPath The interface schema path
+     * @return A value that changes whenever the XSD changes, or null if no XSD exists at the path
+     * @throws IOException If the XSD cannot be inspected
+     */
+    public String getSchemaVersion(String schemaPath) throws IOException {
+        URL location = resolveSchemaLocation(schemaPath);
+        return location == null ? null : fingerprint(location);
+    }
+
+    /**
+     * Drop every compiled version of an interface schema, e.g. after its XSD was re-uploaded.
+     *
+     * @param schemaPath The interface schema path
+     */
+    public void invalidate(String schemaPath) {
+        if (schemaPath == null) {
+            return;
+        }
+        if (schemaCache.asMap().keySet().removeIf(k -> k.location().equals(schemaPath))) {
+            log.info("Invalidated compiled schema for {}", schemaPath);
+        }
+    }
+
+    /**
+     * Drop all compiled schemas.
+     */
+    public void clear() {
+        schemaCache.invalidateAll();
+    }
+
+    /**
+     * Compile the schemas of all active interfaces so the first documents do not pay for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!cacheConfig.isEnabled() || !cacheConfig.isWarmUpOnStartup()) {
+            return;
+        }
+        List<Interface> interfaces;
+        try {
+            interfaces = interfaceRepository.findByIsActive(true, Pageable.unpaged()).getContent();
+        } catch (Exception e) {
+            log.warn("Skipping schema warm-up, active interfaces could not be loaded: {}", e.getMessage());
+            return;
+        }
+
+        int compiled = 0;
+        for (Interface interfaceEntity : interfaces) {
+            String schemaPath = interfaceEntity.getSchemaPath();
+            if (schemaPath == null || schemaPath.isEmpty()) {
+                continue;
+            }
+            try {
+                if (getInterfaceSchema(schemaPath) != null) {
+                    compiled++;
+                } else {
+                    log.warn("XSD schema not found for interface {} at path: {}", interfaceEntity.getName(), schemaPath);
+                }
+            } catch (Exception e) {
+                log.warn("Could not compile XSD schema for interface {}: {}", interfaceEntity.getName(), e.getMessage());
+            }
+        }
+        log.info("Schema warm-up compiled {} schema(s) for {} active interface(s)", compiled, interfaces.size());
+    }
+
+    /**
+     * Resolve an interface schema path to the XSD, looking on the filesystem first and then on the classpath.
+     *
+     * @param schemaPath The interface schema path
+     * @return The XSD location, or null if it does not exist
+     */
+    public URL resolveSchemaLocation(String schemaPath) throws IOException {
+        Path xsdPath = Paths.get(schemaPath);
+        if (Files.exists(xsdPath)) {
+            return xsdPath.toUri().toURL();
+        }
+        String resourcePath = schemaPath.replace("backend/src/main/resources/", "");
+        return getClass().getClassLoader().getResource(resourcePath);
+    }
+
+    private Schema getOrCompile(SchemaKey key, Timer compileTimer, SchemaCompiler compiler) throws SAXException, IOException {
+        if (!cacheConfig.isEnabled()) {
+            missCounter.increment();
+            return compile(key, compileTimer, compiler);
+        }
+        Schema schema = schemaCache.getIfPresent(key);
+        if (schema != null) {
+            hitCounter.increment();
+            return schema;
+        }
+        try {
+            // Concurrent requests for the same key wait for a single compilation
+            return schemaCache.get(key, () -> {
+                missCounter.increment();
+                return compile(key, compileTimer, compiler);
+            });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SAXException saxException) {
+                throw saxException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("Failed to compile XSD schema " + key.location(), cause);
+        }
+    }
+
+    private Schema compile(SchemaKey key, Timer compileTimer, SchemaCompiler compiler) throws SAXException, IOException {
+        long start = System.nanoTime();
+        try {
+            return compiler.compile();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            compileTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.debug("Compiled XSD schema {} in {} ms", key.location(), elapsed / 1_000_000);
+        }
+    }
+
+    private static String fingerprint(URL location) throws IOException {
+        if (!"file".equals(location.getProtocol())) {
+            // Classpath resources cannot change while the application runs
+            return CLASSPATH_FINGERPRINT;
+        }
+        try {
+            Path path = Paths.get(location.toURI());
+            return Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid XSD location: " + location, e);
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Create a SchemaFactory with the validation settings. SchemaFactory is not thread-safe,
+     * so each compilation uses its own instance.
+     */
+    private SchemaFactory newSchemaFactory() {
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        try {
+            // Enable external schema access
+            System.setProperty("javax.xml.accessExternalSchema", "all");
+            System.setProperty("javax.xml.accessExternalDTD", "all");
+
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "all");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "all");
+
+            try {
+                factory.setProperty("http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit",
+                                  validationConfig.getEntityExpansionLimit());
+            } catch (SAXException e) {
+                log.debug("Could not set Oracle entity expansion limit", e);
+            }
+
+            try {
+                factory.setProperty("entityExpansionLimit", validationConfig.getEntityExpansionLimit());
+            } catch (SAXException e) {
+                log.debug("Could not set direct entity expansion limit", e);
+            }
+
+            // Set XML validation features from config
+            try {
+                factory.setFeature("http://apache.org/xml/features/honour-all-schemaLocations",
+                                 validationConfig.isHonourAllSchemaLocations());
+                factory.setFeature("http://apache.org/xml/features/validation/schema-full-checking",
+                                 validationConfig.isEnableSchemaFullChecking());
+
+                if (validationConfig.getAdditionalFeatures() != null) {
+                    for (Map.Entry<String, Boolean> feature : validationConfig.getAdditionalFeatures().entrySet()) {
+                        factory.setFeature(feature.getKey(), feature.getValue());
+                    }
+                }
+            } catch (SAXException e) {
+                log.debug("Could not set XML features", e);
+            }
+
+            log.debug("Configured SchemaFactory with external access enabled");
+        } catch (Exception e) {
+            log.error("Error configuring SchemaFactory: " + e.getMessage(), e);
+        }
+        return factory;
+    }
+
+    @FunctionalInterface
+    private interface SchemaCompiler {
+        Schema compile() throws SAXException, IOException;
+    }
+
+    /**
+     * Cache key: where the XSD came from plus a fingerprint of the version that was compiled.
+     */
+    private record SchemaKey(String location, String fingerprint) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.middleware.processor.validation;
 
+import com.middleware.processor.service.util.XmlParserPool;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
@@ -20,8 +21,10 @@ public class SchemaVersionManager {
 
     private final Map<String, Schema> schemaCache = new ConcurrentHashMap<>();
     private final DocumentBuilderFactory documentBuilderFactory;
+    private final XmlParserPool parserPool;
 
-    public SchemaVersionManager() {
+    public SchemaVersionManager(XmlParserPool parserPool) {
+        this.parserPool = parserPool;
         documentBuilderFactory = DocumentBuilderFactory.newInstance();
         documentBuilderFactory.setNamespaceAware(true);
         documentBuilderFactory.setValidating(false);
@@ -50,6 +53,9 @@ public class SchemaVersionManager {
     }
 
     public Document parseDocument(InputStream xmlStream) throws ParserConfigurationException, IOException, SAXException {
+        if (parserPool.isSharedWithSchemaServices()) {
+            return parserPool.parseSchema(xmlStream);
+        }
         DocumentBuilder builder = documentBuilderFactory.newDocumentBuilder();
         return builder.parse(xmlStream);
     }
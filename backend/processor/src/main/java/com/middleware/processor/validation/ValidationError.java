@@ -0,0 +1,52 @@
+package com.middleware.processor.validation;
+
+import lombok.Getter;
+import org.xml.sax.SAXParseException;
+
+/**
+ * A single problem reported while validating a document.
+ */
+@Getter
+public final class ValidationError {
+
+    public enum Severity {
+        WARNING,
+        ERROR,
+        FATAL
+    }
+
+    /** Line and column value when the problem has no location in the document */
+    public static final int UNKNOWN = -1;
+
+    private final Severity severity;
+    private final int lineNumber;
+    private final int columnNumber;
+    private final String message;
+
+    public ValidationError(Severity severity, int lineNumber, int columnNumber, String message) {
+        this.severity = severity;
+        this.lineNumber = lineNumber;
+        this.columnNumber = columnNumber;
+        this.message = message;
+    }
+
+    public static ValidationError of(Severity severity, SAXParseException e) {
+        return new ValidationError(severity, e.getLineNumber(), e.getColumnNumber(), e.getMessage());
+    }
+
+    public static ValidationError of(Severity severity, String message) {
+        return new ValidationError(severity, UNKNOWN, UNKNOWN, message);
+    }
+
+    public boolean isFailure() {
+        return severity != Severity.WARNING;
+    }
+
+    @Override
+    public String toString() {
+        if (lineNumber == UNKNOWN) {
+            return message;
+        }
+        return "Line " + lineNumber + ", Column " + columnNumber + ": " + message;
+    }
+}
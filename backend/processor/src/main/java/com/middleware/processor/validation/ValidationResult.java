@@ -0,0 +1,95 @@
+package com.middleware.processor.validation;
+
+import org.w3c.dom.Document;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of one validation call.
+ * Each call returns its own immutable result, so concurrent validations never see each other's errors.
+ */
+public final class ValidationResult {
+
+    private final List<ValidationError> errors;
+    private final Document document;
+    private final boolean complete;
+
+    private ValidationResult(List<ValidationError> errors, Document document, boolean complete) {
+        this.errors = List.copyOf(errors);
+        this.document = document;
+        this.complete = complete;
+    }
+
+    public static ValidationResult of(List<ValidationError> errors, Document document) {
+        return new ValidationResult(errors, document, true);
+    }
+
+    /**
+     * Result of a validation that ended with an exception rather than with the document's verdict.
+     *
+     * @param errors The problems reported
+     * @param complete Whether the failure is an error the validator reported for the document itself
+     */
+    public static ValidationResult of(List<ValidationError> errors, Document document, boolean complete) {
+        return new ValidationResult(errors, document, complete);
+    }
+
+    public static ValidationResult valid(Document document) {
+        return new ValidationResult(List.of(), document, true);
+    }
+
+    public static ValidationResult failure(String message) {
+        return new ValidationResult(List.of(ValidationError.of(ValidationError.Severity.ERROR, message)), null, true);
+    }
+
+    /**
+     * A validation that could not be carried out, e.g. because the schema is missing.
+     */
+    public static ValidationResult unavailable(String message) {
+        return new ValidationResult(List.of(ValidationError.of(ValidationError.Severity.ERROR, message)), null, false);
+    }
+
+    /**
+     * Whether the result is the document's verdict, so validating the same payload again gives the
+     * same result. Results of failures that do not depend on the document, such as a missing schema
+     * or an unreadable stream, are not complete and must not be reused.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Whether the document passed validation; warnings do not make it invalid.
+     */
+    public boolean isValid() {
+        return errors.stream().noneMatch(ValidationError::isFailure);
+    }
+
+    /**
+     * All problems reported, warnings included, in the order they were found.
+     */
+    public List<ValidationError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * The errors as one message, or null if the document is valid.
+     */
+    public String getErrorMessage() {
+        if (isValid()) {
+            return null;
+        }
+        return errors.stream()
+            .filter(ValidationError::isFailure)
+            .map(ValidationError::toString)
+            .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * The document built while validating, for calls that parse and validate in one pass; otherwise null.
+     */
+    public Document getDocument() {
+        return document;
+    }
+}
@@ -0,0 +1,31 @@
+package com.middleware.shared.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for handing large payloads from the listener to the processor through a shared content store
+ */
+@Configuration
+@ConfigurationProperties(prefix = "claim-check")
+@Getter
+@Setter
+public class ClaimCheckConfig {
+
+    /**
+     * Store payloads above the threshold and enqueue only a reference to them
+     */
+    private boolean enabled = false;
+
+    /**
+     * Payload size in bytes above which the payload is claim-checked
+     */
+    private long thresholdBytes = 1024 * 1024;
+
+    /**
+     * Directory of the content store; must be shared by listener and processor instances, e.g. an NFS mount
+     */
+    private String directory = "./data/claim-check";
+}
@@ -0,0 +1,36 @@
+package com.middleware.shared.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration properties for compressing message payloads between listener and processor
+ */
+@Configuration
+@ConfigurationProperties(prefix = "payload-compression")
+@Getter
+@Setter
+public class PayloadCompressionConfig {
+
+    /**
+     * Compress payloads published to the processor queues
+     */
+    private boolean enabled = false;
+
+    /**
+     * Content encoding to compress with: gzip, or deflate for a cheaper raw DEFLATE stream
+     */
+    private String encoding = "gzip";
+
+    /**
+     * Deflate compression level (1-9)
+     */
+    private int level = 6;
+
+    /**
+     * Payload size in bytes below which messages are sent uncompressed
+     */
+    private int thresholdBytes = 4096;
+}
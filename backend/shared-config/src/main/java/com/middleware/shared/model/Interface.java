@@ -68,6 +68,20 @@ public class Interface extends BaseEntity {
     @Column(nullable = false)
     private int priority = 0;
 
+    /**
+     * Payload size in bytes from which documents are processed in streaming mode.
+     * Null uses the processor default.
+     */
+    @Column(name = "streaming_threshold_bytes")
+    private Long streamingThresholdBytes;
+
+    /**
+     * Line count from which document lines are written with COPY instead of through JPA.
+     * Null uses the processor default.
+     */
+    @Column(name = "bulk_load_threshold_rows")
+    private Integer bulkLoadThresholdRows;
+
     public boolean isHighPriority() {
         return priority >= 8;
     }
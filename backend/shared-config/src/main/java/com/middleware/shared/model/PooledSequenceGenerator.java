@@ -0,0 +1,36 @@
+package com.middleware.shared.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Id generator for tables whose primary key is a BIGSERIAL column.
+ * Ids are drawn from the column's own sequence ({@code <table>_<column>_seq}) in blocks of
+ * {@link #INCREMENT_SIZE} with the pooled-lo optimizer, so persisting an entity needs no round
+ * trip and inserts can be JDBC-batched. The sequences are altered to the same increment by
+ * migration V4; the column defaults keep working for rows inserted outside Hibernate.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String NAME = "pooled_sequence";
+
+    public static final int INCREMENT_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        if (!parameters.containsKey(SEQUENCE_PARAM)) {
+            String table = parameters.getProperty(PersistentIdentifierGenerator.TABLE);
+            String column = parameters.getProperty(PersistentIdentifierGenerator.PK);
+            parameters.setProperty(SEQUENCE_PARAM, table + "_" + column + "_seq");
+        }
+        parameters.putIfAbsent(INCREMENT_PARAM, String.valueOf(INCREMENT_SIZE));
+        parameters.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
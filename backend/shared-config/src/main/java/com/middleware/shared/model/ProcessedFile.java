@@ -67,8 +67,8 @@ public class ProcessedFile extends BaseEntity {
     @Column
     private String storageType; // "DB" or "FS"
 
-    @Lob
-    @Column
+    // Mapped as bytea rather than @Lob so PostgreSQL stores the payload inline instead of as a large object
+    @Column(name = "content_bytes")
     private byte[] contentBytes; // Only used if storageType is "DB"
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -76,6 +76,11 @@ public class ProcessedFile extends BaseEntity {
     @JsonBackReference
     private AsnHeader asnHeader;
 
+    // Set on an error record queued for write-behind: a copy is saved later, this instance never is
+    @Transient
+    @JsonIgnore
+    private boolean writtenBehind;
+
     @PrePersist
     protected void onCreate() {
         super.onCreate();
@@ -122,6 +122,13 @@ public interface InterfaceRepository extends BaseRepository<Interface> {
      */
     List<Interface> findByClient_IdAndIsActiveTrue(Long clientId);
 
+    /**
+     * Finds all active interfaces.
+     *
+     * @return List of active interfaces
+     */
+    List<Interface> findByIsActiveTrue();
+
     /**
      * Find an interface by its root element name and active status.
      *
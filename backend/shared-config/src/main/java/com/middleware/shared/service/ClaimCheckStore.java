@@ -0,0 +1,148 @@
+package com.middleware.shared.service;
+
+import com.middleware.shared.config.ClaimCheckConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Shared content store for the claim-check handoff between listener and processor.
+ * The listener writes a large payload here and enqueues only its reference, SHA-256 hash and
+ * size; the processor resolves the reference and reads the payload from the store, so the
+ * bytes never pass through the broker. References are paths relative to the store directory.
+ */
+@Service
+public class ClaimCheckStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimCheckStore.class);
+
+    public static final String REFERENCE_HEADER = "ClaimCheckRef";
+    public static final String HASH_HEADER = "ClaimCheckSha256";
+    public static final String SIZE_HEADER = "ClaimCheckSize";
+
+    private final ClaimCheckConfig config;
+
+    public ClaimCheckStore(ClaimCheckConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * A stored payload.
+     *
+     * @param reference Path of the payload relative to the store directory
+     * @param sha256 Hex-encoded SHA-256 hash of the payload
+     * @param size Size of the payload in bytes
+     */
+    public record ClaimCheck(String reference, String sha256, long size) {
+    }
+
+    /**
+     * Whether a payload of the given size should be claim-checked.
+     *
+     * @param size The payload size in bytes
+     * @return True if claim-checking is enabled and the payload is above the threshold
+     */
+    public boolean shouldStore(long size) {
+        return config.isEnabled() && size > config.getThresholdBytes();
+    }
+
+    /**
+     * Write a payload to the store. The payload is streamed to a temporary file and moved into
+     * place once complete, so a reader never sees a partial payload.
+     *
+     * @param payload The payload; it is read to the end but not closed
+     * @return The claim check to enqueue in place of the payload
+     * @throws IOException If the payload cannot be written
+     */
+    public ClaimCheck store(InputStream payload) throws IOException {
+        String reference = LocalDate.now() + "/" + UUID.randomUUID() + ".xml";
+        Path target = resolve(reference);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        MessageDigest digest = sha256();
+        long size;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            size = new DigestInputStream(payload, digest).transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        ClaimCheck claimCheck = new ClaimCheck(reference, HexFormat.of().formatHex(digest.digest()), size);
+        log.debug("Stored claim-checked payload {} ({} bytes)", reference, size);
+        return claimCheck;
+    }
+
+    /**
+     * Locate a stored payload and check it against the hash it was enqueued with.
+     *
+     * @param reference The reference from the message
+     * @param sha256 The expected hash, or null to skip the check
+     * @return The path of the payload
+     * @throws IOException If the payload is missing, unreadable or does not match its hash
+     */
+    public Path open(String reference, String sha256) throws IOException {
+        Path path = resolve(reference);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("Claim-checked payload not found: " + reference);
+        }
+        if (sha256 != null) {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            String actual = HexFormat.of().formatHex(digest.digest());
+            if (!actual.equalsIgnoreCase(sha256)) {
+                throw new IOException("Claim-checked payload " + reference + " does not match its hash");
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Remove a payload once it has been processed.
+     *
+     * @param reference The reference from the message
+     */
+    public void delete(String reference) {
+        try {
+            Files.deleteIfExists(resolve(reference));
+        } catch (IOException e) {
+            log.warn("Could not delete claim-checked payload {}: {}", reference, e.getMessage());
+        }
+    }
+
+    private Path resolve(String reference) throws IOException {
+        Path root = Paths.get(config.getDirectory()).toAbsolutePath().normalize();
+        Path path = root.resolve(reference).normalize();
+        // References come from message headers; never let one point outside the store
+        if (!path.startsWith(root)) {
+            throw new IOException("Invalid claim-check reference: " + reference);
+        }
+        return path;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
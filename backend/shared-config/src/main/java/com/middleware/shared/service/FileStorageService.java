@@ -6,20 +6,31 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.Arrays;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Abstract base service for file storage operations.
  * Provides common functionality for storing and retrieving files.
+ * Files up to the filesystem threshold are kept in the record ("DB"), larger ones are streamed to
+ * the storage directory ("FS"); either way GZIP-compressed when compression is enabled.
  */
 @Service
 public abstract class FileStorageService {
@@ -34,6 +45,15 @@ public abstract class FileStorageService {
     @Value("${app.file.storage.allowed-extensions:xml,json,csv}")
     protected List<String> allowedExtensions;
 
+    @Value("${app.file.storage.filesystem-threshold-bytes:1048576}")
+    protected long filesystemThresholdBytes;
+
+    @Value("${app.file.storage.compression.enabled:false}")
+    protected boolean compressionEnabled;
+
+    @Value("${app.file.storage.compression.level:6}")
+    protected int compressionLevel;
+
     /**
      * Stores a file based on its size and configuration.
      * @param processedFile The processed file metadata
@@ -44,11 +64,7 @@ public abstract class FileStorageService {
         validateFile(file);
         
         try {
-            if (shouldStoreInFileSystem(file)) {
-                storeInFileSystem(processedFile, file);
-            } else {
-                storeInDatabase(processedFile, file);
-            }
+            storePayload(processedFile, file);
             log.info("Successfully stored file: {} with storage type: {}", 
                     processedFile.getFileName(), processedFile.getStorageType());
         } catch (IOException e) {
@@ -57,6 +73,21 @@ public abstract class FileStorageService {
         }
     }
 
+    /**
+     * Stores a file as received, without the upload checks of {@link #storeFile}, e.g. a document
+     * that was already accepted and processed. Large files are streamed, never held in memory.
+     * @param processedFile The processed file metadata
+     * @param file The file to store
+     * @throws IOException if storage fails
+     */
+    public void storePayload(ProcessedFile processedFile, MultipartFile file) throws IOException {
+        if (shouldStoreInFileSystem(file)) {
+            storeInFileSystem(processedFile, file);
+        } else {
+            storeInDatabase(processedFile, file);
+        }
+    }
+
     /**
      * Determines if a file should be stored in the filesystem.
      * Can be overridden by subclasses to implement custom storage strategies.
@@ -64,7 +95,22 @@ public abstract class FileStorageService {
      * @return true if the file should be stored in filesystem
      */
     protected boolean shouldStoreInFileSystem(MultipartFile file) {
-        return file.getSize() > maxFileSize;
+        return file.getSize() > filesystemThresholdBytes;
+    }
+
+    /**
+     * Whether files are GZIP-compressed before they are stored.
+     * Can be overridden by subclasses with their own compression setting.
+     */
+    protected boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Deflate level (1-9) used when compression is enabled.
+     */
+    protected int getCompressionLevel() {
+        return compressionLevel;
     }
 
     /**
@@ -94,21 +140,44 @@ public abstract class FileStorageService {
     }
 
     /**
-     * Stores a file in the filesystem.
+     * Stores a file in the filesystem, streaming it to a dated directory under a unique name.
+     * A file that compresses to within the filesystem threshold is kept in the database instead.
+     * A file written within a transaction is deleted again if that transaction rolls back.
      * @param processedFile The processed file metadata
      * @param file The file to store
      * @throws IOException if storage fails
      */
     protected void storeInFileSystem(ProcessedFile processedFile, MultipartFile file) throws IOException {
-        String fileName = StringUtils.cleanPath(file.getOriginalFilename());
-        Path targetLocation = Paths.get(storageDirectory).resolve(fileName);
-        
+        String originalName = file.getOriginalFilename();
+        String fileName = originalName != null ? StringUtils.getFilename(StringUtils.cleanPath(originalName)) : "file";
+        Path targetLocation = Paths.get(storageDirectory)
+                .resolve(LocalDate.now().toString())
+                .resolve(UUID.randomUUID() + "-" + fileName + (isCompressionEnabled() ? ".gz" : ""));
+
         Files.createDirectories(targetLocation.getParent());
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-        
+        try (InputStream inputStream = file.getInputStream()) {
+            if (isCompressionEnabled()) {
+                try (OutputStream gzipStream = new LeveledGzipOutputStream(Files.newOutputStream(targetLocation), getCompressionLevel())) {
+                    inputStream.transferTo(gzipStream);
+                }
+            } else {
+                Files.copy(inputStream, targetLocation);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(targetLocation);
+            throw e;
+        }
+
+        if (Files.size(targetLocation) <= filesystemThresholdBytes) {
+            storeInRecord(processedFile, Files.readAllBytes(targetLocation), fileName);
+            Files.delete(targetLocation);
+            return;
+        }
         processedFile.setStorageType("FS");
         processedFile.setFilePath(targetLocation.toString());
+        processedFile.setContentBytes(null);
         processedFile.setContent("File stored in filesystem: " + fileName);
+        deleteOnRollback(targetLocation);
     }
 
     /**
@@ -118,13 +187,40 @@ public abstract class FileStorageService {
      * @throws IOException if storage fails
      */
     protected void storeInDatabase(ProcessedFile processedFile, MultipartFile file) throws IOException {
+        storeInRecord(processedFile, isCompressionEnabled() ? compress(file) : file.getBytes(), file.getOriginalFilename());
+    }
+
+    private static void storeInRecord(ProcessedFile processedFile, byte[] content, String fileName) {
         processedFile.setStorageType("DB");
-        processedFile.setContentBytes(file.getBytes());
-        processedFile.setContent("File stored in database: " + file.getOriginalFilename());
+        processedFile.setFilePath(null);
+        processedFile.setContentBytes(content);
+        processedFile.setContent("File stored in database: " + fileName);
     }
 
     /**
-     * Retrieves a file based on its storage type.
+     * Deletes a stored file if the transaction whose record references it rolls back.
+     */
+    private static void deleteOnRollback(Path targetLocation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    try {
+                        Files.deleteIfExists(targetLocation);
+                    } catch (IOException e) {
+                        log.warn("Could not delete file {} of rolled back transaction: {}", targetLocation, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves a file based on its storage type, decompressed.
+     * Records stored before file content was kept fall back to their serialized content.
      * @param processedFile The processed file metadata
      * @return The file content as bytes
      * @throws IOException if retrieval fails
@@ -135,14 +231,52 @@ public abstract class FileStorageService {
         }
 
         try {
+            byte[] stored;
             if ("FS".equals(processedFile.getStorageType())) {
-                return Files.readAllBytes(Paths.get(processedFile.getFilePath()));
+                stored = Files.readAllBytes(Paths.get(processedFile.getFilePath()));
+            } else if (processedFile.getContentBytes() != null) {
+                stored = processedFile.getContentBytes();
+            } else if (processedFile.getContent() != null) {
+                return processedFile.getContent().getBytes(StandardCharsets.UTF_8);
             } else {
-                return processedFile.getContentBytes();
+                throw new ValidationException("No stored content for processed file: " + processedFile.getId());
             }
+            // Compression may have been toggled since the file was stored, so detect it from the GZIP magic bytes
+            return isGzip(stored) ? decompress(stored) : stored;
         } catch (IOException e) {
             log.error("Error retrieving file: {}", e.getMessage(), e);
             throw new ValidationException("Failed to retrieve file: " + e.getMessage());
         }
     }
+
+    private byte[] compress(MultipartFile file) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE, file.getSize() / 4 + 64));
+        try (InputStream inputStream = file.getInputStream();
+             OutputStream gzipStream = new LeveledGzipOutputStream(byteStream, getCompressionLevel())) {
+            inputStream.transferTo(gzipStream);
+        }
+        return byteStream.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (InputStream gzipStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return gzipStream.readAllBytes();
+        }
+    }
+
+    private static boolean isGzip(byte[] content) {
+        return content.length >= 2
+                && (content[0] & 0xff) == (GZIPInputStream.GZIP_MAGIC & 0xff)
+                && (content[1] & 0xff) == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    }
+
+    /**
+     * GZIPOutputStream with a configurable deflate level.
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
 } 
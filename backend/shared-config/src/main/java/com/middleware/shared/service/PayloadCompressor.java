@@ -0,0 +1,212 @@
+package com.middleware.shared.service;
+
+import com.middleware.shared.config.PayloadCompressionConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses message payloads on the listener to processor path.
+ * The encoding travels in the AMQP content-encoding property and the uncompressed size in the
+ * {@link #ORIGINAL_SIZE_HEADER} header. Payloads are decompressed as a stream on first read.
+ * Compression ratio and the CPU time spent compressing and decompressing are recorded per queue.
+ */
+@Service
+public class PayloadCompressor {
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadCompressor.class);
+
+    public static final String ORIGINAL_SIZE_HEADER = "PayloadOriginalSize";
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final PayloadCompressionConfig config;
+    private final MeterRegistry registry;
+
+    public PayloadCompressor(PayloadCompressionConfig config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+        if (!GZIP.equals(config.getEncoding()) && !DEFLATE.equals(config.getEncoding())) {
+            throw new IllegalArgumentException("Unsupported payload compression encoding: " + config.getEncoding());
+        }
+    }
+
+    /**
+     * Turns a received payload stream into the decoded payload stream.
+     */
+    @FunctionalInterface
+    public interface Decoder {
+        InputStream decode(InputStream encoded) throws IOException;
+    }
+
+    /**
+     * A compressed payload.
+     *
+     * @param bytes The compressed bytes
+     * @param encoding The content encoding to publish with
+     */
+    public record Encoded(byte[] bytes, String encoding) {
+    }
+
+    /**
+     * Compress a payload if compression is enabled and worthwhile.
+     *
+     * @param payload The payload
+     * @param queue The queue the payload is published to, for metrics
+     * @return The compressed payload, or null if it is to be sent as is
+     */
+    public Encoded compress(byte[] payload, String queue) {
+        if (!config.isEnabled() || payload == null || payload.length < config.getThresholdBytes()) {
+            return null;
+        }
+        long cpuStart = cpuTime();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(payload.length / 4 + 64);
+        try (OutputStream out = GZIP.equals(config.getEncoding())
+                ? new LevelGzipOutputStream(buffer, config.getLevel())
+                : new RawDeflaterOutputStream(buffer, config.getLevel())) {
+            out.write(payload);
+        } catch (IOException e) {
+            // In-memory streams do not fail; send the payload uncompressed if they somehow do
+            log.warn("Could not compress payload for {}: {}", queue, e.getMessage());
+            return null;
+        }
+        cpuTimer(queue, "compress").record(cpuTime() - cpuStart, TimeUnit.NANOSECONDS);
+
+        byte[] compressed = buffer.toByteArray();
+        if (compressed.length >= payload.length) {
+            return null;
+        }
+        DistributionSummary.builder("payload.compression.ratio")
+            .description("Uncompressed to compressed size of published payloads")
+            .tag("queue", queue)
+            .register(registry)
+            .record((double) payload.length / compressed.length);
+        return new Encoded(compressed, config.getEncoding());
+    }
+
+    /**
+     * The decoder for a received content encoding.
+     *
+     * @param encoding The content encoding of the message, may be null
+     * @param queue The queue the message was consumed from, for metrics
+     * @return The decoder, or null if the payload is not compressed
+     * @throws IOException If the encoding is not supported
+     */
+    public Decoder decoderFor(String encoding, String queue) throws IOException {
+        if (encoding == null || encoding.isEmpty() || "identity".equalsIgnoreCase(encoding)) {
+            return null;
+        }
+        Timer timer = cpuTimer(queue, "decompress");
+        if (GZIP.equalsIgnoreCase(encoding)) {
+            return encoded -> new CpuTimedInputStream(new GZIPInputStream(encoded), timer);
+        }
+        if (DEFLATE.equalsIgnoreCase(encoding)) {
+            return encoded -> new CpuTimedInputStream(new InflaterInputStream(encoded, new Inflater(true)), timer);
+        }
+        throw new IOException("Unsupported payload content encoding: " + encoding);
+    }
+
+    private Timer cpuTimer(String queue, String operation) {
+        return Timer.builder("payload.compression.cpu")
+            .description("CPU time spent compressing or decompressing payloads")
+            .tag("queue", queue)
+            .tag("operation", operation)
+            .register(registry);
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * GZIP stream with a configurable compression level.
+     */
+    private static final class LevelGzipOutputStream extends GZIPOutputStream {
+        LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+
+    /**
+     * Raw DEFLATE stream without GZIP header and checksum; releases its deflater on close.
+     */
+    private static final class RawDeflaterOutputStream extends DeflaterOutputStream {
+        RawDeflaterOutputStream(OutputStream out, int level) {
+            super(out, new Deflater(level, true));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+
+    /**
+     * Adds up the CPU time spent in reads and records it once the stream is closed.
+     */
+    private static final class CpuTimedInputStream extends FilterInputStream {
+        private final Timer timer;
+        private long cpuNanos;
+        private boolean recorded;
+
+        CpuTimedInputStream(InputStream in, Timer timer) {
+            super(in);
+            this.timer = timer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = cpuTime();
+            try {
+                return super.read();
+            } finally {
+                cpuNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = cpuTime();
+            try {
+                return super.read(b, off, len);
+            } finally {
+                cpuNanos += cpuTime() - start;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (!recorded) {
+                recorded = true;
+                timer.record(cpuNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.middleware.shared.service.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Names of the queues inbound documents are routed to, shared by the listener, which publishes
+ * to them, and the processor, which declares and consumes them.
+ * Documents go to one work queue per interface type and priority lane,
+ * {@code inbound.processor.<type>.<lane>}, on the direct exchange.
+ */
+public final class QueueRouting {
+
+    public static final String DIRECT_EXCHANGE = "middleware.direct";
+
+    /**
+     * Queue of documents still to be routed by the processor
+     */
+    public static final String ROUTER_QUEUE = "inbound.processor";
+
+    public static final String HIGH = "high";
+    public static final String NORMAL = "normal";
+    public static final String LOW = "low";
+
+    /**
+     * Interface types with their own work queues
+     */
+    private static final List<String> INTERFACE_TYPES = List.of("asn", "order");
+
+    /**
+     * The work queues the processor declares: every interface type in every priority lane.
+     * Documents of other types have no work queue and go through the router queue.
+     */
+    public static final List<String> WORK_QUEUES = INTERFACE_TYPES.stream()
+        .flatMap(type -> Stream.of(HIGH, NORMAL, LOW).map(lane -> workQueue(type, lane)))
+        .toList();
+
+    private QueueRouting() {
+    }
+
+    /**
+     * The priority lane of an interface priority, with the same bands as
+     * {@link com.middleware.shared.model.Interface#isHighPriority()} and
+     * {@link com.middleware.shared.model.Interface#isNormalPriority()}.
+     *
+     * @param priority The interface priority
+     * @return high, normal or low
+     */
+    public static String priorityLane(int priority) {
+        if (priority >= 8) {
+            return HIGH;
+        }
+        return priority >= 4 ? NORMAL : LOW;
+    }
+
+    /**
+     * The work queue, and routing key, for an interface type and priority lane.
+     *
+     * @param interfaceType The interface type, e.g. ASN
+     * @param lane The priority lane
+     * @return The queue name
+     */
+    public static String workQueue(String interfaceType, String lane) {
+        return ROUTER_QUEUE + "." + interfaceType.toLowerCase(Locale.ROOT) + "." + lane;
+    }
+}
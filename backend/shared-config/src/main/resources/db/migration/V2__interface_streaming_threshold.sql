@@ -0,0 +1,3 @@
+-- Per-interface payload size above which documents are processed in streaming mode.
+-- NULL falls back to the processor's xml.streaming.default-threshold-bytes setting.
+ALTER TABLE interfaces ADD COLUMN streaming_threshold_bytes BIGINT;
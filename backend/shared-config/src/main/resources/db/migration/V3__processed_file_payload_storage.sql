@@ -0,0 +1,4 @@
+-- Storage columns for the original payload of processed files
+ALTER TABLE processed_files ADD COLUMN storage_type VARCHAR(255);
+ALTER TABLE processed_files ADD COLUMN file_path VARCHAR(255);
+ALTER TABLE processed_files ADD COLUMN content_bytes BYTEA;
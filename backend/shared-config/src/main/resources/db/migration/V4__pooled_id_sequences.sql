@@ -0,0 +1,15 @@
+-- Hibernate allocates ids of BaseEntity subclasses and the audit tables in blocks of 50 from
+-- the BIGSERIAL sequences (pooled-lo optimizer), so inserts can be JDBC-batched.
+-- Existing ids are kept: each sequence continues from its current value, only the step changes.
+-- The increment must match PooledSequenceGenerator.INCREMENT_SIZE.
+ALTER SEQUENCE clients_id_seq INCREMENT BY 50;
+ALTER SEQUENCE interfaces_id_seq INCREMENT BY 50;
+ALTER SEQUENCE mapping_rules_id_seq INCREMENT BY 50;
+ALTER SEQUENCE sftp_config_id_seq INCREMENT BY 50;
+ALTER SEQUENCE processed_files_id_seq INCREMENT BY 50;
+ALTER SEQUENCE asn_headers_asn_id_seq INCREMENT BY 50;
+ALTER SEQUENCE asn_lines_line_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_headers_order_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_lines_line_id_seq INCREMENT BY 50;
+ALTER SEQUENCE http_audit_logs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE method_audit_logs_id_seq INCREMENT BY 50;
@@ -0,0 +1,3 @@
+-- Per-interface line count above which document lines are written with COPY.
+-- NULL falls back to the processor's xml.bulk-load.default-threshold-rows setting.
+ALTER TABLE interfaces ADD COLUMN bulk_load_threshold_rows INTEGER;